@@ -1,23 +1,47 @@
 package me.evisual.rlenv;
 
+import me.evisual.rlenv.arena.Arena;
+import me.evisual.rlenv.arena.ArenaManager;
 import me.evisual.rlenv.command.RLEnvCommand;
 import me.evisual.rlenv.command.RLEnvTabCompleter;
+import me.evisual.rlenv.control.ConcurrentQTable;
+import me.evisual.rlenv.control.DqnPolicy;
+import me.evisual.rlenv.control.DynaQPolicy;
 import me.evisual.rlenv.control.EpisodeRunner;
 import me.evisual.rlenv.control.EpisodeStats;
+import me.evisual.rlenv.control.FeatureMap;
+import me.evisual.rlenv.control.LinearQPolicy;
+import me.evisual.rlenv.control.OfflinePretrainer;
 import me.evisual.rlenv.control.Policy;
+import me.evisual.rlenv.control.PolynomialFeatures;
+import me.evisual.rlenv.control.PolicyType;
+import me.evisual.rlenv.control.PrioritizedSweepingPolicy;
 import me.evisual.rlenv.control.QLearningPolicy;
+import me.evisual.rlenv.control.QTable;
+import me.evisual.rlenv.control.QTableCheckpoint;
+import me.evisual.rlenv.control.RawFeatures;
+import me.evisual.rlenv.control.ReplayBuffer;
+import me.evisual.rlenv.control.TickBudget;
+import me.evisual.rlenv.control.TileFeatures;
+import me.evisual.rlenv.control.WatkinsQLambdaPolicy;
+import me.evisual.rlenv.env.Action;
 import me.evisual.rlenv.env.RLEnvironment;
 import me.evisual.rlenv.env.goldcollector.ArenaConfig;
 import me.evisual.rlenv.env.goldcollector.GoldCollectorEnvironment;
+import me.evisual.rlenv.env.goldcollector.GoldCollectorSimulation;
 import me.evisual.rlenv.env.goldcollector.ProgressionGoldEnvironment;
+import me.evisual.rlenv.logging.EpisodeSampling;
 import me.evisual.rlenv.logging.TimingReporter;
+import me.evisual.rlenv.logging.TransitionFormat;
 import me.evisual.rlenv.logging.TransitionLogger;
+import me.evisual.rlenv.logging.TransitionScanner;
 import me.evisual.rlenv.progression.ProgressionManager;
 import me.evisual.rlenv.testing.StartupSelfTest;
 import me.evisual.rlenv.visual.AgentVisualizer;
 import me.evisual.rlenv.visual.ArenaVisualizer;
 import me.evisual.rlenv.visual.GraphMode;
 import me.evisual.rlenv.visual.ProgressGraphVisualizer;
+import me.evisual.rlenv.world.BlockEditQueue;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
@@ -25,19 +49,71 @@ import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.util.Vector;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class RLEnvPlugin extends JavaPlugin {
 
-    private EpisodeRunner episodeRunner;
-    private TransitionLogger transitionLogger;
-    private RLEnvironment environment;
-    private ProgressGraphVisualizer graphVisualizer;
+    /** Arena used by commands that don't name one; keeps the data folder layout of a single arena. */
+    public static final String DEFAULT_ARENA = "default";
+    public static final String PROGRESSION_ARENA = "progression";
+
+    private ArenaManager arenaManager;
+    private BlockEditQueue blockEdits;
     private ProgressionManager progressionManager;
+    private final Map<String, OfflinePretrainer> pretrainers = new ConcurrentHashMap<>();
     private boolean timingReportsEnabled = false;
     private int timingReportIntervalSeconds = 10;
     private double maxStepsPerSecond = EpisodeRunner.MIN_STEPS_PER_SECOND;
+    private double tickBudgetMillis = 0.0;
+    private int stepsPerTick = 200;
+    private int blocksPerTick = 2048;
+    private TransitionFormat transitionFormat = TransitionFormat.CSV;
+    private TransitionLogger.Rotation logRotation = TransitionLogger.Rotation.NONE;
+    private String samplingMode = "all";
+    private int samplingEvery = 1;
+    private long samplingAfterEpisode = 0L;
+    private int reservoirSize = 10;
+    private int reservoirWindow = 100;
     private boolean startupSelfTestsEnabled = false;
     private int graphRefreshTicks = 10;
+    private int mirrorWatchRadius = 0;
+    private boolean workerThreadTraining = false;
+    private int parallelEnvs = 1;
+    private int actorThreads = 1;
+    private int replayCapacity = 0;
+    private int replayBatchSize = 16;
+    private PolicyType policyType = PolicyType.Q_LEARNING;
+    private double dynaCpuBudget = 0.25;
+    private double qLambda = 0.8;
+    private int qLambdaMaxTraces = 64;
+    private double qLambdaTraceThreshold = 0.01;
+    private int sweepBackupsPerStep = 16;
+    private double sweepThreshold = 0.001;
+    private String linearFeatures = "tiles";
+    private int linearTilings = 4;
+    private int linearTiles = 8;
+    private double linearAlpha = 0.1;
+    private double linearGamma = 0.95;
+    private double linearEpsilonStart = 0.60;
+    private double linearEpsilonEnd = 0.03;
+    private long linearEpsilonDecayEpisodes = 600;
+    private int dqnHiddenSize = 64;
+    private int dqnHiddenLayers = 2;
+    private int dqnReplayCapacity = 50000;
+    private int dqnBatchSize = 32;
+    private double dqnLearningRate = 0.0005;
+    private int dqnTargetSync = 1000;
+    private boolean checkpointsEnabled = false;
+    private int checkpointEveryEpisodes = 200;
 
     @Override
     public void onEnable() {
@@ -46,12 +122,19 @@ public class RLEnvPlugin extends JavaPlugin {
         runStartupSelfTests();
         if (getCommand("rlenv") != null) {
             getCommand("rlenv").setExecutor(new RLEnvCommand(this));
-            getCommand("rlenv").setTabCompleter(new RLEnvTabCompleter());
+            getCommand("rlenv").setTabCompleter(new RLEnvTabCompleter(this));
         }
         if (!getDataFolder().exists()) {
             getDataFolder().mkdirs();
         }
 
+        blockEdits = new BlockEditQueue(blocksPerTick);
+        blockEdits.runTaskTimer(this, 0L, 1L);
+
+        arenaManager = new ArenaManager(getLogger());
+        applyArenaSettings();
+        arenaManager.runTaskTimer(this, 0L, 1L);
+
         progressionManager = new ProgressionManager(this);
         getLogger().info("RLEnvPlugin enabled");
     }
@@ -60,19 +143,56 @@ public class RLEnvPlugin extends JavaPlugin {
     public void onDisable() {
         if (progressionManager != null && progressionManager.isRunning()) {
             progressionManager.stop();
-        } else {
-            stopEnvironment();
+        }
+        // Cancelled runs don't save, so the checkpoints keep their last complete state
+        pretrainers.values().forEach(OfflinePretrainer::cancel);
+        if (arenaManager != null) {
+            arenaManager.removeAll();
+            arenaManager.cancel();
+        }
+        if (blockEdits != null) {
+            // No more ticks will run, so apply the queued restores now
+            blockEdits.cancel();
+            blockEdits.flush();
         }
         getLogger().info("RLEnvPlugin disabled");
     }
 
     public boolean isEnvironmentRunning() {
-        return episodeRunner != null;
+        return !arenaManager.isEmpty();
     }
 
-    public void startEnvironment(Player player) {
-        if (isEnvironmentRunning()) {
-            return;
+    public boolean isArenaRunning(String name) {
+        return arenaManager.get(name) != null;
+    }
+
+    public Collection<Arena> getArenas() {
+        return arenaManager.arenas();
+    }
+
+    /**
+     * The named arena, or for a null name the only running arena (or the default one when
+     * several are running). Null if there is no such arena.
+     */
+    public Arena resolveArena(String name) {
+        if (name != null) {
+            return arenaManager.get(name);
+        }
+        if (arenaManager.size() == 1) {
+            return arenaManager.arenas().iterator().next();
+        }
+        return arenaManager.get(DEFAULT_ARENA);
+    }
+
+    /**
+     * Starts a gold-collector arena centered on the player, training the given policy type.
+     * Named arenas log and checkpoint into their own folder under arenas/.
+     *
+     * @return false if the name is taken or the arena would overlap a running one
+     */
+    public boolean startArena(Player player, String name, PolicyType type, int weight) {
+        if (isArenaRunning(name) || isPretraining(name)) {
+            return false;
         }
 
         World world = player.getWorld();
@@ -96,80 +216,140 @@ public class RLEnvPlugin extends JavaPlugin {
                 y,
                 maxStepsPerEpisode
         );
+        for (Arena other : arenaManager.arenas()) {
+            if (other.overlaps(arenaConfig)) {
+                return false;
+            }
+        }
 
-        environment = new GoldCollectorEnvironment(arenaConfig);
+        GoldCollectorEnvironment goldEnv = new GoldCollectorEnvironment(arenaConfig, blockEdits);
+        goldEnv.setWatchRadius(mirrorWatchRadius);
 
-        File dataFolder = getDataFolder();
-        transitionLogger = new TransitionLogger(dataFolder);
+        File folder = arenaFolder(name);
+        TimingReporter timingReporter = createTimingReporter(folder);
+        TransitionLogger transitionLogger = createTransitionLogger(folder, timingReporter);
 
-        Policy policy = new QLearningPolicy();
+        Policy policy = createPolicy(type, folder, "gold-collector");
         AgentVisualizer visualizer = new AgentVisualizer(this, arenaConfig);
 
-        graphVisualizer = createGraphVisualizer(player, arenaConfig);
+        ProgressGraphVisualizer graphVisualizer = createGraphVisualizer(player, arenaConfig);
 
-        episodeRunner = new EpisodeRunner(
-                environment,
+        EpisodeRunner episodeRunner = new EpisodeRunner(
+                goldEnv,
                 transitionLogger,
                 policy,
                 visualizer,
                 graphVisualizer,
-                createTimingReporter(),
-                maxStepsPerSecond
+                timingReporter,
+                maxStepsPerSecond,
+                getLogger()
         );
-        episodeRunner.runTaskTimer(this, 0L, 1L);
+        episodeRunner.setCheckpointInterval(checkpointEveryEpisodes);
+        if (workerThreadTraining) {
+            episodeRunner.startWorker(parallelEnvs, createHogwildActors(policy, type));
+        }
+        arenaManager.add(new Arena(name, goldEnv, arenaConfig, episodeRunner, graphVisualizer, type, weight));
 
-        getLogger().info("RL environment started at arena centered on " + player.getName());
+        getLogger().info("RL arena '" + name + "' (" + type.name().toLowerCase(Locale.ROOT)
+                + ") started, centered on " + player.getName());
+        return true;
     }
 
-    public void stopEnvironment() {
-        if (episodeRunner != null) {
-            episodeRunner.shutdown();
-            episodeRunner = null;
-        }
+    /** True while the named arena's checkpoint is being pretrained. */
+    public boolean isPretraining(String name) {
+        return pretrainers.containsKey(name);
+    }
 
-        if (transitionLogger != null) {
-            transitionLogger.close();
-            transitionLogger = null;
+    /**
+     * Pretrains the named arena's checkpoint on a worker thread: resumes it if it exists, runs the
+     * given number of offline Q-learning epochs over the transition logs in the arena's folder and
+     * saves it, so the arena's next start picks up from there. The arena must not be running.
+     *
+     * @return the run's result, or null if the arena has no logs
+     */
+    public CompletableFuture<OfflinePretrainer.Result> pretrainArena(String name, int epochs) throws IOException {
+        File folder = arenaFolder(name);
+        List<Path> logs = TransitionScanner.logFiles(folder.toPath());
+        if (logs.isEmpty()) {
+            return null;
         }
 
-        if (graphVisualizer != null) {
-            graphVisualizer.cancel();
-            graphVisualizer = null;
-        }
+        QLearningPolicy policy = new QLearningPolicy();
+        attachCheckpoint(policy, folder, "gold-collector");
+        OfflinePretrainer pretrainer = new OfflinePretrainer(policy, logs, epochs, GoldCollectorSimulation.OBSERVATION_SIZE);
+        pretrainers.put(name, pretrainer);
+        return pretrainer.start()
+                .thenApply(result -> {
+                    if (!result.cancelled()) {
+                        try {
+                            policy.saveCheckpoint();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                    return result;
+                })
+                .whenComplete((result, error) -> pretrainers.remove(name, pretrainer));
+    }
 
-        if (environment instanceof GoldCollectorEnvironment env) {
-            env.getTerrainSnapshot().restore(env.getConfig().world());
+    /** Names of the arenas that could be pretrained now: not running or pretraining, with logs. */
+    public List<String> pretrainableArenas() {
+        List<String> names = new ArrayList<>();
+        names.add(DEFAULT_ARENA);
+        File[] folders = new File(getDataFolder(), "arenas").listFiles(File::isDirectory);
+        if (folders != null) {
+            for (File folder : folders) {
+                names.add(folder.getName());
+            }
         }
-        if (environment instanceof ProgressionGoldEnvironment env) {
-            env.cleanupGoal();
+        names.remove(PROGRESSION_ARENA);
+        names.removeIf(name -> isArenaRunning(name) || isPretraining(name) || !hasLogs(name));
+        return names;
+    }
+
+    private boolean hasLogs(String name) {
+        try {
+            return !TransitionScanner.logFiles(arenaFolder(name).toPath()).isEmpty();
+        } catch (IOException e) {
+            return false;
         }
+    }
+
+    public boolean areCheckpointsEnabled() {
+        return checkpointsEnabled;
+    }
 
-        environment = null;
+    /** Stops the named arena and restores its terrain; false if it isn't running. */
+    public boolean stopArena(String name) {
+        return arenaManager.remove(name);
     }
 
-    public double setEnvironmentSpeed(double stepsPerSecond) {
-        if (episodeRunner == null) return -1.0;
-        return episodeRunner.setStepsPerSecond(stepsPerSecond);
+    public double setEnvironmentSpeed(String arenaName, double stepsPerSecond) {
+        Arena arena = resolveArena(arenaName);
+        if (arena == null) return -1.0;
+        return arena.runner().setStepsPerSecond(stepsPerSecond);
     }
 
-    public EpisodeStats getEpisodeStats() {
-        if (episodeRunner == null) {
+    public EpisodeStats getEpisodeStats(String arenaName) {
+        Arena arena = resolveArena(arenaName);
+        if (arena == null) {
             return null;
         }
-        return episodeRunner.snapshotStats();
+        return arena.runner().snapshotStats();
     }
 
-    public void showArena(Player player) {
-        if (!(environment instanceof GoldCollectorEnvironment env)) {
+    public void showArena(Player player, String arenaName) {
+        Arena arena = resolveArena(arenaName);
+        if (arena == null || !(arena.environment() instanceof GoldCollectorEnvironment)) {
             player.sendMessage("No GoldCollector environment is active.");
             return;
         }
-        ArenaConfig config = env.getConfig();
-        ArenaVisualizer.showOutline(player, config);
+        ArenaVisualizer.showOutline(player, arena.config());
         player.sendMessage("Showing arena outline.");
     }
 
-    public boolean toggleGraphFor(Player viewer) {
+    public boolean toggleGraphFor(Player viewer, String arenaName) {
+        ProgressGraphVisualizer graphVisualizer = resolveGraph(arenaName);
         if (graphVisualizer == null) {
             return false;
         }
@@ -178,17 +358,24 @@ public class RLEnvPlugin extends JavaPlugin {
         return newState;
     }
 
-    public boolean setGraphMode(GraphMode mode) {
+    public boolean setGraphMode(GraphMode mode, String arenaName) {
+        ProgressGraphVisualizer graphVisualizer = resolveGraph(arenaName);
         if (graphVisualizer == null) return false;
         graphVisualizer.setMode(mode);
         return true;
     }
 
-    public GraphMode getGraphMode() {
+    public GraphMode getGraphMode(String arenaName) {
+        ProgressGraphVisualizer graphVisualizer = resolveGraph(arenaName);
         if (graphVisualizer == null) return null;
         return graphVisualizer.getMode();
     }
 
+    private ProgressGraphVisualizer resolveGraph(String arenaName) {
+        Arena arena = resolveArena(arenaName);
+        return arena == null ? null : arena.graph();
+    }
+
     public ArenaConfig createArenaConfigNearPlayer(Player player) {
         Location loc = player.getLocation();
         World world = loc.getWorld();
@@ -217,28 +404,35 @@ public class RLEnvPlugin extends JavaPlugin {
     }
 
     public void startEnvironmentWithCustomEnv(Player player, RLEnvironment env, Policy policy) {
-        // Stop any existing environment cleanly
-        stopEnvironment();
-
-        // Use existing logger/policy/visualizer creation
-        this.environment = env;
+        // Replace the previous progression level, leaving other arenas running
+        stopArena(PROGRESSION_ARENA);
 
-        this.transitionLogger = new TransitionLogger(getDataFolder());
+        // Its own folder, since the default arena logs into the data folder and may run alongside
+        File folder = arenaFolder(PROGRESSION_ARENA);
+        TimingReporter timingReporter = createTimingReporter(folder);
+        TransitionLogger transitionLogger = createTransitionLogger(folder, timingReporter);
 
         ArenaConfig arenaConfig = ((ProgressionGoldEnvironment) env).getConfig();
         AgentVisualizer visualizer = new AgentVisualizer(this, arenaConfig);
-        graphVisualizer = createGraphVisualizer(player, arenaConfig);
+        ProgressGraphVisualizer graphVisualizer = createGraphVisualizer(player, arenaConfig);
 
-        this.episodeRunner = new EpisodeRunner(
-                environment,
+        EpisodeRunner episodeRunner = new EpisodeRunner(
+                env,
                 transitionLogger,
                 policy,
                 visualizer,
                 graphVisualizer,
-                createTimingReporter(),
-                maxStepsPerSecond
+                timingReporter,
+                maxStepsPerSecond,
+                getLogger()
         );
-        this.episodeRunner.runTaskTimer(this, 0L, 1L);
+        episodeRunner.setCheckpointInterval(checkpointEveryEpisodes);
+        arenaManager.add(new Arena(PROGRESSION_ARENA, env, arenaConfig, episodeRunner, graphVisualizer, policyType, 1));
+    }
+
+    /** Shared queue for block changes, applied a budgeted number per tick. */
+    public BlockEditQueue getBlockEdits() {
+        return blockEdits;
     }
 
     public ProgressionManager getProgressionManager() {
@@ -255,18 +449,184 @@ public class RLEnvPlugin extends JavaPlugin {
         if (maxStepsPerSecond < EpisodeRunner.MIN_STEPS_PER_SECOND) {
             maxStepsPerSecond = EpisodeRunner.MIN_STEPS_PER_SECOND;
         }
+        tickBudgetMillis = Math.max(0.0, Math.min(TickBudget.TICK_NANOS / 1_000_000.0,
+                getConfig().getDouble("speed.tick-budget-ms", 0.0)));
+        stepsPerTick = Math.max(1, getConfig().getInt("speed.steps-per-tick", 200));
+        blocksPerTick = Math.max(1, getConfig().getInt("world.blocks-per-tick", 2048));
+        String formatName = getConfig().getString("logging.format", "csv");
+        transitionFormat = TransitionFormat.fromConfig(formatName);
+        if (transitionFormat == null) {
+            getLogger().warning("Unknown logging.format '" + formatName + "', using csv");
+            transitionFormat = TransitionFormat.CSV;
+        }
+        logRotation = new TransitionLogger.Rotation(
+                Math.max(0L, getConfig().getLong("logging.rotation.max-segment-mb", 0L)) * 1_048_576L,
+                Math.max(0, getConfig().getInt("logging.rotation.max-segment-episodes", 0)),
+                Math.max(0L, getConfig().getLong("logging.rotation.retain-mb", 0L)) * 1_048_576L);
+        samplingMode = getConfig().getString("logging.sampling.mode", "all");
+        samplingEvery = Math.max(1, getConfig().getInt("logging.sampling.every", 1));
+        samplingAfterEpisode = Math.max(0L, getConfig().getLong("logging.sampling.after-episode", 0L));
+        reservoirSize = Math.max(0, getConfig().getInt("logging.sampling.reservoir-size", 10));
+        reservoirWindow = Math.max(1, getConfig().getInt("logging.sampling.reservoir-window", 100));
+        if (createEpisodeSampling() == null) {
+            getLogger().warning("Unknown logging.sampling.mode '" + samplingMode + "', logging every episode");
+            samplingMode = "all";
+        }
         startupSelfTestsEnabled = getConfig().getBoolean("self-tests.enabled", false);
         graphRefreshTicks = getConfig().getInt("graph.refresh-ticks", 10);
         if (graphRefreshTicks < 1) {
             graphRefreshTicks = 1;
         }
+        mirrorWatchRadius = getConfig().getInt("mirror.watch-radius", 0);
+        workerThreadTraining = getConfig().getBoolean("training.worker-thread", false);
+        parallelEnvs = Math.max(1, getConfig().getInt("training.parallel-envs", 1));
+        actorThreads = Math.max(1, getConfig().getInt("training.actor-threads", 1));
+        replayCapacity = Math.max(0, getConfig().getInt("training.replay.capacity", 0));
+        replayBatchSize = Math.max(0, getConfig().getInt("training.replay.batch-size", 16));
+        String policyName = getConfig().getString("training.policy", "q-learning");
+        policyType = PolicyType.fromConfig(policyName);
+        if (policyType == null) {
+            getLogger().warning("Unknown training.policy '" + policyName + "', using q-learning");
+            policyType = PolicyType.Q_LEARNING;
+        }
+        dynaCpuBudget = getConfig().getDouble("training.dyna.cpu-budget", 0.25);
+        qLambda = getConfig().getDouble("training.q-lambda.lambda", 0.8);
+        qLambdaMaxTraces = getConfig().getInt("training.q-lambda.max-traces", 64);
+        qLambdaTraceThreshold = getConfig().getDouble("training.q-lambda.trace-threshold", 0.01);
+        sweepBackupsPerStep = getConfig().getInt("training.prioritized-sweeping.backups-per-step", 16);
+        sweepThreshold = getConfig().getDouble("training.prioritized-sweeping.threshold", 0.001);
+        linearFeatures = getConfig().getString("training.linear.features", "tiles");
+        if (!linearFeatures.equals("raw") && !linearFeatures.equals("polynomial") && !linearFeatures.equals("tiles")) {
+            getLogger().warning("Unknown training.linear.features '" + linearFeatures + "', using tiles");
+            linearFeatures = "tiles";
+        }
+        linearTilings = Math.max(1, getConfig().getInt("training.linear.tilings", 4));
+        linearTiles = Math.max(1, getConfig().getInt("training.linear.tiles", 8));
+        linearAlpha = getConfig().getDouble("training.linear.alpha", 0.1);
+        linearGamma = getConfig().getDouble("training.linear.gamma", 0.95);
+        linearEpsilonStart = getConfig().getDouble("training.linear.epsilon-start", 0.60);
+        linearEpsilonEnd = getConfig().getDouble("training.linear.epsilon-end", 0.03);
+        linearEpsilonDecayEpisodes = Math.max(1L, getConfig().getLong("training.linear.epsilon-decay-episodes", 600L));
+        dqnHiddenSize = Math.max(1, getConfig().getInt("training.dqn.hidden-size", 64));
+        dqnHiddenLayers = Math.max(1, getConfig().getInt("training.dqn.hidden-layers", 2));
+        dqnReplayCapacity = Math.max(1, getConfig().getInt("training.dqn.replay-capacity", 50000));
+        dqnBatchSize = Math.max(1, getConfig().getInt("training.dqn.batch-size", 32));
+        dqnLearningRate = getConfig().getDouble("training.dqn.learning-rate", 0.0005);
+        dqnTargetSync = Math.max(1, getConfig().getInt("training.dqn.target-sync", 1000));
+        checkpointsEnabled = getConfig().getBoolean("checkpoint.enabled", false);
+        checkpointEveryEpisodes = Math.max(0, getConfig().getInt("checkpoint.every-episodes", 200));
+    }
+
+    /**
+     * Policy for a new run, set up from the training section of the config. With checkpoints on,
+     * it resumes from and saves to the named checkpoint in the data folder (null = no checkpoint).
+     */
+    public Policy createPolicy(String checkpointName) {
+        return createPolicy(policyType, getDataFolder(), checkpointName);
+    }
+
+    private Policy createPolicy(PolicyType type, File checkpointFolder, String checkpointName) {
+        Policy policy = switch (type) {
+            case DYNA_Q -> new DynaQPolicy(dynaCpuBudget);
+            case Q_LAMBDA -> new WatkinsQLambdaPolicy(qLambda, qLambdaMaxTraces, qLambdaTraceThreshold);
+            case PRIORITIZED_SWEEPING -> new PrioritizedSweepingPolicy(sweepBackupsPerStep, sweepThreshold);
+            case LINEAR -> new LinearQPolicy(createFeatureMap(), linearAlpha, linearGamma,
+                    linearEpsilonStart, linearEpsilonEnd, linearEpsilonDecayEpisodes);
+            case DQN -> new DqnPolicy(dqnHiddenSize, dqnHiddenLayers, dqnReplayCapacity, dqnBatchSize,
+                    dqnLearningRate, dqnTargetSync);
+            case Q_LEARNING -> new QLearningPolicy();
+        };
+        // Replay and checkpoints work on the tabular learners only
+        if (policy instanceof QLearningPolicy learner) {
+            if (replayCapacity > 0 && replayBatchSize > 0) {
+                learner.enableReplay(new ReplayBuffer(replayCapacity), replayBatchSize);
+            }
+            if (checkpointsEnabled && checkpointName != null) {
+                attachCheckpoint(learner, checkpointFolder, checkpointName);
+            }
+        }
+        return policy;
+    }
+
+    private FeatureMap createFeatureMap() {
+        return switch (linearFeatures) {
+            case "raw" -> new RawFeatures();
+            case "polynomial" -> new PolynomialFeatures();
+            default -> new TileFeatures(linearTilings, linearTiles);
+        };
+    }
+
+    /**
+     * Extra actor policies for worker mode. With more than one actor thread, the main policy moves
+     * onto a shared lock-free table (keeping anything it resumed) and every actor learns into it.
+     */
+    private List<Policy> createHogwildActors(Policy main, PolicyType type) {
+        if (actorThreads <= 1 || !(main instanceof QLearningPolicy mainLearner)) {
+            return List.of();
+        }
+        QTable resumed = mainLearner.getTable();
+        ConcurrentQTable shared = resumed != null
+                ? ConcurrentQTable.copyOf(resumed, mainLearner.getOptimisticInit())
+                : new ConcurrentQTable(Action.values().length, mainLearner.getOptimisticInit());
+        mainLearner.shareTable(shared);
+
+        List<Policy> actors = new ArrayList<>();
+        for (int i = 1; i < actorThreads; i++) {
+            QLearningPolicy actor = (QLearningPolicy) createPolicy(type, null, null);
+            actor.shareTable(shared);
+            actors.add(actor);
+        }
+        return actors;
     }
 
-    private TimingReporter createTimingReporter() {
+    private void attachCheckpoint(QLearningPolicy policy, File folder, String checkpointName) {
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+        QTableCheckpoint checkpoint = new QTableCheckpoint(new File(folder, checkpointName + ".qtable").toPath());
+        try {
+            if (policy.attachCheckpoint(checkpoint)) {
+                getLogger().info("Resumed " + policy.getStateCount() + " learned states from " + checkpoint.file().getFileName());
+            }
+        } catch (IOException e) {
+            getLogger().warning("Could not load checkpoint " + checkpoint.file() + ", starting fresh: " + e.getMessage());
+        }
+    }
+
+    private TransitionLogger createTransitionLogger(File folder, TimingReporter timingReporter) {
+        TransitionLogger transitionLogger = new TransitionLogger(folder, transitionFormat, logRotation, timingReporter, getLogger());
+        // Each logger counts its own episodes, so it gets a sampling of its own
+        transitionLogger.setSampling(createEpisodeSampling());
+        return transitionLogger;
+    }
+
+    private EpisodeSampling createEpisodeSampling() {
+        return EpisodeSampling.fromConfig(samplingMode, samplingEvery, samplingAfterEpisode,
+                reservoirSize, reservoirWindow);
+    }
+
+    private TimingReporter createTimingReporter(File folder) {
         if (!timingReportsEnabled) {
             return null;
         }
-        return new TimingReporter(getLogger(), getDataFolder(), timingReportIntervalSeconds);
+        return new TimingReporter(getLogger(), folder, timingReportIntervalSeconds);
+    }
+
+    /**
+     * Where an arena's transitions, timing report and checkpoint go. The progression levels keep
+     * their checkpoint in the data folder (see {@link #createPolicy(String)}).
+     */
+    private File arenaFolder(String name) {
+        if (name.equals(DEFAULT_ARENA)) {
+            return getDataFolder();
+        }
+        return new File(new File(getDataFolder(), "arenas"), name);
+    }
+
+    private void applyArenaSettings() {
+        arenaManager.setStepsPerTick(stepsPerTick);
+        arenaManager.setTickBudget(tickBudgetMillis);
+        blockEdits.setBlocksPerTick(blocksPerTick);
     }
 
     private ProgressGraphVisualizer createGraphVisualizer(Player player, ArenaConfig arenaConfig) {
@@ -298,12 +658,21 @@ public class RLEnvPlugin extends JavaPlugin {
         return maxStepsPerSecond;
     }
 
+    /** Policy type from the config, used by arenas started without one. */
+    public PolicyType getPolicyType() {
+        return policyType;
+    }
+
     public void reloadSettings() {
         reloadConfig();
         loadTimingSettings();
-        if (graphVisualizer != null) {
-            graphVisualizer.cancel();
-            graphVisualizer.runTaskTimer(this, 0L, graphRefreshTicks);
+        applyArenaSettings();
+        for (Arena arena : arenaManager.arenas()) {
+            ProgressGraphVisualizer graphVisualizer = arena.graph();
+            if (graphVisualizer != null) {
+                graphVisualizer.cancel();
+                graphVisualizer.runTaskTimer(this, 0L, graphRefreshTicks);
+            }
         }
     }
 }
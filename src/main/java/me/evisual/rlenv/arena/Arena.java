@@ -0,0 +1,94 @@
+package me.evisual.rlenv.arena;
+
+import me.evisual.rlenv.control.EpisodeRunner;
+import me.evisual.rlenv.control.PolicyType;
+import me.evisual.rlenv.env.RLEnvironment;
+import me.evisual.rlenv.env.goldcollector.ArenaConfig;
+import me.evisual.rlenv.env.goldcollector.GoldCollectorEnvironment;
+import me.evisual.rlenv.env.goldcollector.ProgressionGoldEnvironment;
+import me.evisual.rlenv.visual.ProgressGraphVisualizer;
+
+/**
+ * One running experiment: an environment, the runner training a policy on it, and its graph.
+ * The runner owns the logger and agent visualizer and closes them on shutdown.
+ */
+public final class Arena
+{
+    private final String name;
+    private final RLEnvironment environment;
+    private final ArenaConfig config;
+    private final EpisodeRunner runner;
+    private final ProgressGraphVisualizer graph;
+    private final PolicyType policyType;
+    private volatile int weight;
+
+    public Arena(String name,
+                 RLEnvironment environment,
+                 ArenaConfig config,
+                 EpisodeRunner runner,
+                 ProgressGraphVisualizer graph,
+                 PolicyType policyType,
+                 int weight) {
+        this.name = name;
+        this.environment = environment;
+        this.config = config;
+        this.runner = runner;
+        this.graph = graph;
+        this.policyType = policyType;
+        this.weight = Math.max(1, weight);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public RLEnvironment environment() {
+        return environment;
+    }
+
+    public ArenaConfig config() {
+        return config;
+    }
+
+    public EpisodeRunner runner() {
+        return runner;
+    }
+
+    public ProgressGraphVisualizer graph() {
+        return graph;
+    }
+
+    public PolicyType policyType() {
+        return policyType;
+    }
+
+    public int weight() {
+        return weight;
+    }
+
+    /** Share of the global step budget relative to other arenas; at least 1. */
+    public void setWeight(int weight) {
+        this.weight = Math.max(1, weight);
+    }
+
+    /** True if the two arenas' floor areas touch or overlap in the same world. */
+    public boolean overlaps(ArenaConfig other) {
+        return config.world().equals(other.world())
+                && config.minX() <= other.maxX() && other.minX() <= config.maxX()
+                && config.minZ() <= other.maxZ() && other.minZ() <= config.maxZ();
+    }
+
+    /** Stops training, then queues the terrain restore or removes the goal block. */
+    void close() {
+        runner.shutdown();
+        if (graph != null) {
+            graph.cancel();
+        }
+        if (environment instanceof GoldCollectorEnvironment env) {
+            env.restoreTerrain();
+        }
+        if (environment instanceof ProgressionGoldEnvironment env) {
+            env.cleanupGoal();
+        }
+    }
+}
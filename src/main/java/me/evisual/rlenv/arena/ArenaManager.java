@@ -0,0 +1,198 @@
+package me.evisual.rlenv.arena;
+
+import me.evisual.rlenv.control.TickBudget;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hosts every running arena and drives them all from one task that runs each tick.
+ * <p>
+ * Each tick has a global step budget: a fixed step count, or whatever fits in a time budget
+ * (see {@link TickBudget}). It is split between the arenas that want to step by weighted
+ * round-robin: each round hands every arena up to its weight in steps, until the budget or
+ * all demand runs out. The arena each round starts from rotates every tick, so equal weights
+ * get equal shares even when the budget is tight.
+ * <p>
+ * An arena whose training thread failed is logged and stopped on the next tick, instead of
+ * staying listed as running without training.
+ * <p>
+ * Main thread only.
+ */
+public final class ArenaManager extends BukkitRunnable
+{
+    private final Logger logger;
+    private final Map<String, Arena> arenas = new LinkedHashMap<>();
+    private int stepsPerTick = 200;
+    private TickBudget tickBudget; // null = fixed stepsPerTick, paced by each arena's speed
+    private int cursor = 0;
+
+    // Per-tick scratch, grown with the arena count
+    private Arena[] order = new Arena[0];
+    private int[] demand = new int[0];
+    private int[] weights = new int[0];
+    private int[] grants = new int[0];
+
+    public ArenaManager(Logger logger) {
+        this.logger = logger;
+    }
+
+    @Override
+    public void run() {
+        stopFailedArenas();
+        int n = arenas.size();
+        if (n == 0) return;
+        ensureScratch(n);
+
+        long start = System.nanoTime();
+        boolean paced = tickBudget == null;
+        int budget;
+        if (paced) {
+            budget = stepsPerTick;
+        } else {
+            tickBudget.beginTick(start);
+            budget = tickBudget.stepsThatFit();
+        }
+
+        int i = 0;
+        for (Arena arena : arenas.values()) {
+            order[i] = arena;
+            demand[i] = arena.runner().demand(paced);
+            weights[i] = arena.weight();
+            i++;
+        }
+        cursor = cursor % n;
+        allocate(budget, n, demand, weights, cursor, grants);
+
+        int stepsRun = 0;
+        for (int k = 0; k < n; k++) {
+            int a = (cursor + k) % n;
+            stepsRun += order[a].runner().tick(grants[a], paced);
+            order[a] = null;
+        }
+        cursor++;
+
+        if (!paced) {
+            tickBudget.recordSteps(stepsRun, System.nanoTime() - start);
+        }
+    }
+
+    private void stopFailedArenas() {
+        List<Arena> failed = null;
+        for (Arena arena : arenas.values()) {
+            if (arena.runner().getFailure() != null) {
+                if (failed == null) failed = new ArrayList<>();
+                failed.add(arena);
+            }
+        }
+        if (failed == null) return;
+
+        for (Arena arena : failed) {
+            logger.log(Level.SEVERE, "Training in arena '" + arena.name() + "' failed; stopping the arena",
+                    arena.runner().getFailure());
+            remove(arena.name());
+        }
+    }
+
+    /**
+     * Weighted round-robin split of budget steps over the first n arenas. Arena i is offered up to
+     * weights[i] steps per round, starting each round at index start, and never more than
+     * demand[i] in total. Writes each arena's share into grants.
+     */
+    static void allocate(int budget, int n, int[] demand, int[] weights, int start, int[] grants) {
+        for (int i = 0; i < n; i++) {
+            grants[i] = 0;
+        }
+        int remaining = budget;
+        boolean progress = true;
+        while (remaining > 0 && progress) {
+            progress = false;
+            for (int k = 0; k < n && remaining > 0; k++) {
+                int i = (start + k) % n;
+                int wanted = demand[i] - grants[i];
+                if (wanted <= 0) continue;
+                int share = Math.min(Math.min(wanted, weights[i]), remaining);
+                grants[i] += share;
+                remaining -= share;
+                progress = true;
+            }
+        }
+    }
+
+    public Arena get(String name) {
+        return arenas.get(name);
+    }
+
+    public Collection<Arena> arenas() {
+        return Collections.unmodifiableCollection(arenas.values());
+    }
+
+    public boolean isEmpty() {
+        return arenas.isEmpty();
+    }
+
+    public int size() {
+        return arenas.size();
+    }
+
+    /** Adds an arena; one with the same name must have been removed first. */
+    public void add(Arena arena) {
+        if (arenas.containsKey(arena.name())) {
+            throw new IllegalStateException("Arena already running: " + arena.name());
+        }
+        arenas.put(arena.name(), arena);
+    }
+
+    /** Stops and removes the named arena; false if there is none. */
+    public boolean remove(String name) {
+        Arena arena = arenas.remove(name);
+        if (arena == null) return false;
+        arena.close();
+        return true;
+    }
+
+    public void removeAll() {
+        List<String> names = new ArrayList<>(arenas.keySet());
+        for (String name : names) {
+            remove(name);
+        }
+    }
+
+    /** Global step budget per tick while no time budget is set. */
+    public void setStepsPerTick(int stepsPerTick) {
+        this.stepsPerTick = Math.max(1, stepsPerTick);
+    }
+
+    /**
+     * Sizes each tick's step budget from a time budget instead (0 or less = fixed steps per tick,
+     * paced by each arena's speed setting). Worker-thread arenas don't step on the tick and
+     * aren't affected either way.
+     */
+    public void setTickBudget(double millis) {
+        long nanos = (long) (millis * 1_000_000L);
+        if (nanos <= 0) {
+            tickBudget = null;
+        } else if (tickBudget == null || tickBudget.getBudgetNanos() != nanos) {
+            tickBudget = new TickBudget(nanos);
+        }
+    }
+
+    public TickBudget getTickBudget() {
+        return tickBudget;
+    }
+
+    private void ensureScratch(int n) {
+        if (order.length >= n) return;
+        order = new Arena[n];
+        demand = new int[n];
+        weights = new int[n];
+        grants = new int[n];
+    }
+}
@@ -1,16 +1,30 @@
 package me.evisual.rlenv.command;
 
 import me.evisual.rlenv.RLEnvPlugin;
+import me.evisual.rlenv.arena.Arena;
 import me.evisual.rlenv.control.EpisodeStats;
+import me.evisual.rlenv.control.OfflinePretrainer;
+import me.evisual.rlenv.control.PolicyType;
 import me.evisual.rlenv.visual.GraphMode;
+import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
+import java.io.IOException;
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.regex.Pattern;
+
 public class RLEnvCommand implements CommandExecutor {
 
+    private static final Pattern ARENA_NAME = Pattern.compile("[a-z0-9_-]{1,32}");
+    private static final int DEFAULT_PRETRAIN_EPOCHS = 3;
+
     private final RLEnvPlugin plugin;
 
     public RLEnvCommand(RLEnvPlugin plugin) {
@@ -26,58 +40,78 @@ public class RLEnvCommand implements CommandExecutor {
         }
 
         switch (args[0].toLowerCase()) {
-            case "start" -> { handleStart(sender); return true; }
-            case "stop" -> { handleStop(sender); return true; }
-            case "status" -> { handleStatus(sender); return true; }
-            case "showarena" -> { handleShowArena(sender); return true; }
+            case "start" -> { handleStart(sender, args); return true; }
+            case "stop" -> { handleStop(sender, args); return true; }
+            case "status" -> { handleStatus(sender, args); return true; }
+            case "arenas" -> { handleArenas(sender); return true; }
+            case "weight" -> { handleWeight(sender, args); return true; }
+            case "showarena" -> { handleShowArena(sender, args); return true; }
             case "speed" -> { handleSpeed(sender, args); return true; }
             case "graph" -> { handleGraph(sender, args); return true; }
             case "progression" -> { handleProgression(sender, args); return true; }
+            case "pretrain" -> { handlePretrain(sender, args); return true; }
             case "reload" -> { handleReload(sender); return true; }
             default -> { sendUsage(sender); return true; }
         }
     }
 
-    private void handleStart(CommandSender sender) {
+    private void handleStart(CommandSender sender, String[] args) {
         if (!(sender instanceof Player player)) {
             sender.sendMessage(ChatColor.RED + "Only players can start the RL environment.");
             return;
         }
-        if (plugin.isEnvironmentRunning()) {
-            sender.sendMessage(ChatColor.RED + "Environment is already running.");
+        String name = args.length >= 2 ? args[1].toLowerCase(Locale.ROOT) : RLEnvPlugin.DEFAULT_ARENA;
+        if (!ARENA_NAME.matcher(name).matches() || name.equals(RLEnvPlugin.PROGRESSION_ARENA)) {
+            sender.sendMessage(ChatColor.RED + "Arena names are 1-32 letters, digits, '-' or '_' (and not 'progression').");
             return;
         }
-        plugin.startEnvironment(player);
-        sender.sendMessage(ChatColor.GREEN + "RL environment started.");
-    }
-
-    private void handleStop(CommandSender sender) {
-        if (!plugin.isEnvironmentRunning()) {
-            sender.sendMessage(ChatColor.RED + "Environment is not running.");
+        PolicyType type = plugin.getPolicyType();
+        if (args.length >= 3) {
+            type = PolicyType.fromConfig(args[2]);
+            if (type == null) {
+                sender.sendMessage(ChatColor.RED + "Unknown policy '" + args[2] + "'.");
+                return;
+            }
+        }
+        if (plugin.isArenaRunning(name)) {
+            sender.sendMessage(ChatColor.RED + "Arena '" + name + "' is already running.");
             return;
         }
-        if (plugin.getProgressionManager().isRunning()) {
-            plugin.getProgressionManager().stop();
-            sender.sendMessage(ChatColor.YELLOW + "Progression stopped and room restored.");
+        if (plugin.isPretraining(name)) {
+            sender.sendMessage(ChatColor.RED + "Arena '" + name + "' is still pretraining.");
             return;
         }
-        plugin.stopEnvironment();
-        sender.sendMessage(ChatColor.YELLOW + "RL environment stopped.");
+        if (!plugin.startArena(player, name, type, 1)) {
+            sender.sendMessage(ChatColor.RED + "Arena would overlap a running arena; move away and try again.");
+            return;
+        }
+        sender.sendMessage(ChatColor.GREEN + "RL arena '" + name + "' started.");
     }
 
-    private void handleStatus(CommandSender sender) {
-        if (!plugin.isEnvironmentRunning()) {
-            sender.sendMessage(ChatColor.RED + "Environment is not running.");
+    private void handleStop(CommandSender sender, String[] args) {
+        Arena arena = resolveArena(sender, args.length >= 2 ? args[1] : null);
+        if (arena == null) return;
+        if (arena.name().equals(RLEnvPlugin.PROGRESSION_ARENA)) {
+            plugin.getProgressionManager().stop();
+            sender.sendMessage(ChatColor.YELLOW + "Progression stopped and room restored.");
             return;
         }
+        plugin.stopArena(arena.name());
+        sender.sendMessage(ChatColor.YELLOW + "RL arena '" + arena.name() + "' stopped.");
+    }
+
+    private void handleStatus(CommandSender sender, String[] args) {
+        Arena arena = resolveArena(sender, args.length >= 2 ? args[1] : null);
+        if (arena == null) return;
 
-        EpisodeStats s = plugin.getEpisodeStats();
+        EpisodeStats s = plugin.getEpisodeStats(arena.name());
         if (s == null) {
             sender.sendMessage(ChatColor.YELLOW + "No stats available yet.");
             return;
         }
 
-        sender.sendMessage(ChatColor.AQUA + "RL Environment Status");
+        sender.sendMessage(ChatColor.AQUA + "RL Environment Status" + ChatColor.GRAY + " (" + arena.name() + ", "
+                + arena.policyType().name().toLowerCase(Locale.ROOT) + ")");
         sender.sendMessage(ChatColor.GRAY + "  Episodes: " + ChatColor.WHITE + s.episodesCompleted());
         sender.sendMessage(ChatColor.GRAY + "  Speed: " + ChatColor.WHITE + String.format("%.2f steps/sec", s.stepsPerSecond()));
         sender.sendMessage(ChatColor.GRAY + "  Throughput: " + ChatColor.WHITE + String.format("%.1f episodes/min", s.episodesPerMinute()));
@@ -100,27 +134,57 @@ public class RLEnvCommand implements CommandExecutor {
         }
     }
 
-    private void handleShowArena(CommandSender sender) {
-        if (!(sender instanceof Player player)) {
-            sender.sendMessage(ChatColor.RED + "Only players can view the arena outline.");
-            return;
-        }
+    private void handleArenas(CommandSender sender) {
         if (!plugin.isEnvironmentRunning()) {
             sender.sendMessage(ChatColor.RED + "Environment is not running.");
             return;
         }
-        plugin.showArena(player);
+        sender.sendMessage(ChatColor.AQUA + "Running arenas");
+        for (Arena arena : plugin.getArenas()) {
+            EpisodeStats s = arena.runner().snapshotStats();
+            sender.sendMessage(ChatColor.GRAY + "  " + ChatColor.WHITE + arena.name()
+                    + ChatColor.GRAY + " [" + arena.policyType().name().toLowerCase(Locale.ROOT)
+                    + ", weight " + arena.weight() + "] "
+                    + ChatColor.WHITE + s.episodesCompleted() + ChatColor.GRAY + " episodes, "
+                    + ChatColor.WHITE + String.format("%.1f%%", 100.0 * s.recentSuccessRate()) + ChatColor.GRAY + " recent success");
+        }
     }
 
-    private void handleSpeed(CommandSender sender, String[] args) {
-        if (args.length < 2) {
-            sender.sendMessage(ChatColor.RED + "Usage: /rlenv speed <stepsPerSecond>");
+    private void handleWeight(CommandSender sender, String[] args) {
+        if (args.length < 3) {
+            sender.sendMessage(ChatColor.RED + "Usage: /rlenv weight <arena> <weight>");
             return;
         }
-        if (!plugin.isEnvironmentRunning()) {
-            sender.sendMessage(ChatColor.RED + "Environment is not running.");
+        Arena arena = resolveArena(sender, args[1]);
+        if (arena == null) return;
+        int weight;
+        try {
+            weight = Integer.parseInt(args[2]);
+        } catch (NumberFormatException e) {
+            sender.sendMessage(ChatColor.RED + "Weight must be a whole number of at least 1.");
+            return;
+        }
+        arena.setWeight(weight);
+        sender.sendMessage(ChatColor.GREEN + "Arena '" + arena.name() + "' weight set to " + arena.weight() + ".");
+    }
+
+    private void handleShowArena(CommandSender sender, String[] args) {
+        if (!(sender instanceof Player player)) {
+            sender.sendMessage(ChatColor.RED + "Only players can view the arena outline.");
             return;
         }
+        Arena arena = resolveArena(sender, args.length >= 2 ? args[1] : null);
+        if (arena == null) return;
+        plugin.showArena(player, arena.name());
+    }
+
+    private void handleSpeed(CommandSender sender, String[] args) {
+        if (args.length < 2) {
+            sender.sendMessage(ChatColor.RED + "Usage: /rlenv speed <stepsPerSecond> [arena]");
+            return;
+        }
+        Arena arena = resolveArena(sender, args.length >= 3 ? args[2] : null);
+        if (arena == null) return;
 
         double sps;
         try {
@@ -130,7 +194,7 @@ public class RLEnvCommand implements CommandExecutor {
             return;
         }
 
-        double applied = plugin.setEnvironmentSpeed(sps);
+        double applied = plugin.setEnvironmentSpeed(arena.name(), sps);
         if (applied < 0.0) {
             sender.sendMessage(ChatColor.RED + "Environment is not running.");
             return;
@@ -144,27 +208,23 @@ public class RLEnvCommand implements CommandExecutor {
             sender.sendMessage(ChatColor.RED + "Only players can use graph commands.");
             return;
         }
-        if (!plugin.isEnvironmentRunning()) {
-            sender.sendMessage(ChatColor.RED + "Environment is not running.");
-            return;
-        }
-
-        if (args.length == 1) {
-            boolean newState = plugin.toggleGraphFor(player);
-            sender.sendMessage(ChatColor.GREEN + "Graph display is now " + (newState ? "enabled" : "disabled") + ".");
-            return;
-        }
 
-        if (args.length == 3 && args[1].equalsIgnoreCase("mode")) {
+        if (args.length >= 2 && args[1].equalsIgnoreCase("mode")) {
+            if (args.length < 3 || args.length > 4) {
+                sender.sendMessage(ChatColor.RED + "Usage: /rlenv graph mode <rolling|condense> [arena]");
+                return;
+            }
             GraphMode mode;
             if (args[2].equalsIgnoreCase("rolling")) mode = GraphMode.ROLLING;
             else if (args[2].equalsIgnoreCase("condense")) mode = GraphMode.CONDENSE;
             else {
-                sender.sendMessage(ChatColor.RED + "Usage: /rlenv graph mode <rolling|condense>");
+                sender.sendMessage(ChatColor.RED + "Usage: /rlenv graph mode <rolling|condense> [arena]");
                 return;
             }
+            Arena arena = resolveArena(sender, args.length == 4 ? args[3] : null);
+            if (arena == null) return;
 
-            boolean ok = plugin.setGraphMode(mode);
+            boolean ok = plugin.setGraphMode(mode, arena.name());
             if (!ok) {
                 sender.sendMessage(ChatColor.RED + "Graph not available.");
                 return;
@@ -174,7 +234,18 @@ public class RLEnvCommand implements CommandExecutor {
             return;
         }
 
-        sender.sendMessage(ChatColor.RED + "Usage: /rlenv graph  OR  /rlenv graph mode <rolling|condense>");
+        if (args.length > 2) {
+            sender.sendMessage(ChatColor.RED + "Usage: /rlenv graph [arena]  OR  /rlenv graph mode <rolling|condense> [arena]");
+            return;
+        }
+        Arena arena = resolveArena(sender, args.length == 2 ? args[1] : null);
+        if (arena == null) return;
+        if (arena.graph() == null) {
+            sender.sendMessage(ChatColor.RED + "Graph not available.");
+            return;
+        }
+        boolean newState = plugin.toggleGraphFor(player, arena.name());
+        sender.sendMessage(ChatColor.GREEN + "Graph display is now " + (newState ? "enabled" : "disabled") + ".");
     }
 
     private void handleProgression(CommandSender sender, String[] args) {
@@ -205,12 +276,105 @@ public class RLEnvCommand implements CommandExecutor {
         }
     }
 
+    private void handlePretrain(CommandSender sender, String[] args) {
+        if (args.length < 2) {
+            sender.sendMessage(ChatColor.RED + "Usage: /rlenv pretrain <arena> [epochs]");
+            return;
+        }
+        String name = args[1].toLowerCase(Locale.ROOT);
+        if (!ARENA_NAME.matcher(name).matches() || name.equals(RLEnvPlugin.PROGRESSION_ARENA)) {
+            sender.sendMessage(ChatColor.RED + "Arena names are 1-32 letters, digits, '-' or '_' (and not 'progression').");
+            return;
+        }
+        int epochs = DEFAULT_PRETRAIN_EPOCHS;
+        if (args.length >= 3) {
+            try {
+                epochs = Integer.parseInt(args[2]);
+            } catch (NumberFormatException e) {
+                epochs = 0;
+            }
+            if (epochs < 1) {
+                sender.sendMessage(ChatColor.RED + "Epochs must be a whole number of at least 1.");
+                return;
+            }
+        }
+        if (plugin.isArenaRunning(name)) {
+            sender.sendMessage(ChatColor.RED + "Stop arena '" + name + "' before pretraining it.");
+            return;
+        }
+        if (plugin.isPretraining(name)) {
+            sender.sendMessage(ChatColor.RED + "Arena '" + name + "' is already pretraining.");
+            return;
+        }
+
+        CompletableFuture<OfflinePretrainer.Result> run;
+        try {
+            run = plugin.pretrainArena(name, epochs);
+        } catch (IOException e) {
+            sender.sendMessage(ChatColor.RED + "Could not list the logs of '" + name + "': " + e.getMessage());
+            return;
+        }
+        if (run == null) {
+            sender.sendMessage(ChatColor.RED + "Arena '" + name + "' has no transition logs.");
+            return;
+        }
+        sender.sendMessage(ChatColor.GREEN + "Pretraining '" + name + "' for " + epochs + " epochs in the background.");
+        if (!plugin.areCheckpointsEnabled()) {
+            sender.sendMessage(ChatColor.YELLOW + "Checkpoints are disabled, so arenas won't load the result until checkpoint.enabled is on.");
+        }
+
+        // Completes on the pretraining thread; report back on the main thread
+        run.whenComplete((result, error) -> Bukkit.getScheduler().runTask(plugin, () -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                sender.sendMessage(ChatColor.RED + "Pretraining '" + name + "' failed: " + cause.getMessage());
+            } else if (result.cancelled()) {
+                sender.sendMessage(ChatColor.YELLOW + "Pretraining '" + name + "' was cancelled; checkpoint left unchanged.");
+            } else {
+                sender.sendMessage(ChatColor.GREEN + "Pretrained '" + name + "': " + result.transitions() + " updates over "
+                        + result.epochs() + " epochs, " + result.stateCount() + " states in the checkpoint.");
+                if (result.skippedLogs() > 0) {
+                    sender.sendMessage(ChatColor.YELLOW + "Skipped " + result.skippedLogs()
+                            + " log files written for a different observation width.");
+                }
+            }
+        }));
+    }
+
     private void handleReload(CommandSender sender) {
         plugin.reloadSettings();
         sender.sendMessage(ChatColor.GREEN + "RLEnv config reloaded.");
     }
 
+    /**
+     * The arena the sender named, or the one they mean when they named none. Null after telling
+     * them why there is none, listing the running arenas when the name is missing or wrong.
+     */
+    private Arena resolveArena(CommandSender sender, String name) {
+        String key = name == null ? null : name.toLowerCase(Locale.ROOT);
+        Arena arena = plugin.resolveArena(key);
+        if (arena != null) {
+            return arena;
+        }
+        if (!plugin.isEnvironmentRunning()) {
+            sender.sendMessage(ChatColor.RED + "Environment is not running.");
+        } else if (key == null) {
+            sender.sendMessage(ChatColor.RED + "Several arenas are running; name one of: " + runningArenaNames() + ".");
+        } else {
+            sender.sendMessage(ChatColor.RED + "No arena named '" + name + "'. Running: " + runningArenaNames() + ".");
+        }
+        return null;
+    }
+
+    private String runningArenaNames() {
+        StringJoiner names = new StringJoiner(", ");
+        for (Arena arena : plugin.getArenas()) {
+            names.add(arena.name());
+        }
+        return names.toString();
+    }
+
     private void sendUsage(CommandSender sender) {
-        sender.sendMessage(ChatColor.AQUA + "Usage: /rlenv <start|stop|status|showarena|speed|graph|progression|reload>");
+        sender.sendMessage(ChatColor.AQUA + "Usage: /rlenv <start|stop|status|arenas|weight|showarena|speed|graph|progression|pretrain|reload>");
     }
 }
@@ -1,30 +1,47 @@
 package me.evisual.rlenv.command;
 
+import me.evisual.rlenv.RLEnvPlugin;
+import me.evisual.rlenv.arena.Arena;
+import me.evisual.rlenv.control.PolicyType;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.util.StringUtil;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 
 public class RLEnvTabCompleter implements TabCompleter {
 
+    private final RLEnvPlugin plugin;
+
     private static final List<String> ROOT_ARGS = List.of(
             "start",
             "stop",
             "status",
+            "arenas",
+            "weight",
             "showarena",
             "speed",
             "graph",
             "progression",
+            "pretrain",
             "reload"
     );
 
     private static final List<String> GRAPH_ARGS = List.of("mode");
     private static final List<String> GRAPH_MODES = List.of("rolling", "condense");
     private static final List<String> PROGRESSION_ARGS = List.of("start", "next", "stop");
+    private static final List<String> POLICY_NAMES = Arrays.stream(PolicyType.values())
+            .map(type -> type.name().toLowerCase(Locale.ROOT).replace('_', '-'))
+            .toList();
+
+    public RLEnvTabCompleter(RLEnvPlugin plugin) {
+        this.plugin = plugin;
+    }
 
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
@@ -39,19 +56,45 @@ public class RLEnvTabCompleter implements TabCompleter {
         String root = args[0].toLowerCase();
         if (args.length == 2) {
             return switch (root) {
-                case "graph" -> match(args[1], GRAPH_ARGS);
+                case "graph" -> match(args[1], concat(GRAPH_ARGS, arenaNames()));
                 case "progression" -> match(args[1], PROGRESSION_ARGS);
+                case "stop", "status", "showarena", "weight" -> match(args[1], arenaNames());
+                case "pretrain" -> match(args[1], plugin.pretrainableArenas());
                 default -> Collections.emptyList();
             };
         }
 
+        if (args.length == 3 && root.equals("start")) {
+            return match(args[2], POLICY_NAMES);
+        }
+        if (args.length == 3 && root.equals("speed")) {
+            return match(args[2], arenaNames());
+        }
+
         if (args.length == 3 && root.equals("graph") && args[1].equalsIgnoreCase("mode")) {
             return match(args[2], GRAPH_MODES);
         }
+        if (args.length == 4 && root.equals("graph") && args[1].equalsIgnoreCase("mode")) {
+            return match(args[3], arenaNames());
+        }
 
         return Collections.emptyList();
     }
 
+    private List<String> arenaNames() {
+        List<String> names = new ArrayList<>();
+        for (Arena arena : plugin.getArenas()) {
+            names.add(arena.name());
+        }
+        return names;
+    }
+
+    private static List<String> concat(List<String> a, List<String> b) {
+        List<String> all = new ArrayList<>(a);
+        all.addAll(b);
+        return all;
+    }
+
     private static List<String> match(String token, List<String> options) {
         List<String> matches = new ArrayList<>(options.size());
         StringUtil.copyPartialMatches(token, options, matches);
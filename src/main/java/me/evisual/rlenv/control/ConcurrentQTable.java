@@ -0,0 +1,146 @@
+package me.evisual.rlenv.control;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Q-table many actor threads read and update at once (Hogwild-style), with no locks.
+ * <p>
+ * Packed state keys are bounded by {@link StateKey#KEY_SPACE}, so the row id is the key itself and
+ * rows never need to be created or moved. Values are doubles stored as raw long bits in an
+ * {@link AtomicLongArray}: reads and plain writes are opaque accesses, and
+ * {@link #addClamped} is a CAS loop, so concurrent updates to the same cell don't get lost.
+ * Each row is padded to a 64-byte stride so actors working on different states don't
+ * false-share cache lines.
+ */
+public final class ConcurrentQTable implements QTable
+{
+    private static final int CACHE_LINE_LONGS = 8;
+    private static final LongBinaryOperator OR = (a, b) -> a | b;
+    private static final LongBinaryOperator AND = (a, b) -> a & b;
+
+    private final int actionCount;
+    private final int stride;
+    private final AtomicLongArray values;
+    private final AtomicLongArray present; // one bit per row
+    private final AtomicLongArray dirty;   // one bit per row, for incremental checkpoints
+    private final AtomicInteger size = new AtomicInteger();
+
+    public ConcurrentQTable(int actionCount, double initialValue) {
+        this.actionCount = actionCount;
+        this.stride = (actionCount + CACHE_LINE_LONGS - 1) / CACHE_LINE_LONGS * CACHE_LINE_LONGS;
+        this.values = new AtomicLongArray(StateKey.KEY_SPACE * stride);
+        this.present = new AtomicLongArray(StateKey.KEY_SPACE >>> 6);
+        this.dirty = new AtomicLongArray(StateKey.KEY_SPACE >>> 6);
+
+        long initialBits = Double.doubleToRawLongBits(initialValue);
+        for (int row = 0; row < StateKey.KEY_SPACE; row++) {
+            for (int a = 0; a < actionCount; a++) {
+                values.setPlain(row * stride + a, initialBits);
+            }
+        }
+    }
+
+    /**
+     * Copies every row of another table, e.g. a single learner's table loaded from a checkpoint.
+     */
+    public static ConcurrentQTable copyOf(QTable source, double initialValue) {
+        ConcurrentQTable table = new ConcurrentQTable(source.actionCount(), initialValue);
+        for (int i = 0; i < source.rowLimit(); i++) {
+            int key = source.keyAt(i);
+            if (key < 0) continue;
+            int row = table.row(key);
+            for (int a = 0; a < source.actionCount(); a++) {
+                table.set(row, a, source.get(i, a));
+            }
+        }
+        return table;
+    }
+
+    @Override
+    public int row(int stateKey) {
+        if (stateKey < 0 || stateKey >= StateKey.KEY_SPACE) {
+            throw new IllegalArgumentException("State key out of range: " + stateKey);
+        }
+        long bit = 1L << stateKey;
+        int word = stateKey >>> 6;
+        if ((present.getOpaque(word) & bit) == 0 && (present.getAndAccumulate(word, bit, OR) & bit) == 0) {
+            size.incrementAndGet();
+            markDirty(stateKey);
+        }
+        return stateKey;
+    }
+
+    @Override
+    public double get(int row, int action) {
+        return Double.longBitsToDouble(values.getOpaque(row * stride + action));
+    }
+
+    @Override
+    public void set(int row, int action, double value) {
+        values.setOpaque(row * stride + action, Double.doubleToRawLongBits(value));
+        markDirty(row);
+    }
+
+    @Override
+    public void addClamped(int row, int action, double delta, double min, double max) {
+        int index = row * stride + action;
+        while (true) {
+            long bits = values.getOpaque(index);
+            double v = Double.longBitsToDouble(bits) + delta;
+            v = v < min ? min : Math.min(v, max);
+            if (values.weakCompareAndSetVolatile(index, bits, Double.doubleToRawLongBits(v))) break;
+        }
+        markDirty(row);
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public int actionCount() {
+        return actionCount;
+    }
+
+    @Override
+    public int rowLimit() {
+        return StateKey.KEY_SPACE;
+    }
+
+    @Override
+    public int keyAt(int row) {
+        return (present.getOpaque(row >>> 6) & (1L << row)) != 0 ? row : -1;
+    }
+
+    @Override
+    public boolean isDirty(int row) {
+        return (dirty.getOpaque(row >>> 6) & (1L << row)) != 0;
+    }
+
+    @Override
+    public boolean takeDirty(int row) {
+        long bit = 1L << row;
+        int word = row >>> 6;
+        if ((dirty.getOpaque(word) & bit) == 0) return false;
+        return (dirty.getAndAccumulate(word, ~bit, AND) & bit) != 0;
+    }
+
+    @Override
+    public void clearDirty() {
+        for (int i = 0; i < dirty.length(); i++) {
+            dirty.set(i, 0L);
+        }
+    }
+
+    private void markDirty(int row) {
+        long bit = 1L << row;
+        int word = row >>> 6;
+        // Check first: once the bit is set, hot rows don't keep writing the shared word
+        if ((dirty.getOpaque(word) & bit) == 0) {
+            dirty.getAndAccumulate(word, bit, OR);
+        }
+    }
+}
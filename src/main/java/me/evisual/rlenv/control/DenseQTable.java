@@ -0,0 +1,107 @@
+package me.evisual.rlenv.control;
+
+import java.util.Arrays;
+
+/**
+ * Q-table for a bounded {@link StateLayout}: one contiguous array indexed directly by the
+ * layout's perfect hash, so a lookup is a multiply-add and never probes or grows.
+ */
+public final class DenseQTable implements QTable
+{
+    private final StateLayout layout;
+    private final int actionCount;
+    private final double initialValue;
+    private final double[] values;
+    private final boolean[] visited;
+    private final long[] dirty; // one bit per row, for incremental checkpoints
+    private int visitedCount = 0;
+
+    public DenseQTable(StateLayout layout, int actionCount, double initialValue) {
+        this.layout = layout;
+        this.actionCount = actionCount;
+        this.initialValue = initialValue;
+        this.values = new double[layout.stateCount() * actionCount];
+        this.visited = new boolean[layout.stateCount()];
+        this.dirty = new long[(layout.stateCount() + 63) >>> 6];
+        Arrays.fill(values, initialValue);
+    }
+
+    public StateLayout layout() {
+        return layout;
+    }
+
+    @Override
+    public int row(int stateKey) {
+        int row = layout.index(stateKey);
+        if (!visited[row]) {
+            visited[row] = true;
+            visitedCount++;
+            dirty[row >>> 6] |= 1L << row;
+        }
+        return row;
+    }
+
+    @Override
+    public double get(int row, int action) {
+        return values[row * actionCount + action];
+    }
+
+    @Override
+    public void set(int row, int action, double value) {
+        values[row * actionCount + action] = value;
+        dirty[row >>> 6] |= 1L << row;
+    }
+
+    @Override
+    public int size() {
+        return visitedCount;
+    }
+
+    @Override
+    public int actionCount() {
+        return actionCount;
+    }
+
+    @Override
+    public int rowLimit() {
+        return visited.length;
+    }
+
+    @Override
+    public int keyAt(int row) {
+        return visited[row] ? layout.keyAt(row) : -1;
+    }
+
+    @Override
+    public boolean isDirty(int row) {
+        return (dirty[row >>> 6] & (1L << row)) != 0;
+    }
+
+    @Override
+    public boolean takeDirty(int row) {
+        long bit = 1L << row;
+        long word = dirty[row >>> 6];
+        dirty[row >>> 6] = word & ~bit;
+        return (word & bit) != 0;
+    }
+
+    @Override
+    public void clearDirty() {
+        Arrays.fill(dirty, 0L);
+    }
+
+    /**
+     * Copies every visited state into a hashed table, for when observations stop matching the layout.
+     */
+    public HashedQTable toHashed() {
+        HashedQTable hashed = new HashedQTable(actionCount, initialValue, Math.max(16, visitedCount * 2));
+        for (int i = 0; i < visited.length; i++) {
+            if (!visited[i]) continue;
+            int row = hashed.row(layout.keyAt(i));
+            for (int a = 0; a < actionCount; a++) {
+                hashed.set(row, a, get(i, a));
+            }
+        }
+        return hashed;
+    }
+}
@@ -0,0 +1,265 @@
+package me.evisual.rlenv.control;
+
+import me.evisual.rlenv.env.Action;
+import me.evisual.rlenv.env.Observation;
+
+import java.util.Random;
+
+/**
+ * Deep Q-network: a small {@link MlpNetwork} maps the raw observation to one Q-value per action.
+ * <p>
+ * Every real step goes into an {@link ObservationReplayBuffer}; once it holds a batch, each step
+ * trains on one random mini-batch against a target network that is synced every targetSync
+ * updates. The loss is Huber on the taken action's TD error. Batched action selection runs all
+ * environments through a single forward pass.
+ * <p>
+ * Networks, replay and scratch arrays are sized from the first observation; after that, acting
+ * and training allocate nothing. Not thread-safe, like {@link LinearQPolicy}.
+ */
+public class DqnPolicy implements Policy {
+
+    private static final Action[] ACTIONS = Action.values();
+    private static final int ACTION_COUNT = ACTIONS.length;
+
+    private final int hiddenSize;
+    private final int hiddenLayers;
+    private final int replayCapacity;
+    private final int batchSize;
+    private final float learningRate;
+    private final int targetSync;
+    private final double gamma;
+    private final double epsilonStart;
+    private final double epsilonEnd;
+    private final long epsilonDecayEpisodes;
+    private final Random rng;
+
+    private long episodesSeen = 0;
+    private double lastEpsilon;
+    private long trainingUpdates = 0;
+
+    // Sized from the first observation
+    private int observationSize = -1;
+    private MlpNetwork online;
+    private MlpNetwork target;
+    private ObservationReplayBuffer replay;
+    private final int[] sampled;
+    private final float[] sampledTargets;
+
+    public DqnPolicy(int hiddenSize, int hiddenLayers, int replayCapacity, int batchSize,
+                     double learningRate, int targetSync) {
+        this(hiddenSize, hiddenLayers, replayCapacity, batchSize, learningRate, targetSync,
+                0.95, 0.60, 0.03, 600, new Random());
+    }
+
+    public DqnPolicy(int hiddenSize,
+                     int hiddenLayers,
+                     int replayCapacity,
+                     int batchSize,
+                     double learningRate,
+                     int targetSync,
+                     double gamma,
+                     double epsilonStart,
+                     double epsilonEnd,
+                     long epsilonDecayEpisodes,
+                     Random rng) {
+        this.hiddenSize = Math.max(1, hiddenSize);
+        this.hiddenLayers = Math.max(1, hiddenLayers);
+        this.replayCapacity = Math.max(1, replayCapacity);
+        this.batchSize = Math.max(1, Math.min(batchSize, this.replayCapacity));
+        this.learningRate = (float) learningRate;
+        this.targetSync = Math.max(1, targetSync);
+        this.gamma = gamma;
+        this.epsilonStart = epsilonStart;
+        this.epsilonEnd = epsilonEnd;
+        this.epsilonDecayEpisodes = Math.max(1, epsilonDecayEpisodes);
+        this.rng = rng;
+        this.lastEpsilon = epsilonStart;
+        this.sampled = new int[this.batchSize];
+        this.sampledTargets = new float[this.batchSize];
+    }
+
+    @Override
+    public Action chooseAction(Observation observation) {
+        double[] f = observation.getFeatures();
+        ensureSized(f.length);
+        lastEpsilon = epsilon();
+
+        int blocked = StateKey.blockedMask(StateKey.encode(f));
+        if (rng.nextDouble() < lastEpsilon) {
+            return randomValidAction(blocked);
+        }
+        writeInput(f, online.input(), 0);
+        return ACTIONS[greedy(online.forward(1), 0, blocked)];
+    }
+
+    @Override
+    public void chooseActions(Observation[] observations, Action[] out) {
+        int n = observations.length;
+        if (n == 0) return;
+        ensureSized(observations[0].getFeatures().length);
+        online.ensureBatch(n);
+        lastEpsilon = epsilon();
+
+        float[] input = online.input();
+        for (int i = 0; i < n; i++) {
+            writeInput(observations[i].getFeatures(), input, i * observationSize);
+        }
+        float[] q = online.forward(n);
+        for (int i = 0; i < n; i++) {
+            int blocked = StateKey.blockedMask(StateKey.encode(observations[i].getFeatures()));
+            out[i] = rng.nextDouble() < lastEpsilon
+                    ? randomValidAction(blocked)
+                    : ACTIONS[greedy(q, i * ACTION_COUNT, blocked)];
+        }
+    }
+
+    @Override
+    public void observeTransition(Observation state,
+                                  Action action,
+                                  double reward,
+                                  Observation nextState,
+                                  boolean done) {
+        double[] f = state.getFeatures();
+        double[] f2 = nextState.getFeatures();
+        ensureSized(f.length);
+
+        int nextBlocked = StateKey.blockedMask(StateKey.encode(f2));
+        replay.add(f, action.ordinal(), (float) reward, f2, nextBlocked, done);
+        if (replay.size() >= batchSize) {
+            train();
+        }
+
+        if (done) {
+            episodesSeen++;
+        }
+    }
+
+    public double getEpsilon() {
+        return lastEpsilon;
+    }
+
+    public long getTrainingUpdates() {
+        return trainingUpdates;
+    }
+
+    /** Parameter count of one network, or 0 before the first observation. */
+    public int getParameterCount() {
+        return online == null ? 0 : online.parameterCount();
+    }
+
+    public int getReplaySize() {
+        return replay == null ? 0 : replay.size();
+    }
+
+    public double qValue(Observation observation, Action action) {
+        double[] f = observation.getFeatures();
+        ensureSized(f.length);
+        writeInput(f, online.input(), 0);
+        return online.forward(1)[action.ordinal()];
+    }
+
+    private void train() {
+        int n = batchSize;
+        float[] nextInput = target.input();
+        float[] input = online.input();
+        for (int b = 0; b < n; b++) {
+            int index = replay.sample(rng);
+            sampled[b] = index;
+            replay.readNextState(index, nextInput, b * observationSize);
+            replay.readState(index, input, b * observationSize);
+        }
+
+        float[] nextQ = target.forward(n);
+        for (int b = 0; b < n; b++) {
+            int index = sampled[b];
+            double y = replay.reward(index);
+            if (!replay.isDone(index)) {
+                int best = greedy(nextQ, b * ACTION_COUNT, replay.nextBlockedMask(index));
+                y += gamma * nextQ[b * ACTION_COUNT + best];
+            }
+            sampledTargets[b] = (float) y;
+        }
+
+        float[] q = online.forward(n);
+        float[] grad = online.outputGradient();
+        for (int b = 0; b < n; b++) {
+            int base = b * ACTION_COUNT;
+            int a = replay.action(sampled[b]);
+            for (int i = 0; i < ACTION_COUNT; i++) {
+                grad[base + i] = 0f;
+            }
+            // Huber loss: the gradient is the TD error clipped to [-1, 1]
+            float error = q[base + a] - sampledTargets[b];
+            grad[base + a] = Math.max(-1f, Math.min(1f, error)) / n;
+        }
+        online.backward(n);
+        online.adamStep(learningRate);
+
+        trainingUpdates++;
+        if (trainingUpdates % targetSync == 0) {
+            target.copyParametersFrom(online);
+        }
+    }
+
+    private int greedy(float[] q, int offset, int blocked) {
+        int best = -1;
+        float bestVal = -Float.MAX_VALUE;
+        int ties = 0;
+        for (int i = 0; i < ACTION_COUNT; i++) {
+            if (isMoveBlocked(i, blocked)) continue;
+            float v = q[offset + i];
+            if (v > bestVal) {
+                bestVal = v;
+                best = i;
+                ties = 1;
+            } else if (v == bestVal) {
+                ties++;
+                if (rng.nextInt(ties) == 0) best = i;
+            }
+        }
+        return best == -1 ? Action.STAY.ordinal() : best;
+    }
+
+    private Action randomValidAction(int blocked) {
+        for (int tries = 0; tries < 12; tries++) {
+            int a = rng.nextInt(ACTION_COUNT);
+            if (!isMoveBlocked(a, blocked)) return ACTIONS[a];
+        }
+        return Action.STAY;
+    }
+
+    private static boolean isMoveBlocked(int action, int blocked) {
+        // Blocked bits follow Action ordinal order: N, S, E, W. STAY is never blocked.
+        return action != Action.STAY.ordinal() && (blocked & (1 << action)) != 0;
+    }
+
+    private double epsilon() {
+        double t = Math.min(1.0, episodesSeen / (double) epsilonDecayEpisodes);
+        return epsilonStart + t * (epsilonEnd - epsilonStart);
+    }
+
+    private void writeInput(double[] f, float[] input, int offset) {
+        for (int i = 0; i < observationSize; i++) {
+            input[offset + i] = (float) f[i];
+        }
+    }
+
+    private void ensureSized(int size) {
+        if (observationSize >= 0) return;
+        observationSize = size;
+
+        int[] sizes = new int[hiddenLayers + 2];
+        sizes[0] = size;
+        for (int l = 1; l <= hiddenLayers; l++) {
+            sizes[l] = hiddenSize;
+        }
+        sizes[hiddenLayers + 1] = ACTION_COUNT;
+
+        online = new MlpNetwork(sizes, rng);
+        target = new MlpNetwork(sizes, rng);
+        target.copyParametersFrom(online);
+        online.ensureBatch(batchSize);
+        target.ensureBatch(batchSize);
+        replay = new ObservationReplayBuffer(replayCapacity, size);
+    }
+}
@@ -0,0 +1,173 @@
+package me.evisual.rlenv.control;
+
+import me.evisual.rlenv.env.Action;
+import me.evisual.rlenv.env.Observation;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Dyna-Q: Q-learning plus a learned tabular model that a background thread plans from.
+ * <p>
+ * The model keeps the latest (next state, reward, done) seen for every (state, action) pair,
+ * which suits the nearly deterministic grid dynamics. The planner replays random known pairs
+ * through the usual Q backup, sleeping between batches so it stays within its CPU budget.
+ * <p>
+ * Table and model access is serialized on this policy's monitor. The foreground only holds it
+ * for one step, the planner for one small batch, so neither waits long on the other.
+ */
+public class DynaQPolicy extends QLearningPolicy {
+
+    private static final int ACTION_COUNT = Action.values().length;
+    private static final int PLANNING_BATCH = 64;
+    private static final long IDLE_PARK_NANOS = 5_000_000L;
+
+    private final double cpuBudget;
+
+    // Model, indexed by stateKey * ACTION_COUNT + action
+    private final int[] modelNextKey = new int[StateKey.KEY_SPACE * ACTION_COUNT];
+    private final float[] modelReward = new float[StateKey.KEY_SPACE * ACTION_COUNT];
+    private final byte[] modelFlags = new byte[StateKey.KEY_SPACE * ACTION_COUNT];
+    private final int[] knownPairs = new int[StateKey.KEY_SPACE * ACTION_COUNT];
+    private int knownPairCount = 0;
+
+    private static final byte KNOWN = 1;
+    private static final byte DONE = 2;
+
+    private final Random planningRng = new Random();
+    private volatile long planningUpdates = 0;
+
+    private Thread planner;
+    private volatile boolean planning = false;
+    private volatile Throwable plannerFailure;
+
+    /**
+     * @param cpuBudget share of one core the planner may use, in (0, 1]
+     */
+    public DynaQPolicy(double cpuBudget) {
+        this.cpuBudget = Math.max(0.01, Math.min(1.0, cpuBudget));
+    }
+
+    @Override
+    public synchronized Action chooseAction(Observation observation) {
+        return super.chooseAction(observation);
+    }
+
+    @Override
+    public synchronized void observeTransition(Observation state,
+                                               Action action,
+                                               double reward,
+                                               Observation nextState,
+                                               boolean done) {
+        super.observeTransition(state, action, reward, nextState, done);
+    }
+
+    @Override
+    public synchronized void observeTransitions(Observation[] states,
+                                                Action[] actions,
+                                                double[] rewards,
+                                                Observation[] nextStates,
+                                                boolean[] dones) {
+        super.observeTransitions(states, actions, rewards, nextStates, dones);
+    }
+
+    @Override
+    public synchronized void saveCheckpoint() throws IOException {
+        super.saveCheckpoint();
+    }
+
+    @Override
+    protected void afterUpdate(int stateKey, int action, double shapedReward, int nextStateKey, boolean done) {
+        int pair = stateKey * ACTION_COUNT + action;
+        if ((modelFlags[pair] & KNOWN) == 0) {
+            knownPairs[knownPairCount++] = pair;
+        }
+        modelNextKey[pair] = nextStateKey;
+        modelReward[pair] = (float) shapedReward;
+        modelFlags[pair] = (byte) (KNOWN | (done ? DONE : 0));
+
+        if (!planning) startPlanner();
+    }
+
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            planning = false;
+            thread = planner;
+            planner = null;
+        }
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(1000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public Throwable getFailure() {
+        return plannerFailure;
+    }
+
+    public long getPlanningUpdates() {
+        return planningUpdates;
+    }
+
+    public synchronized int getModelSize() {
+        return knownPairCount;
+    }
+
+    public double getCpuBudget() {
+        return cpuBudget;
+    }
+
+    /**
+     * Runs up to count planning backups on the calling thread and returns how many ran.
+     * The planner thread calls this in batches; it is public so tests can plan deterministically.
+     */
+    public synchronized int plan(int count) {
+        int pairs = knownPairCount;
+        if (pairs == 0) return 0;
+
+        for (int i = 0; i < count; i++) {
+            int pair = knownPairs[planningRng.nextInt(pairs)];
+            byte flags = modelFlags[pair];
+            backup(pair / ACTION_COUNT, pair % ACTION_COUNT, modelReward[pair],
+                    modelNextKey[pair], (flags & DONE) != 0);
+        }
+        planningUpdates += count;
+        return count;
+    }
+
+    // Called with the monitor held (from afterUpdate)
+    private void startPlanner() {
+        planning = true;
+        planner = new Thread(this::planLoop, "RLEnv-Planner");
+        planner.setDaemon(true);
+        planner.setPriority(Thread.MIN_PRIORITY);
+        planner.start();
+    }
+
+    private void planLoop() {
+        try {
+            while (planning) {
+                long start = System.nanoTime();
+                if (plan(PLANNING_BATCH) == 0) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+                // Idle long enough that busy / (busy + idle) stays at the budget
+                long busy = System.nanoTime() - start;
+                long idle = (long) (busy * (1.0 - cpuBudget) / cpuBudget);
+                if (idle > 0) LockSupport.parkNanos(idle);
+            }
+        } catch (RuntimeException | Error e) {
+            // planning stays set, so the planner isn't restarted into the same failure
+            plannerFailure = e;
+        }
+    }
+}
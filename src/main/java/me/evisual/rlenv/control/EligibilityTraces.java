@@ -0,0 +1,90 @@
+package me.evisual.rlenv.control;
+
+/**
+ * Sparse eligibility traces over (state key, action) pairs, in parallel primitive arrays.
+ * <p>
+ * Only recently visited pairs are held: traces decay geometrically and are dropped once below the
+ * threshold, and when all slots are taken the weakest trace makes room. Every operation is
+ * O(capacity), so per-step cost doesn't depend on how large the Q-table grows.
+ */
+public final class EligibilityTraces
+{
+    private final int[] stateKeys;
+    private final int[] actions;
+    private final double[] values;
+    private final double threshold;
+    private int size = 0;
+
+    public EligibilityTraces(int capacity, double threshold) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Trace capacity must be positive: " + capacity);
+        }
+        this.stateKeys = new int[capacity];
+        this.actions = new int[capacity];
+        this.values = new double[capacity];
+        this.threshold = threshold;
+    }
+
+    /** Sets the pair's trace to 1 (replacing traces), adding it if absent. */
+    public void visit(int stateKey, int action) {
+        for (int i = 0; i < size; i++) {
+            if (stateKeys[i] == stateKey && actions[i] == action) {
+                values[i] = 1.0;
+                return;
+            }
+        }
+
+        int slot = size < values.length ? size++ : weakest();
+        stateKeys[slot] = stateKey;
+        actions[slot] = action;
+        values[slot] = 1.0;
+    }
+
+    /** Multiplies every trace by factor and drops the ones that fall below the threshold. */
+    public void decay(double factor) {
+        int i = 0;
+        while (i < size) {
+            double v = values[i] * factor;
+            if (v < threshold) {
+                removeAt(i);
+            } else {
+                values[i++] = v;
+            }
+        }
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int stateKey(int index) {
+        return stateKeys[index];
+    }
+
+    public int action(int index) {
+        return actions[index];
+    }
+
+    public double value(int index) {
+        return values[index];
+    }
+
+    private int weakest() {
+        int weakest = 0;
+        for (int i = 1; i < size; i++) {
+            if (values[i] < values[weakest]) weakest = i;
+        }
+        return weakest;
+    }
+
+    private void removeAt(int index) {
+        int last = --size;
+        stateKeys[index] = stateKeys[last];
+        actions[index] = actions[last];
+        values[index] = values[last];
+    }
+}
@@ -3,30 +3,50 @@ package me.evisual.rlenv.control;
 import me.evisual.rlenv.env.Action;
 import me.evisual.rlenv.env.Observation;
 import me.evisual.rlenv.env.RLEnvironment;
-import me.evisual.rlenv.env.StepResult;
+import me.evisual.rlenv.env.StepOutcome;
+import me.evisual.rlenv.env.VectorizedEnvironment;
+import me.evisual.rlenv.env.goldcollector.GoldCollectorEnvironment;
+import me.evisual.rlenv.env.goldcollector.GoldCollectorSimulation;
 import me.evisual.rlenv.logging.TimingReporter;
 import me.evisual.rlenv.logging.TransitionLogger;
 import me.evisual.rlenv.visual.AgentVisualizer;
 import me.evisual.rlenv.visual.ProgressGraphVisualizer;
-import org.bukkit.scheduler.BukkitRunnable;
 
-public class EpisodeRunner extends BukkitRunnable {
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Drives one arena: picks actions, steps the environment, learns, and keeps episode stats.
+ * It doesn't schedule itself; the arena manager calls {@link #tick} once per server tick.
+ */
+public class EpisodeRunner {
 
     public static final double MIN_STEPS_PER_SECOND = 0.1;
 
     private final double maxStepsPerSecond;
     private final RLEnvironment environment;
     private final TransitionLogger logger;
+    private final TransitionLogger.Recorder recorder;
     private final Policy policy;
     private final AgentVisualizer visualizer;
     private final ProgressGraphVisualizer graph;
     private final TimingReporter timingReporter;
+    private final Logger log; // the plugin's, for errors that would otherwise go unseen
 
+    // Sync path reuses two observation buffers (swapped after every step) and one outcome holder
     private Observation currentObservation;
-    private boolean closed = false;
+    private Observation nextObservation;
+    private final StepOutcome outcome = new StepOutcome();
+    private volatile boolean closed = false;
 
     // Speed: environment steps per second (can be < 1.0)
-    private double stepsPerSecond = 10.0;
+    private volatile double stepsPerSecond = 10.0;
     private double stepAccumulator = 0.0;
 
     // Safety cap so we don't spiral if someone sets absurd speeds
@@ -46,6 +66,9 @@ public class EpisodeRunner extends BukkitRunnable {
     // Graph sampling: push one point every N episodes (helps performance at high speed)
     private final int graphSampleEveryEpisodes = 5;
     private final int resetDelayTicks = 8;
+
+    // Q-table checkpoint cadence (0 = only on shutdown)
+    private int checkpointEveryEpisodes = 0;
     private int resetCooldownTicks = 0;
 
     // Learning / improvement stats
@@ -64,138 +87,443 @@ public class EpisodeRunner extends BukkitRunnable {
     private int recentSize = 0;
     private int recentIndex = 0;
 
+    // Guards episode stats, which the worker thread writes while /rlenv status reads them
+    private final Object statsLock = new Object();
+
+    // Worker-thread mode: stepping runs off the main thread, this task only applies world updates
+    private Thread worker;
+    private volatile Throwable failure; // first error that ended a training thread
+    private boolean logFailureReported = false;
+    private final List<Thread> actors = new ArrayList<>();      // extra Hogwild actors, headless
+    private final List<Policy> actorPolicies = new ArrayList<>();
+    private final Object checkpointLock = new Object();
+    private GoldCollectorEnvironment mirror;
+    private final Queue<WorldUpdate> worldUpdates = new ConcurrentLinkedQueue<>();
+    private WorldUpdate.EpisodeStarted pendingEpisode;
+    private WorldUpdate.GoalReached pendingGoal;
+    private WorldUpdate.AgentMoved latestMove;
+    private long renderedEpisode = 0;
+    private int renderCooldownTicks = 0;
+
     public EpisodeRunner(RLEnvironment environment,
                          TransitionLogger logger,
                          Policy policy,
                          AgentVisualizer visualizer,
                          ProgressGraphVisualizer graph,
                          TimingReporter timingReporter,
-                         double maxStepsPerSecond) {
+                         double maxStepsPerSecond,
+                         Logger log) {
         this.environment = environment;
         this.logger = logger;
+        this.recorder = logger.recorder();
         this.policy = policy;
         this.visualizer = visualizer;
         this.graph = graph;
         this.timingReporter = timingReporter;
         this.maxStepsPerSecond = Math.max(MIN_STEPS_PER_SECOND, maxStepsPerSecond);
+        this.log = log;
 
-        this.currentObservation = environment.reset();
+        int observationSize = environment.observationSize();
+        this.currentObservation = new Observation(new double[observationSize]);
+        this.nextObservation = new Observation(new double[observationSize]);
+        environment.reset(currentObservation.getFeatures());
         updateVisualizer();
     }
 
-    @Override
-    public void run() {
-        if (closed) {
-            cancel();
-            return;
-        }
+    /**
+     * Steps this runner would take on its next tick if nothing else limited it: what the speed
+     * setting has accumulated when paced, any number when not. 0 while it can't step (closed,
+     * stepping on the worker thread, pausing between episodes, or waiting for the episode's
+     * block changes to be applied).
+     */
+    public int demand(boolean paced) {
+        if (closed || worker != null || resetCooldownTicks > 0 || !environment.isWorldReady()) return 0;
+        if (!paced) return Integer.MAX_VALUE;
+        return Math.min(maxStepsPerTick, (int) Math.floor(stepAccumulator + stepsPerSecond / 20.0));
+    }
+
+    /**
+     * One server tick: applies the worker's updates, or steps the environment at most stepLimit
+     * times. Paced ticks run what the speed setting has accumulated; unpaced ones run the whole
+     * limit, which the caller sized from a time budget. Returns the number of steps run.
+     */
+    public int tick(int stepLimit, boolean paced) {
+        if (closed) return 0;
+        reportLogFailure();
 
         long tickStartNanos = timingReporter != null ? System.nanoTime() : 0L;
+        int stepsRun = 0;
 
-        if (resetCooldownTicks > 0) {
+        if (worker != null) {
+            applyWorldUpdates();
+        } else if (resetCooldownTicks > 0) {
             resetCooldownTicks--;
             if (resetCooldownTicks == 0) {
-                currentObservation = environment.reset();
+                environment.reset(currentObservation.getFeatures());
                 currentEpisodeReward = 0.0;
                 stepsThisEpisode = 0;
                 teleportVisualizerToCurrent();
             }
-            if (timingReporter != null) {
-                timingReporter.recordTick(System.nanoTime() - tickStartNanos);
-                timingReporter.maybeReport();
+        } else if (environment.isWorldReady()) {
+            int stepsToRun = stepLimit;
+            if (paced) {
+                // Convert steps/sec into steps per tick using an accumulator
+                stepAccumulator += (stepsPerSecond / 20.0);
+                int accumulated = (int) Math.floor(stepAccumulator);
+                stepAccumulator -= accumulated;
+                stepsToRun = Math.min(Math.min(accumulated, maxStepsPerTick), stepLimit);
             }
-            return;
+            while (stepsRun < stepsToRun && !closed) {
+                stepsRun++;
+                if (stepAndCheckEpisodeEnd()) break;
+            }
+            updateVisualizer();
         }
 
-        if (currentObservation == null) {
-            currentObservation = environment.getObservation();
+        if (timingReporter != null) {
+            timingReporter.recordTick(System.nanoTime() - tickStartNanos);
+            timingReporter.maybeReport();
         }
+        return stepsRun;
+    }
 
-        // Convert steps/sec into steps per tick using an accumulator
-        stepAccumulator += (stepsPerSecond / 20.0);
+    /** Runs one step on the sync path; returns true if it ended the episode. */
+    private boolean stepAndCheckEpisodeEnd() {
+        StepOutcome result = stepOnce(environment);
+        if (!result.isDone()) return false;
 
-        int stepsToRun = (int) Math.floor(stepAccumulator);
-        if (stepsToRun <= 0) {
-            updateVisualizer();
-            if (timingReporter != null) {
-                timingReporter.recordTick(System.nanoTime() - tickStartNanos);
-                timingReporter.maybeReport();
+        boolean success = finishEpisode(result);
+        policy.onEpisodeEnd();
+        if (success) {
+            showGoalBreakEffect();
+        }
+        resetCooldownTicks = resetDelayTicks;
+        return true;
+    }
+
+    /**
+     * Moves stepping onto a dedicated worker thread. From then on this task only drains the
+     * updates the worker publishes and applies them to the world and visualizer, so tick time
+     * no longer depends on the training speed.
+     * <p>
+     * Only GoldCollector arenas support this, since their dynamics run without touching the world.
+     *
+     * @param parallelEnvs number of simulations stepped as one batch by the same policy; the first
+     *                     is the one mirrored in-world, the rest are headless copies of the arena
+     */
+    public void startWorker(int parallelEnvs) {
+        startWorker(parallelEnvs, List.of());
+    }
+
+    /**
+     * Like {@link #startWorker(int)}, plus one extra actor thread per given policy, each stepping
+     * its own headless copies of the arena. Actors normally share one {@link ConcurrentQTable}
+     * (Hogwild), so every thread's experience trains the same table. The configured speed is
+     * split evenly between all actors.
+     */
+    public void startWorker(int parallelEnvs, List<? extends Policy> extraActors) {
+        if (!(environment instanceof GoldCollectorEnvironment env)) {
+            throw new IllegalStateException("Worker-thread training needs a GoldCollectorEnvironment");
+        }
+        if (worker != null) return;
+
+        int actorCount = 1 + extraActors.size();
+        List<GoldCollectorSimulation> simulations = new ArrayList<>();
+        simulations.add(env.getSimulation());
+        for (int i = 1; i < parallelEnvs; i++) {
+            simulations.add(env.newHeadlessSimulation());
+        }
+        VectorizedEnvironment envs = new VectorizedEnvironment(simulations);
+
+        // The worker owns the simulation (and its RNG) from here on
+        env.disablePrefetch();
+        mirror = env;
+        worker = new Thread(() -> trainingLoop(envs, env.getSimulation(), policy, 0, actorCount), "RLEnv-Training");
+        worker.setDaemon(true);
+
+        for (int a = 0; a < extraActors.size(); a++) {
+            List<GoldCollectorSimulation> headless = new ArrayList<>();
+            for (int i = 0; i < parallelEnvs; i++) {
+                headless.add(env.newHeadlessSimulation());
             }
-            return;
+            VectorizedEnvironment actorEnvs = new VectorizedEnvironment(headless);
+            Policy actor = extraActors.get(a);
+            int actorIndex = a + 1;
+            actorPolicies.add(actor);
+            Thread thread = new Thread(() -> trainingLoop(actorEnvs, null, actor, actorIndex, actorCount),
+                    "RLEnv-Training-" + (a + 1));
+            thread.setDaemon(true);
+            actors.add(thread);
         }
 
-        stepAccumulator -= stepsToRun;
+        worker.start();
+        for (Thread thread : actors) thread.start();
+    }
 
-        if (stepsToRun > maxStepsPerTick) {
-            stepsToRun = maxStepsPerTick;
+    /**
+     * The error that ended a training thread or a policy's background work, or null while
+     * training runs normally.
+     */
+    public Throwable getFailure() {
+        if (failure != null) return failure;
+        Throwable policyFailure = policy.getFailure();
+        for (int i = 0; policyFailure == null && i < actorPolicies.size(); i++) {
+            policyFailure = actorPolicies.get(i).getFailure();
         }
+        return policyFailure;
+    }
 
-        for (int i = 0; i < stepsToRun; i++) {
-            if (closed) break;
+    public boolean isWorkerRunning() {
+        return worker != null;
+    }
 
-            long stepStartNanos = timingReporter != null ? System.nanoTime() : 0L;
+    public int getActorCount() {
+        return worker == null ? 0 : 1 + actors.size();
+    }
 
-            Action action = policy.chooseAction(currentObservation);
-            StepResult result = environment.step(action);
+    private List<Thread> trainingThreads() {
+        List<Thread> threads = new ArrayList<>(actors);
+        if (worker != null) threads.add(0, worker);
+        return threads;
+    }
 
-            currentEpisodeReward += result.getReward();
-            stepsThisEpisode++;
+    private StepOutcome stepOnce(RLEnvironment env) {
+        long stepStartNanos = timingReporter != null ? System.nanoTime() : 0L;
 
-            logger.logTransition(
-                    currentObservation,
-                    action,
-                    result.getReward(),
-                    result.getObservation(),
-                    result.isDone()
-            );
+        Action action = policy.chooseAction(currentObservation);
+        env.step(action, nextObservation.getFeatures(), outcome);
 
-            policy.observeTransition(
-                    currentObservation,
-                    action,
-                    result.getReward(),
-                    result.getObservation(),
-                    result.isDone()
-            );
+        currentEpisodeReward += outcome.getReward();
+        stepsThisEpisode++;
 
-            currentObservation = result.getObservation();
+        recorder.log(
+                currentObservation,
+                action,
+                outcome.getReward(),
+                nextObservation,
+                outcome.isDone()
+        );
 
-            if (timingReporter != null) {
-                timingReporter.recordStep(System.nanoTime() - stepStartNanos);
-            }
+        policy.observeTransition(
+                currentObservation,
+                action,
+                outcome.getReward(),
+                nextObservation,
+                outcome.isDone()
+        );
+
+        Observation previous = currentObservation;
+        currentObservation = nextObservation;
+        nextObservation = previous;
+
+        if (timingReporter != null) {
+            timingReporter.recordStep(System.nanoTime() - stepStartNanos);
+        }
+        return outcome;
+    }
 
-            if (result.isDone()) {
-                boolean success = finishEpisode(result);
-                policy.onEpisodeEnd();
-                if (success) {
-                    showGoalBreakEffect();
+    /**
+     * Worker thread body: steps the batch of headless simulations at this actor's share of the
+     * configured speed and, if it has the mirrored one (mirrored != null), publishes what the
+     * world needs to show for it. Never touches Bukkit. Transitions are logged with environment
+     * index actorIndex * envs.size() + i, so every environment of the arena has its own.
+     */
+    private void trainingLoop(VectorizedEnvironment envs,
+                              GoldCollectorSimulation mirrored,
+                              Policy learner,
+                              int actorIndex,
+                              int actorCount) {
+        int n = envs.size();
+        Action[] actions = new Action[n];
+        double[] episodeRewards = new double[n];
+        int[] episodeSteps = new int[n];
+        TransitionLogger.Recorder[] recorders = new TransitionLogger.Recorder[n];
+        for (int i = 0; i < n; i++) recorders[i] = logger.recorder(actorIndex * n + i);
+
+        long episode = 0;
+        double budget = 0.0;
+        long lastNanos = System.nanoTime();
+
+        try {
+            envs.reset();
+            if (mirrored != null) publishEpisodeStart(++episode, mirrored);
+
+            while (!closed) {
+                double sps = stepsPerSecond / actorCount;
+                long now = System.nanoTime();
+                // Cap the backlog at ~100 ms worth of steps so a stall doesn't turn into a burst
+                budget = Math.min(budget + (now - lastNanos) * (sps / 1_000_000_000.0), Math.max(1.0, sps * 0.1));
+                lastNanos = now;
+
+                int stepsToRun = (int) budget;
+                if (stepsToRun == 0) {
+                    long untilNextStep = (long) ((1.0 - budget) / sps * 1_000_000_000.0);
+                    LockSupport.parkNanos(Math.max(200_000L, Math.min(50_000_000L, untilNextStep)));
+                    continue;
+                }
+                budget -= stepsToRun;
+
+                for (int step = 0; step < stepsToRun && !closed; step++) {
+                    long batchStartNanos = timingReporter != null ? System.nanoTime() : 0L;
+
+                    // Goal of the mirrored episode, captured before a possible auto-reset replaces it
+                    int goalX = mirrored != null ? mirrored.getGoalX() : 0;
+                    int goalY = mirrored != null ? mirrored.getGoalY() : 0;
+                    int goalZ = mirrored != null ? mirrored.getGoalZ() : 0;
+
+                    learner.chooseActions(envs.observations(), actions);
+                    envs.step(actions);
+
+                    Observation[] states = envs.states();
+                    Observation[] nextStates = envs.nextStates();
+                    double[] rewards = envs.rewards();
+                    boolean[] dones = envs.dones();
+                    for (int i = 0; i < n; i++) {
+                        episodeRewards[i] += rewards[i];
+                        episodeSteps[i]++;
+                        recorders[i].log(states[i], actions[i], rewards[i], nextStates[i], dones[i]);
+                    }
+                    learner.observeTransitions(states, actions, rewards, nextStates, dones);
+
+                    if (timingReporter != null) {
+                        long perStep = (System.nanoTime() - batchStartNanos) / n;
+                        for (int i = 0; i < n; i++) timingReporter.recordStep(perStep);
+                    }
+
+                    for (int i = 0; i < n; i++) {
+                        if (!dones[i]) continue;
+
+                        boolean success = finishEpisode(learner, rewards[i], episodeRewards[i], episodeSteps[i]);
+                        learner.onEpisodeEnd();
+                        episodeRewards[i] = 0.0;
+                        episodeSteps[i] = 0;
+
+                        if (i == 0 && mirrored != null) {
+                            if (success) {
+                                worldUpdates.add(new WorldUpdate.GoalReached(episode, goalX, goalY - 1, goalZ));
+                            }
+                            publishEpisodeStart(++episode, mirrored);
+                        }
+                    }
+                }
+                if (mirrored != null) {
+                    worldUpdates.add(new WorldUpdate.AgentMoved(episode,
+                            mirrored.getAgentX(), mirrored.getAgentY(), mirrored.getAgentZ()));
                 }
-                resetCooldownTicks = resetDelayTicks;
-                break;
             }
+        } catch (RuntimeException | Error e) {
+            // The arena manager sees this on its next tick, reports it and stops the arena
+            if (failure == null) failure = e;
         }
-        updateVisualizer();
+    }
 
-        if (timingReporter != null) {
-            timingReporter.recordTick(System.nanoTime() - tickStartNanos);
-            timingReporter.maybeReport();
+    private void publishEpisodeStart(long episode, GoldCollectorSimulation simulation) {
+        worldUpdates.add(new WorldUpdate.EpisodeStarted(episode, simulation.getLayout(),
+                simulation.getAgentX(), simulation.getAgentY(), simulation.getAgentZ()));
+    }
+
+    /**
+     * Main-thread side of worker mode. Only the newest episode is built, at most once per reset
+     * delay and never while the previous build is still queued, so a fast worker can't flood the
+     * tick with block writes.
+     */
+    private void applyWorldUpdates() {
+        WorldUpdate update;
+        while ((update = worldUpdates.poll()) != null) {
+            if (update instanceof WorldUpdate.EpisodeStarted started) {
+                pendingEpisode = started;
+            } else if (update instanceof WorldUpdate.GoalReached goal) {
+                if (goal.episode() == renderedEpisode) pendingGoal = goal;
+            } else if (update instanceof WorldUpdate.AgentMoved moved) {
+                latestMove = moved;
+            } else if (update instanceof WorldUpdate.GraphPoint point) {
+                addGraphPoint(point.avgReward(), point.epsilon());
+            }
+        }
+
+        if (renderCooldownTicks > 0) renderCooldownTicks--;
+
+        if (pendingGoal != null) {
+            // Let the goal effect play out before the next episode replaces the terrain
+            if (visualizer != null) {
+                visualizer.updatePosition(pendingGoal.x(), pendingGoal.y() + 1, pendingGoal.z());
+                visualizer.onGoalHit();
+                visualizer.showGoalBreak(pendingGoal.x(), pendingGoal.y(), pendingGoal.z());
+            }
+            pendingGoal = null;
+            renderCooldownTicks = resetDelayTicks;
+            return;
+        }
+
+        if (pendingEpisode != null && renderCooldownTicks == 0 && mirror.isWorldReady()) {
+            mirror.mirror(pendingEpisode.layout());
+            renderedEpisode = pendingEpisode.episode();
+            if (visualizer != null) {
+                visualizer.teleportTo(pendingEpisode.agentX(), pendingEpisode.agentY(), pendingEpisode.agentZ());
+            }
+            pendingEpisode = null;
+            renderCooldownTicks = resetDelayTicks;
+        }
+
+        if (visualizer != null && latestMove != null && latestMove.episode() == renderedEpisode) {
+            visualizer.updatePosition(latestMove.x(), latestMove.y(), latestMove.z());
+        }
+    }
+
+    private void addGraphPoint(double movingAvgReward, double epsilon) {
+        if (graph == null) return;
+        graph.addAvgRewardPoint(movingAvgReward);
+        if (epsilon >= 0.0) {
+            graph.addEpsilonPoint(epsilon);
+        }
+    }
+
+    private boolean finishEpisode(StepOutcome lastStep) {
+        return finishEpisode(policy, lastStep.getReward(), currentEpisodeReward, stepsThisEpisode);
+    }
+
+    private boolean finishEpisode(Policy learner, double lastReward, double episodeReward, int episodeSteps) {
+        boolean success;
+        long completed;
+        synchronized (statsLock) {
+            success = recordEpisode(learner, lastReward, episodeReward, episodeSteps);
+            completed = episodesCompleted;
+        }
+        // Runs on whichever thread steps the policy, so the table isn't written mid-save
+        if (checkpointEveryEpisodes > 0 && completed % checkpointEveryEpisodes == 0) {
+            saveCheckpoint();
         }
+        return success;
     }
 
-    private boolean finishEpisode(StepResult lastStep) {
+    private void saveCheckpoint() {
+        if (!(policy instanceof QLearningPolicy qlp)) return;
+        // Any actor thread may hit the interval; saves must not overlap
+        synchronized (checkpointLock) {
+            try {
+                qlp.saveCheckpoint();
+            } catch (IOException e) {
+                // The next save writes the whole table, so only this one is lost
+                log.log(Level.WARNING, "Failed to save the Q-table checkpoint", e);
+            }
+        }
+    }
+
+    private boolean recordEpisode(Policy learner, double lastReward, double episodeReward, int episodeSteps) {
         episodesCompleted++;
         if (timingReporter != null) {
             timingReporter.recordEpisode();
         }
 
-        boolean success = lastStep.getReward() > 0.0;
+        boolean success = lastReward > 0.0;
 
         if (success) {
             successCount++;
-            totalStepsToGoal += stepsThisEpisode;
-            if (stepsThisEpisode < bestStepsToGoal) bestStepsToGoal = stepsThisEpisode;
+            totalStepsToGoal += episodeSteps;
+            if (episodeSteps < bestStepsToGoal) bestStepsToGoal = episodeSteps;
 
-            // Obvious hit indicator
-            if (visualizer != null) {
+            // Obvious hit indicator (worker mode shows it when the goal update is applied)
+            if (visualizer != null && worker == null) {
                 visualizer.onGoalHit();
             }
         } else {
@@ -205,34 +533,35 @@ public class EpisodeRunner extends BukkitRunnable {
         // recent ring buffer
         if (recentSize < RECENT_WINDOW) recentSize++;
         recentSuccess[recentIndex] = success;
-        recentStepsToGoal[recentIndex] = success ? stepsThisEpisode : -1;
+        recentStepsToGoal[recentIndex] = success ? episodeSteps : -1;
         recentIndex = (recentIndex + 1) % RECENT_WINDOW;
 
         // reward window (for graph)
         if (rewardWindowSize < rewardWindow.length) {
-            rewardWindow[rewardWindowIndex] = currentEpisodeReward;
-            rewardWindowSum += currentEpisodeReward;
+            rewardWindow[rewardWindowIndex] = episodeReward;
+            rewardWindowSum += episodeReward;
             rewardWindowSize++;
             rewardWindowIndex = (rewardWindowIndex + 1) % rewardWindow.length;
         } else {
             double old = rewardWindow[rewardWindowIndex];
-            rewardWindow[rewardWindowIndex] = currentEpisodeReward;
-            rewardWindowSum += (currentEpisodeReward - old);
+            rewardWindow[rewardWindowIndex] = episodeReward;
+            rewardWindowSum += (episodeReward - old);
             rewardWindowIndex = (rewardWindowIndex + 1) % rewardWindow.length;
         }
 
         double movingAvgReward = rewardWindowSum / Math.max(1, rewardWindowSize);
 
         if (graph != null && (episodesCompleted % graphSampleEveryEpisodes == 0)) {
-            graph.addAvgRewardPoint(movingAvgReward);
-
-            if (policy instanceof QLearningPolicy qlp) {
-                graph.addEpsilonPoint(qlp.getEpsilon());
+            double epsilon = learner instanceof QLearningPolicy qlp ? qlp.getEpsilon() : -1.0;
+            if (worker != null) {
+                worldUpdates.add(new WorldUpdate.GraphPoint(episodesCompleted, movingAvgReward, epsilon));
+            } else {
+                addGraphPoint(movingAvgReward, epsilon);
             }
         }
 
-        // Feed adaptive epsilon with recent performance
-        if (policy instanceof QLearningPolicy qlp) {
+        // Feed adaptive epsilon with recent performance (each actor owns its exploration state)
+        if (learner instanceof QLearningPolicy qlp) {
             qlp.updatePerformance(recentSuccessRate());
         }
         return success;
@@ -287,12 +616,46 @@ public class EpisodeRunner extends BukkitRunnable {
 
     public void shutdown() {
         closed = true;
-        cancel();
+        boolean stopped = true;
+        for (Thread thread : trainingThreads()) {
+            try {
+                thread.join(2000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            stopped &= !thread.isAlive();
+        }
+        if (stopped) {
+            saveCheckpoint();
+            policy.close();
+            for (Policy actor : actorPolicies) actor.close();
+        } else {
+            // Its daemon thread still steps the policies, so leave them open for it
+            log.warning("A training thread did not stop within 2s; skipped the checkpoint save and left its policy open");
+        }
         logger.close();
+        reportLogFailure();
+        long dropped = logger.getDroppedTransitions();
+        if (dropped > 0) {
+            log.warning(dropped + " transitions were not logged after writing them failed");
+        }
         if (timingReporter != null) timingReporter.close();
         if (visualizer != null) visualizer.destroy();
     }
 
+    /** Logs the transition writer's failure once; training goes on without logging. */
+    private void reportLogFailure() {
+        Throwable logFailure = logger.getFailure();
+        if (logFailure == null || logFailureReported) return;
+        logFailureReported = true;
+        log.log(Level.SEVERE, "Writing transitions failed; training goes on without logging them", logFailure);
+    }
+
+    /** Saves the policy's checkpoint every given number of finished episodes (0 = only on shutdown). */
+    public void setCheckpointInterval(int episodes) {
+        this.checkpointEveryEpisodes = Math.max(0, episodes);
+    }
+
     public double setStepsPerSecond(double stepsPerSecond) {
         if (stepsPerSecond < MIN_STEPS_PER_SECOND) stepsPerSecond = MIN_STEPS_PER_SECOND;   // 1 step every 10 seconds
         if (stepsPerSecond > maxStepsPerSecond) stepsPerSecond = maxStepsPerSecond; // safety
@@ -326,6 +689,12 @@ public class EpisodeRunner extends BukkitRunnable {
     }
 
     public EpisodeStats snapshotStats() {
+        synchronized (statsLock) {
+            return buildStats();
+        }
+    }
+
+    private EpisodeStats buildStats() {
         double overallSuccessRate = episodesCompleted == 0 ? 0.0 : (successCount / (double) episodesCompleted);
         double overallAvgStepsToGoal = successCount == 0 ? 0.0 : (totalStepsToGoal / (double) successCount);
 
@@ -0,0 +1,14 @@
+package me.evisual.rlenv.control;
+
+/**
+ * Turns an observation into the feature vector a function-approximation policy is linear in.
+ * Implementations write into a caller-owned array and never allocate.
+ */
+public interface FeatureMap
+{
+    /** Length of the feature vector for observations of the given width. */
+    int dimension(int observationSize);
+
+    /** Writes the features of observation into out[0 .. dimension). */
+    void write(double[] observation, float[] out);
+}
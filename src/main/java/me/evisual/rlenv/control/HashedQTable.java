@@ -0,0 +1,107 @@
+package me.evisual.rlenv.control;
+
+import me.evisual.rlenv.util.IntIntHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Q-table backed by an open-addressing key -> row index and one flat double[] of rows.
+ * <p>
+ * Row r occupies values[r * actionCount .. r * actionCount + actionCount - 1].
+ * Lookups and updates allocate nothing; only growth reallocates the value array.
+ */
+public final class HashedQTable implements QTable
+{
+    private static final int MISSING = -1;
+
+    private final int actionCount;
+    private final double initialValue;
+    private final IntIntHashMap rowsByKey;
+
+    private double[] values;
+    private int[] keysByRow;
+    private long[] dirty; // one bit per row, for incremental checkpoints
+    private int rowCount = 0;
+
+    public HashedQTable(int actionCount, double initialValue) {
+        this(actionCount, initialValue, 256);
+    }
+
+    public HashedQTable(int actionCount, double initialValue, int expectedStates) {
+        this.actionCount = actionCount;
+        this.initialValue = initialValue;
+        int capacity = Math.max(16, expectedStates);
+        this.rowsByKey = new IntIntHashMap(capacity);
+        this.values = new double[capacity * actionCount];
+        this.keysByRow = new int[capacity];
+        this.dirty = new long[(capacity + 63) >>> 6];
+    }
+
+    @Override
+    public int row(int stateKey) {
+        int row = rowsByKey.get(stateKey, MISSING);
+        if (row != MISSING) return row;
+
+        row = rowCount++;
+        if (row == keysByRow.length) {
+            int newRows = keysByRow.length << 1;
+            values = Arrays.copyOf(values, newRows * actionCount);
+            keysByRow = Arrays.copyOf(keysByRow, newRows);
+            dirty = Arrays.copyOf(dirty, (newRows + 63) >>> 6);
+        }
+        Arrays.fill(values, row * actionCount, (row + 1) * actionCount, initialValue);
+        keysByRow[row] = stateKey;
+        rowsByKey.put(stateKey, row);
+        dirty[row >>> 6] |= 1L << row;
+        return row;
+    }
+
+    @Override
+    public double get(int row, int action) {
+        return values[row * actionCount + action];
+    }
+
+    @Override
+    public void set(int row, int action, double value) {
+        values[row * actionCount + action] = value;
+        dirty[row >>> 6] |= 1L << row;
+    }
+
+    @Override
+    public int size() {
+        return rowCount;
+    }
+
+    @Override
+    public int actionCount() {
+        return actionCount;
+    }
+
+    @Override
+    public int rowLimit() {
+        return keysByRow.length;
+    }
+
+    @Override
+    public int keyAt(int row) {
+        return row < rowCount ? keysByRow[row] : -1;
+    }
+
+    @Override
+    public boolean isDirty(int row) {
+        return (dirty[row >>> 6] & (1L << row)) != 0;
+    }
+
+    @Override
+    public boolean takeDirty(int row) {
+        long bit = 1L << row;
+        long word = dirty[row >>> 6];
+        dirty[row >>> 6] = word & ~bit;
+        return (word & bit) != 0;
+    }
+
+    @Override
+    public void clearDirty() {
+        Arrays.fill(dirty, 0L);
+    }
+}
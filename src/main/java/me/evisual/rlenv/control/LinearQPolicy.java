@@ -0,0 +1,171 @@
+package me.evisual.rlenv.control;
+
+import me.evisual.rlenv.env.Action;
+import me.evisual.rlenv.env.Observation;
+import me.evisual.rlenv.util.VectorMath;
+
+import java.util.Random;
+
+/**
+ * Q-learning with a linear Q-function: Q(s, a) = w_a · φ(s), for a configurable {@link FeatureMap} φ.
+ * <p>
+ * Unlike the tabular policies, nothing is rounded into a state key and memory is fixed at
+ * actionCount * dimension floats however many states are visited, so it generalizes across
+ * arena sizes and works on arenas too large to tabulate. Weights for action a are the contiguous
+ * slice w[a * dimension ..], and the dot products and updates go through {@link VectorMath}.
+ * <p>
+ * Updates are normalized by |φ(s)|², so alpha doesn't need retuning per feature map.
+ */
+public class LinearQPolicy implements Policy {
+
+    private static final Action[] ACTIONS = Action.values();
+
+    private final FeatureMap features;
+    private final double alpha;
+    private final double gamma;
+    private final double epsilonStart;
+    private final double epsilonEnd;
+    private final long epsilonDecayEpisodes;
+    private final Random rng = new Random();
+
+    private long episodesSeen = 0;
+    private double lastEpsilon;
+
+    // Sized from the first observation
+    private int dimension = -1;
+    private float[] weights;
+    private float[] phi;
+    private float[] nextPhi;
+    private final double[] qValues = new double[ACTIONS.length];
+
+    public LinearQPolicy(FeatureMap features) {
+        this(features, 0.10, 0.95, 0.60, 0.03, 600);
+    }
+
+    public LinearQPolicy(FeatureMap features,
+                         double alpha,
+                         double gamma,
+                         double epsilonStart,
+                         double epsilonEnd,
+                         long epsilonDecayEpisodes) {
+        this.features = features;
+        this.alpha = alpha;
+        this.gamma = gamma;
+        this.epsilonStart = epsilonStart;
+        this.epsilonEnd = epsilonEnd;
+        this.epsilonDecayEpisodes = Math.max(1, epsilonDecayEpisodes);
+        this.lastEpsilon = epsilonStart;
+    }
+
+    @Override
+    public Action chooseAction(Observation observation) {
+        double[] f = observation.getFeatures();
+        ensureSized(f.length);
+        features.write(f, phi);
+
+        int blocked = StateKey.blockedMask(StateKey.encode(f));
+        lastEpsilon = epsilon();
+        if (rng.nextDouble() < lastEpsilon) {
+            return randomValidAction(blocked);
+        }
+        return ACTIONS[greedy(phi, blocked)];
+    }
+
+    @Override
+    public void observeTransition(Observation state,
+                                  Action action,
+                                  double reward,
+                                  Observation nextState,
+                                  boolean done) {
+        double[] f = state.getFeatures();
+        double[] f2 = nextState.getFeatures();
+        ensureSized(f.length);
+        features.write(f, phi);
+
+        double maxNext = 0.0;
+        if (!done) {
+            features.write(f2, nextPhi);
+            int blocked = StateKey.blockedMask(StateKey.encode(f2));
+            maxNext = qValue(greedy(nextPhi, blocked), nextPhi);
+        }
+
+        int a = action.ordinal();
+        double delta = reward + gamma * maxNext - qValue(a, phi);
+        float norm = VectorMath.dot(phi, 0, phi, dimension);
+        if (norm > 0f) {
+            VectorMath.axpy((float) (alpha * delta / norm), phi, weights, a * dimension, dimension);
+        }
+
+        if (done) {
+            episodesSeen++;
+        }
+    }
+
+    public double getEpsilon() {
+        return lastEpsilon;
+    }
+
+    /** Weight count (actions * feature dimension), or 0 before the first observation. */
+    public int getWeightCount() {
+        return weights == null ? 0 : weights.length;
+    }
+
+    public double qValue(Observation observation, Action action) {
+        double[] f = observation.getFeatures();
+        ensureSized(f.length);
+        features.write(f, phi);
+        return qValue(action.ordinal(), phi);
+    }
+
+    private double qValue(int action, float[] x) {
+        return VectorMath.dot(weights, action * dimension, x, dimension);
+    }
+
+    private int greedy(float[] x, int blocked) {
+        int best = -1;
+        double bestVal = -Double.MAX_VALUE;
+        int ties = 0;
+        for (int i = 0; i < ACTIONS.length; i++) {
+            qValues[i] = qValue(i, x);
+        }
+        for (int i = 0; i < ACTIONS.length; i++) {
+            if (isMoveBlocked(i, blocked)) continue;
+            double v = qValues[i];
+            if (v > bestVal) {
+                bestVal = v;
+                best = i;
+                ties = 1;
+            } else if (v == bestVal) {
+                ties++;
+                if (rng.nextInt(ties) == 0) best = i;
+            }
+        }
+        return best == -1 ? Action.STAY.ordinal() : best;
+    }
+
+    private Action randomValidAction(int blocked) {
+        for (int tries = 0; tries < 12; tries++) {
+            int a = rng.nextInt(ACTIONS.length);
+            if (!isMoveBlocked(a, blocked)) return ACTIONS[a];
+        }
+        return Action.STAY;
+    }
+
+    private static boolean isMoveBlocked(int action, int blocked) {
+        // Blocked bits follow Action ordinal order: N, S, E, W. STAY is never blocked.
+        return action != Action.STAY.ordinal() && (blocked & (1 << action)) != 0;
+    }
+
+    private double epsilon() {
+        double t = Math.min(1.0, episodesSeen / (double) epsilonDecayEpisodes);
+        return epsilonStart + t * (epsilonEnd - epsilonStart);
+    }
+
+    private void ensureSized(int observationSize) {
+        if (dimension >= 0) return;
+        dimension = features.dimension(observationSize);
+        weights = new float[ACTIONS.length * dimension];
+        phi = new float[dimension];
+        nextPhi = new float[dimension];
+    }
+}
@@ -0,0 +1,200 @@
+package me.evisual.rlenv.control;
+
+import me.evisual.rlenv.util.VectorMath;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Small fully connected network (ReLU hidden layers, linear output) trained with Adam.
+ * <p>
+ * All parameters live in one flat float array, layer by layer: an out x in row-major weight
+ * matrix followed by its bias vector. Gradients and Adam moments mirror that layout, and
+ * activations and their gradients are preallocated per layer for a maximum batch size, stored
+ * row-major (batch x width). Forward, backward and optimizer steps allocate nothing; only
+ * {@link #ensureBatch} grows the buffers, when a larger batch than ever before is requested.
+ * <p>
+ * Matrix products go through {@link VectorMath} and are blocked over output units and batch
+ * rows, so a block of weight rows stays in cache while every row of the batch uses it.
+ */
+public final class MlpNetwork
+{
+    private static final int BLOCK_OUT = 16;
+    private static final int BLOCK_BATCH = 32;
+    private static final float BETA1 = 0.9f;
+    private static final float BETA2 = 0.999f;
+    private static final float ADAM_EPSILON = 1e-8f;
+
+    private final int[] sizes;
+    private final int[] weightOffset;
+    private final int[] biasOffset;
+    private final float[] params;
+    private final float[] grads;
+    private final float[] adamM;
+    private final float[] adamV;
+    private long adamSteps = 0;
+
+    private int batchCapacity = 0;
+    private final float[][] activations; // [layer][batch * width]; layer 0 is the input
+    private final float[][] deltas;      // gradient of the loss w.r.t. each layer's pre-activation output
+
+    /**
+     * @param sizes layer widths, input first and output last; at least two entries
+     */
+    public MlpNetwork(int[] sizes, Random rng) {
+        if (sizes.length < 2) {
+            throw new IllegalArgumentException("Network needs an input and an output layer");
+        }
+        this.sizes = sizes.clone();
+        int layers = sizes.length - 1;
+        this.weightOffset = new int[layers];
+        this.biasOffset = new int[layers];
+        int count = 0;
+        for (int l = 0; l < layers; l++) {
+            weightOffset[l] = count;
+            count += sizes[l] * sizes[l + 1];
+            biasOffset[l] = count;
+            count += sizes[l + 1];
+        }
+        this.params = new float[count];
+        this.grads = new float[count];
+        this.adamM = new float[count];
+        this.adamV = new float[count];
+        this.activations = new float[sizes.length][];
+        this.deltas = new float[sizes.length][];
+
+        // He initialization suits the ReLU layers; biases start at zero
+        for (int l = 0; l < layers; l++) {
+            float scale = (float) Math.sqrt(2.0 / sizes[l]);
+            for (int i = 0; i < sizes[l] * sizes[l + 1]; i++) {
+                params[weightOffset[l] + i] = (float) rng.nextGaussian() * scale;
+            }
+        }
+        ensureBatch(1);
+    }
+
+    public int inputSize() {
+        return sizes[0];
+    }
+
+    public int outputSize() {
+        return sizes[sizes.length - 1];
+    }
+
+    public int parameterCount() {
+        return params.length;
+    }
+
+    /** Grows the activation buffers so batches up to this size fit. */
+    public void ensureBatch(int batch) {
+        if (batch <= batchCapacity) return;
+        for (int l = 0; l < sizes.length; l++) {
+            activations[l] = new float[batch * sizes[l]];
+            deltas[l] = new float[batch * sizes[l]];
+        }
+        batchCapacity = batch;
+    }
+
+    /** Input buffer (batch x inputSize); fill it, then call {@link #forward}. */
+    public float[] input() {
+        return activations[0];
+    }
+
+    /**
+     * Runs the batch currently in {@link #input()} and returns the output buffer (batch x outputSize).
+     * The returned array is reused by the next call.
+     */
+    public float[] forward(int batch) {
+        int layers = sizes.length - 1;
+        for (int l = 0; l < layers; l++) {
+            int in = sizes[l];
+            int out = sizes[l + 1];
+            float[] x = activations[l];
+            float[] y = activations[l + 1];
+            boolean relu = l + 1 < layers;
+
+            for (int o0 = 0; o0 < out; o0 += BLOCK_OUT) {
+                int o1 = Math.min(out, o0 + BLOCK_OUT);
+                for (int b0 = 0; b0 < batch; b0 += BLOCK_BATCH) {
+                    int b1 = Math.min(batch, b0 + BLOCK_BATCH);
+                    for (int b = b0; b < b1; b++) {
+                        for (int o = o0; o < o1; o++) {
+                            float v = params[biasOffset[l] + o]
+                                    + VectorMath.dot(params, weightOffset[l] + o * in, x, b * in, in);
+                            y[b * out + o] = relu && v < 0f ? 0f : v;
+                        }
+                    }
+                }
+            }
+        }
+        return activations[layers];
+    }
+
+    /** Gradient buffer for the output (batch x outputSize); fill it, then call {@link #backward}. */
+    public float[] outputGradient() {
+        return deltas[sizes.length - 1];
+    }
+
+    /**
+     * Backpropagates {@link #outputGradient()} through the activations of the last
+     * {@link #forward} call, replacing the stored parameter gradients.
+     */
+    public void backward(int batch) {
+        Arrays.fill(grads, 0f);
+        for (int l = sizes.length - 2; l >= 0; l--) {
+            int in = sizes[l];
+            int out = sizes[l + 1];
+            float[] x = activations[l];
+            float[] dy = deltas[l + 1];
+            float[] dx = deltas[l];
+            boolean propagate = l > 0;
+            if (propagate) {
+                Arrays.fill(dx, 0, batch * in, 0f);
+            }
+
+            for (int o0 = 0; o0 < out; o0 += BLOCK_OUT) {
+                int o1 = Math.min(out, o0 + BLOCK_OUT);
+                for (int b = 0; b < batch; b++) {
+                    for (int o = o0; o < o1; o++) {
+                        float g = dy[b * out + o];
+                        if (g == 0f) continue;
+                        grads[biasOffset[l] + o] += g;
+                        VectorMath.axpy(g, x, b * in, grads, weightOffset[l] + o * in, in);
+                        if (propagate) {
+                            VectorMath.axpy(g, params, weightOffset[l] + o * in, dx, b * in, in);
+                        }
+                    }
+                }
+            }
+
+            if (propagate) {
+                // ReLU derivative: nothing flows back through units that were clamped to zero
+                for (int i = 0; i < batch * in; i++) {
+                    if (x[i] <= 0f) dx[i] = 0f;
+                }
+            }
+        }
+    }
+
+    /** One Adam update from the gradients of the last {@link #backward} call. */
+    public void adamStep(float learningRate) {
+        adamSteps++;
+        float correction1 = 1f - (float) Math.pow(BETA1, adamSteps);
+        float correction2 = 1f - (float) Math.pow(BETA2, adamSteps);
+        float step = learningRate * (float) Math.sqrt(correction2) / correction1;
+        for (int i = 0; i < params.length; i++) {
+            float g = grads[i];
+            float m = adamM[i] = BETA1 * adamM[i] + (1f - BETA1) * g;
+            float v = adamV[i] = BETA2 * adamV[i] + (1f - BETA2) * g * g;
+            params[i] -= step * m / ((float) Math.sqrt(v) + ADAM_EPSILON);
+        }
+    }
+
+    /** Copies another network's parameters (same shape) into this one, e.g. to sync a target network. */
+    public void copyParametersFrom(MlpNetwork other) {
+        if (!Arrays.equals(sizes, other.sizes)) {
+            throw new IllegalArgumentException("Network shapes differ");
+        }
+        System.arraycopy(other.params, 0, params, 0, params.length);
+    }
+}
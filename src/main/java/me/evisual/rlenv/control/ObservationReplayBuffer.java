@@ -0,0 +1,106 @@
+package me.evisual.rlenv.control;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+/**
+ * Fixed-capacity ring of past transitions with their full observations, for policies that learn
+ * from raw features instead of packed state keys. Stored off-heap like {@link ReplayBuffer}.
+ * <p>
+ * Each record holds the state and next state as floats, then reward (float), action (byte),
+ * done flag (byte) and the next state's blocked-move mask (byte), padded to 4 bytes.
+ * Once full, the oldest record is overwritten. Not thread-safe; it belongs to the policy that fills it.
+ */
+public final class ObservationReplayBuffer
+{
+    private final ByteBuffer data;
+    private final int capacity;
+    private final int observationSize;
+    private final int recordBytes;
+    private final int nextStateOffset;
+    private final int rewardOffset;
+    private int size = 0;
+    private int head = 0; // next slot to write
+
+    public ObservationReplayBuffer(int capacity, int observationSize) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Replay capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.observationSize = observationSize;
+        this.nextStateOffset = observationSize * Float.BYTES;
+        this.rewardOffset = 2 * observationSize * Float.BYTES;
+        this.recordBytes = rewardOffset + 8;
+        this.data = ByteBuffer.allocateDirect(capacity * recordBytes).order(ByteOrder.nativeOrder());
+    }
+
+    public void add(double[] state, int action, float reward, double[] nextState, int nextBlockedMask, boolean done) {
+        int base = head * recordBytes;
+        for (int i = 0; i < observationSize; i++) {
+            data.putFloat(base + i * Float.BYTES, (float) state[i]);
+            data.putFloat(base + nextStateOffset + i * Float.BYTES, (float) nextState[i]);
+        }
+        data.putFloat(base + rewardOffset, reward);
+        data.put(base + rewardOffset + 4, (byte) action);
+        data.put(base + rewardOffset + 5, (byte) (done ? 1 : 0));
+        data.put(base + rewardOffset + 6, (byte) nextBlockedMask);
+
+        head = head + 1 == capacity ? 0 : head + 1;
+        if (size < capacity) size++;
+    }
+
+    /** Uniformly random record index; the buffer must not be empty. */
+    public int sample(Random rng) {
+        return rng.nextInt(size);
+    }
+
+    /** Copies the record's state into out[offset .. offset + observationSize). */
+    public void readState(int index, float[] out, int offset) {
+        read(index * recordBytes, out, offset);
+    }
+
+    /** Copies the record's next state into out[offset .. offset + observationSize). */
+    public void readNextState(int index, float[] out, int offset) {
+        read(index * recordBytes + nextStateOffset, out, offset);
+    }
+
+    public float reward(int index) {
+        return data.getFloat(index * recordBytes + rewardOffset);
+    }
+
+    public int action(int index) {
+        return data.get(index * recordBytes + rewardOffset + 4);
+    }
+
+    public boolean isDone(int index) {
+        return data.get(index * recordBytes + rewardOffset + 5) != 0;
+    }
+
+    public int nextBlockedMask(int index) {
+        return data.get(index * recordBytes + rewardOffset + 6);
+    }
+
+    public int observationSize() {
+        return observationSize;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public void clear() {
+        size = 0;
+        head = 0;
+    }
+
+    private void read(int base, float[] out, int offset) {
+        for (int i = 0; i < observationSize; i++) {
+            out[offset + i] = data.getFloat(base + i * Float.BYTES);
+        }
+    }
+}
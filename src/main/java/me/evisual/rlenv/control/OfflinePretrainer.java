@@ -0,0 +1,111 @@
+package me.evisual.rlenv.control;
+
+import me.evisual.rlenv.env.Action;
+import me.evisual.rlenv.logging.TransitionScanner;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Trains a {@link QLearningPolicy} from transition logs before it runs anywhere, so a new arena
+ * can start from what earlier runs learned instead of from scratch.
+ * <p>
+ * Every epoch streams the logs from disk again in the order they were written, so logs far larger
+ * than memory work. The time penalty of each transition uses its step index within its episode,
+ * counted per logged environment index, since batched and multi-actor arenas interleave the
+ * episodes of all their environments in one log.
+ * <p>
+ * Logs of a different observation width than the policy's environment, such as ones written by
+ * another environment into the same folder, are skipped and counted rather than failing the run.
+ */
+public final class OfflinePretrainer
+{
+    public record Result(long transitions, int epochs, int stateCount, int skippedLogs, boolean cancelled) {
+    }
+
+    private static final int ACTION_COUNT = Action.values().length;
+
+    private final QLearningPolicy policy;
+    private final List<Path> logs;
+    private final int epochs;
+    private final int width;
+    private volatile boolean cancelled = false;
+
+    /** @param width observation width of the environment the policy is for */
+    public OfflinePretrainer(QLearningPolicy policy, List<Path> logs, int epochs, int width) {
+        this.policy = policy;
+        this.logs = List.copyOf(logs);
+        this.epochs = Math.max(1, epochs);
+        this.width = width;
+    }
+
+    /** Runs {@link #run} on its own thread; the future completes there, or fails with the IOException. */
+    public CompletableFuture<Result> start() {
+        CompletableFuture<Result> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                result.complete(run());
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }, "RLEnv-Pretrain");
+        thread.setDaemon(true);
+        thread.start();
+        return result;
+    }
+
+    /** Stops after the current transition; the policy keeps what it learned so far. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /** Runs every epoch on the calling thread. The policy must not be in use elsewhere meanwhile. */
+    public Result run() throws IOException {
+        TransitionScanner scanner = new TransitionScanner();
+        // Steps so far in each environment's current episode, grown as environment indices show up
+        int[][] stepIndex = { new int[1] };
+        long[] skipped = new long[1];
+        TransitionScanner.Visitor learn = (state, action, reward, nextState, done, env) -> {
+            if (env >= stepIndex[0].length) {
+                stepIndex[0] = Arrays.copyOf(stepIndex[0], Math.max(env + 1, stepIndex[0].length * 2));
+            }
+            int[] steps = stepIndex[0];
+            if (action < ACTION_COUNT) {
+                policy.learnOffline(state, action, reward, nextState, done, steps[env]);
+            } else {
+                skipped[0]++;
+            }
+            steps[env] = done ? 0 : steps[env] + 1;
+            return !cancelled;
+        };
+
+        List<Path> matching = new ArrayList<>(logs.size());
+        int skippedLogs = 0;
+        for (Path log : logs) {
+            int logWidth = scanner.width(log);
+            if (logWidth == width) {
+                matching.add(log);
+            } else if (logWidth >= 0) {
+                skippedLogs++;
+            }
+        }
+
+        long transitions = 0;
+        int epoch = 0;
+        while (epoch < epochs && !cancelled) {
+            // Segments continue each other, so episodes only start over with the epoch
+            Arrays.fill(stepIndex[0], 0);
+            for (Path log : matching) {
+                if (cancelled) break;
+                transitions += scanner.scan(log, learn);
+            }
+            if (!cancelled) epoch++;
+        }
+        return new Result(transitions - skipped[0], epoch, policy.getStateCount(),
+                skippedLogs, cancelled);
+    }
+}
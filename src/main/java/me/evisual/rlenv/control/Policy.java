@@ -19,4 +19,42 @@ public interface Policy
 
     default void onEpisodeEnd() {
     }
+
+    /**
+     * Called when the runner driving this policy stops. Policies with background work stop it here;
+     * the same policy may be handed to a new runner afterwards (progression levels do this).
+     */
+    default void close() {
+    }
+
+    /**
+     * The error that stopped this policy's background work, or null. Runners report it, and the
+     * arena is stopped rather than left training a policy that no longer works as configured.
+     */
+    default Throwable getFailure() {
+        return null;
+    }
+
+    /**
+     * Batch form of {@link #chooseAction(Observation)} for vectorized environments; writes into out.
+     */
+    default void chooseActions(Observation[] observations, Action[] out) {
+        for (int i = 0; i < observations.length; i++) {
+            out[i] = chooseAction(observations[i]);
+        }
+    }
+
+    /**
+     * Batch form of {@link #observeTransition}: index i is the transition of actions[i] taken in states[i].
+     * Each index is its own environment, so per-episode state must be tracked per index.
+     */
+    default void observeTransitions(Observation[] states,
+                                    Action[] actions,
+                                    double[] rewards,
+                                    Observation[] nextStates,
+                                    boolean[] dones) {
+        for (int i = 0; i < states.length; i++) {
+            observeTransition(states[i], actions[i], rewards[i], nextStates[i], dones[i]);
+        }
+    }
 }
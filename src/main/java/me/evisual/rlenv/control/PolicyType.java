@@ -0,0 +1,29 @@
+package me.evisual.rlenv.control;
+
+import java.util.Locale;
+
+public enum PolicyType
+{
+    /** One-step tabular Q-learning. */
+    Q_LEARNING,
+    /** Q-learning plus background planning from a learned model. */
+    DYNA_Q,
+    /** Watkins's Q(λ) with sparse eligibility traces. */
+    Q_LAMBDA,
+    /** Q-learning driven by model backups ordered by TD error. */
+    PRIORITIZED_SWEEPING,
+    /** Q-learning with a linear Q-function over tile-coded or polynomial features. */
+    LINEAR,
+    /** Deep Q-network: a small MLP trained from replay against a target network. */
+    DQN;
+
+    /** Parses a config value such as "dyna-q"; null when unknown. */
+    public static PolicyType fromConfig(String value) {
+        if (value == null) return null;
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
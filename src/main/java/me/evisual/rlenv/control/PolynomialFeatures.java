@@ -0,0 +1,29 @@
+package me.evisual.rlenv.control;
+
+/**
+ * Bias, the raw observation, and every pairwise product (squares included), i.e. a full
+ * degree-2 polynomial basis. Lets a linear Q-function express interactions such as
+ * "goal is east and east is blocked".
+ */
+public final class PolynomialFeatures implements FeatureMap
+{
+    @Override
+    public int dimension(int observationSize) {
+        return 1 + observationSize + observationSize * (observationSize + 1) / 2;
+    }
+
+    @Override
+    public void write(double[] observation, float[] out) {
+        int n = observation.length;
+        out[0] = 1f;
+        for (int i = 0; i < n; i++) {
+            out[1 + i] = (float) observation[i];
+        }
+        int k = 1 + n;
+        for (int i = 0; i < n; i++) {
+            for (int j = i; j < n; j++) {
+                out[k++] = (float) (observation[i] * observation[j]);
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package me.evisual.rlenv.control;
+
+import me.evisual.rlenv.env.Action;
+import me.evisual.rlenv.util.IndexedMaxHeap;
+
+import java.util.Arrays;
+
+/**
+ * Prioritized sweeping on top of the packed state keys used by {@link QLearningPolicy}.
+ * <p>
+ * A tabular model keeps the latest outcome of every (state, action) seen, and a predecessor index
+ * maps each state to the pairs known to lead into it. After every real step the pair's TD error
+ * goes into an indexed max-heap; then up to a fixed number of backups run, largest error first,
+ * each one queueing the predecessors whose error it changed. Value changes (such as a goal that
+ * moved) spread backwards through the model instead of waiting for the agent to revisit states.
+ * <p>
+ * Pair ids are stateKey * actionCount + action, so every structure is a flat primitive array.
+ */
+public class PrioritizedSweepingPolicy extends QLearningPolicy {
+
+    private static final int ACTION_COUNT = Action.values().length;
+    private static final int PAIR_COUNT = StateKey.KEY_SPACE * ACTION_COUNT;
+
+    private static final byte KNOWN = 1;
+    private static final byte DONE = 2;
+
+    private final int backupsPerStep;
+    private final double threshold;
+
+    // Model: latest outcome per pair
+    private final int[] modelNextKey = new int[PAIR_COUNT];
+    private final float[] modelReward = new float[PAIR_COUNT];
+    private final byte[] modelFlags = new byte[PAIR_COUNT];
+
+    // Predecessor index: per-state linked lists of pair ids, in growable edge arrays
+    private final int[] firstEdge = new int[StateKey.KEY_SPACE];
+    private int[] edgePair = new int[1024];
+    private int[] edgeNext = new int[1024];
+    private int edgeCount = 0;
+
+    private final IndexedMaxHeap queue = new IndexedMaxHeap(PAIR_COUNT);
+    private long sweepBackups = 0;
+
+    /**
+     * @param backupsPerStep most model backups run after each real step
+     * @param threshold      pairs whose TD error is at or below this are not queued
+     */
+    public PrioritizedSweepingPolicy(int backupsPerStep, double threshold) {
+        this.backupsPerStep = Math.max(1, backupsPerStep);
+        this.threshold = Math.max(0.0, threshold);
+        Arrays.fill(firstEdge, -1);
+    }
+
+    @Override
+    protected void applyUpdate(int envIndex,
+                               int stateKey,
+                               int row,
+                               int action,
+                               double shapedReward,
+                               int nextStateKey,
+                               int nextRow,
+                               boolean done) {
+        int pair = stateKey * ACTION_COUNT + action;
+        if ((modelFlags[pair] & KNOWN) == 0 || modelNextKey[pair] != nextStateKey) {
+            addPredecessor(nextStateKey, pair);
+        }
+        modelNextKey[pair] = nextStateKey;
+        modelReward[pair] = (float) shapedReward;
+        modelFlags[pair] = (byte) (KNOWN | (done ? DONE : 0));
+
+        double priority = Math.abs(tdError(row, action, shapedReward, nextRow, nextStateKey, done));
+        if (priority > threshold) {
+            queue.offer(pair, priority);
+        }
+        sweep();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getSweepBackups() {
+        return sweepBackups;
+    }
+
+    private void sweep() {
+        for (int i = 0; i < backupsPerStep && !queue.isEmpty(); i++) {
+            int pair = queue.poll();
+            int stateKey = pair / ACTION_COUNT;
+            backup(stateKey, pair % ACTION_COUNT, modelReward[pair],
+                    modelNextKey[pair], (modelFlags[pair] & DONE) != 0);
+            sweepBackups++;
+            queuePredecessors(stateKey);
+        }
+    }
+
+    private void queuePredecessors(int stateKey) {
+        int stateRow = existingRow(stateKey);
+        for (int e = firstEdge[stateKey]; e >= 0; e = edgeNext[e]) {
+            int pred = edgePair[e];
+            // The pair's latest outcome may lead elsewhere by now
+            if (modelNextKey[pred] != stateKey) continue;
+
+            boolean done = (modelFlags[pred] & DONE) != 0;
+            int predRow = existingRow(pred / ACTION_COUNT);
+            double priority = Math.abs(tdError(predRow, pred % ACTION_COUNT, modelReward[pred],
+                    stateRow, stateKey, done));
+            if (priority > threshold) {
+                queue.offer(pred, priority);
+            }
+        }
+    }
+
+    private void addPredecessor(int stateKey, int pair) {
+        for (int e = firstEdge[stateKey]; e >= 0; e = edgeNext[e]) {
+            if (edgePair[e] == pair) return;
+        }
+        if (edgeCount == edgePair.length) {
+            edgePair = Arrays.copyOf(edgePair, edgeCount * 2);
+            edgeNext = Arrays.copyOf(edgeNext, edgeCount * 2);
+        }
+        edgePair[edgeCount] = pair;
+        edgeNext[edgeCount] = firstEdge[stateKey];
+        firstEdge[stateKey] = edgeCount++;
+    }
+}
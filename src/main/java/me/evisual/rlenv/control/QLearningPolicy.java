@@ -3,16 +3,15 @@ package me.evisual.rlenv.control;
 import me.evisual.rlenv.env.Action;
 import me.evisual.rlenv.env.Observation;
 
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
 import java.util.Random;
 
 public class QLearningPolicy implements Policy {
 
     private static final Action[] ACTIONS = Action.values();
 
-    private final Map<String, double[]> q = new HashMap<>();
+    private final QTableStorage storage;
+    private QTable q; // created from the first observation's layout
     private final Random rng = new Random();
 
     // Learning parameters
@@ -29,12 +28,19 @@ public class QLearningPolicy implements Policy {
     private final double timePenaltyBase;   // constant penalty each step (on top of env reward)
     private final double timePenaltySlope;  // grows with step index: penalty += slope * stepIndex
     private int stepIndexInEpisode = 0;
+    private int[] batchStepIndex;           // per-env step index for the batch path
 
     // Improvements
     private final double optimisticInit;    // initial Q value for unseen states
     private final boolean useActionMasking; // respect blocked bits if available
     private final double qMin, qMax;        // clamp Q values for stability
 
+    // Experience replay: extra updates from past transitions after every real step
+    private ReplayBuffer replay;
+    private int replayBatchSize = 0;
+
+    private QTableCheckpoint checkpoint;
+
     // Adaptive epsilon
     private double adaptiveBoost = 0.0;          // added on top of schedule
     private double targetRecentSuccess = 0.90;   // try to keep recent success around this
@@ -71,6 +77,23 @@ public class QLearningPolicy implements Policy {
                            boolean useActionMasking,
                            double qMin,
                            double qMax) {
+        this(alpha, gamma, epsilonStart, epsilonEnd, epsilonDecayEpisodes,
+                timePenaltyBase, timePenaltySlope, optimisticInit, useActionMasking,
+                qMin, qMax, QTableStorage.DENSE);
+    }
+
+    public QLearningPolicy(double alpha,
+                           double gamma,
+                           double epsilonStart,
+                           double epsilonEnd,
+                           long epsilonDecayEpisodes,
+                           double timePenaltyBase,
+                           double timePenaltySlope,
+                           double optimisticInit,
+                           boolean useActionMasking,
+                           double qMin,
+                           double qMax,
+                           QTableStorage storage) {
         this.alpha = alpha;
         this.gamma = gamma;
         this.epsilonStart = epsilonStart;
@@ -83,6 +106,7 @@ public class QLearningPolicy implements Policy {
         this.useActionMasking = useActionMasking;
         this.qMin = qMin;
         this.qMax = qMax;
+        this.storage = storage;
 
         this.adaptiveEpsilon = epsilonStart;
         this.lastEpsilon = epsilonStart;
@@ -90,18 +114,19 @@ public class QLearningPolicy implements Policy {
 
     @Override
     public Action chooseAction(Observation observation) {
-        String key = toStateKey(observation);
-        double[] qValues = q.computeIfAbsent(key, k -> createInitialQ());
+        double[] f = observation.getFeatures();
+        int key = StateKey.encode(f);
+        int row = row(key, f.length);
 
         double eps = effectiveEpsilon();
         lastEpsilon = eps;
 
         // Epsilon-greedy exploration (random valid action)
         if (rng.nextDouble() < eps) {
-            return randomValidAction(observation);
+            return randomValidAction(key);
         }
 
-        int bestIdx = argMaxWithTies(qValues, observation);
+        int bestIdx = argMaxWithTies(row, key);
         return ACTIONS[bestIdx];
     }
 
@@ -111,31 +136,150 @@ public class QLearningPolicy implements Policy {
                                   double reward,
                                   Observation nextState,
                                   boolean done) {
+        learn(state, action, reward, nextState, done, stepIndexInEpisode, 0);
 
+        stepIndexInEpisode++;
+
+        if (done) {
+            stepIndexInEpisode = 0;
+        }
+    }
+
+    @Override
+    public void observeTransitions(Observation[] states,
+                                   Action[] actions,
+                                   double[] rewards,
+                                   Observation[] nextStates,
+                                   boolean[] dones) {
+        if (batchStepIndex == null || batchStepIndex.length != states.length) {
+            batchStepIndex = new int[states.length];
+        }
+        for (int i = 0; i < states.length; i++) {
+            learn(states[i], actions[i], rewards[i], nextStates[i], dones[i], batchStepIndex[i], i);
+            batchStepIndex[i] = dones[i] ? 0 : batchStepIndex[i] + 1;
+        }
+    }
+
+    private void learn(Observation state,
+                       Action action,
+                       double reward,
+                       Observation nextState,
+                       boolean done,
+                       int stepIndex,
+                       int envIndex) {
         // Increasing time cost (stronger pressure for shortest path)
-        double timePenalty = timePenaltyBase + (timePenaltySlope * stepIndexInEpisode);
+        double timePenalty = timePenaltyBase + (timePenaltySlope * stepIndex);
         double shapedReward = reward - timePenalty;
 
-        String sKey = toStateKey(state);
-        String s2Key = toStateKey(nextState);
+        double[] f = state.getFeatures();
+        double[] f2 = nextState.getFeatures();
+        int sKey = StateKey.encode(f);
+        int s2Key = StateKey.encode(f2);
 
-        double[] qs = q.computeIfAbsent(sKey, k -> createInitialQ());
-        double[] qs2 = q.computeIfAbsent(s2Key, k -> createInitialQ());
+        int row = row(sKey, f.length);
+        int nextRow = row(s2Key, f2.length);
 
         int a = action.ordinal();
+        applyUpdate(envIndex, sKey, row, a, shapedReward, s2Key, nextRow, done);
+
+        if (replay != null) {
+            // Stored already shaped, since the step index isn't kept
+            replay.add(sKey, a, (float) shapedReward, s2Key, done);
+            replayBatch();
+        }
 
+        afterUpdate(sKey, a, shapedReward, s2Key, done);
+
+        if (done) {
+            episodesSeen++;
+        }
+    }
+
+    /**
+     * One-step Q-learning backup from a logged transition, shaped like a live one taken at
+     * stepIndex. Unlike live learning it is not replayed, not seen by subclass models or traces,
+     * and counts no episodes, so exploration is left as it was.
+     */
+    public void learnOffline(double[] state, int action, double reward, double[] nextState, boolean done, int stepIndex) {
+        double shapedReward = reward - (timePenaltyBase + timePenaltySlope * stepIndex);
+        int sKey = StateKey.encode(state);
+        int s2Key = StateKey.encode(nextState);
+        int row = row(sKey, state.length);
+        int nextRow = row(s2Key, nextState.length);
+        update(row, action, shapedReward, nextRow, s2Key, done);
+    }
+
+    /**
+     * Learning rule for a real transition. The default is the one-step Q-learning backup;
+     * subclasses that keep per-episode state index it by envIndex (0 outside the batch path).
+     */
+    protected void applyUpdate(int envIndex,
+                               int stateKey,
+                               int row,
+                               int action,
+                               double shapedReward,
+                               int nextStateKey,
+                               int nextRow,
+                               boolean done) {
+        update(row, action, shapedReward, nextRow, nextStateKey, done);
+    }
+
+    /**
+     * Called after every real (environment) update with the already-shaped reward.
+     * Subclasses hook models or traces in here; the default does nothing.
+     */
+    protected void afterUpdate(int stateKey, int action, double shapedReward, int nextStateKey, boolean done) {
+    }
+
+    /**
+     * One Q-learning backup for a transition given as packed state keys. Only valid once the
+     * table exists, i.e. after the first real transition.
+     */
+    protected final void backup(int stateKey, int action, double shapedReward, int nextStateKey, boolean done) {
+        int row = existingRow(stateKey);
+        int nextRow = existingRow(nextStateKey);
+        update(row, action, shapedReward, nextRow, nextStateKey, done);
+    }
+
+    private void update(int row, int a, double shapedReward, int nextRow, int nextKey, boolean done) {
+        addToQ(row, a, tdError(row, a, shapedReward, nextRow, nextKey, done));
+    }
+
+    /** One-step TD error of taking action a in row, against the greedy value of the next state. */
+    protected final double tdError(int row, int a, double shapedReward, int nextRow, int nextKey, boolean done) {
         // If next state has blocked actions, ignore them when computing max
-        double maxNext = done ? 0.0 : maxQ(qs2, nextState);
+        double maxNext = done ? 0.0 : maxQ(nextRow, nextKey);
 
         double target = shapedReward + gamma * maxNext;
+        return target - q.get(row, a);
+    }
 
-        qs[a] = clamp(qs[a] + alpha * (target - qs[a]));
+    /** Moves Q(row, a) by alpha * scale * error, clamped. */
+    protected final void addToQ(int row, int a, double scaledError) {
+        q.addClamped(row, a, alpha * scaledError, qMin, qMax);
+    }
 
-        stepIndexInEpisode++;
+    /** Whether a is (one of) the best unblocked actions for the state right now. */
+    protected final boolean isGreedy(int row, int stateKey, int a) {
+        return q.get(row, a) >= maxQ(row, stateKey);
+    }
 
-        if (done) {
-            episodesSeen++;
-            stepIndexInEpisode = 0;
+    /** Row of a state already in the table. */
+    protected final int existingRow(int stateKey) {
+        return q.row(stateKey);
+    }
+
+    protected final double gamma() {
+        return gamma;
+    }
+
+    private void replayBatch() {
+        ReplayBuffer replay = this.replay;
+        for (int i = 0; i < replayBatchSize; i++) {
+            int index = replay.sample(rng);
+            // Every stored key went through row() once, so the table already accepts it
+            backup(replay.stateKey(index), replay.action(index), replay.reward(index),
+                    replay.nextStateKey(index), replay.isDone(index));
         }
     }
 
@@ -153,58 +297,81 @@ public class QLearningPolicy implements Policy {
     }
 
     public int getStateCount() {
-        return q.size();
+        return q == null ? 0 : q.size();
+    }
+
+    /** Table in use, or null before the first observation. */
+    public QTable getTable() {
+        return q;
+    }
+
+    /**
+     * Learns into a table shared with other actors instead of a private one. Exploration state,
+     * RNG and step counters stay per policy, so each actor thread needs its own instance.
+     */
+    public void shareTable(ConcurrentQTable table) {
+        this.q = table;
+    }
+
+    public double getOptimisticInit() {
+        return optimisticInit;
     }
 
     // -----------------------------
     // Internals
     // -----------------------------
 
-    private double[] createInitialQ() {
-        double[] arr = new double[ACTIONS.length];
-        Arrays.fill(arr, optimisticInit);
-        return arr;
+    private int row(int stateKey, int featureCount) {
+        if (q == null) {
+            q = createTable(featureCount);
+        } else if (q instanceof DenseQTable dense && !dense.layout().accepts(stateKey)) {
+            // Observation layout changed under us; keep what was learned and stop assuming bounds.
+            q = dense.toHashed();
+        }
+        return q.row(stateKey);
     }
 
-    private Action randomValidAction(Observation obs) {
+    private QTable createTable(int featureCount) {
+        StateLayout layout = storage == QTableStorage.DENSE ? StateLayout.detect(featureCount) : null;
+        if (layout != null) {
+            return new DenseQTable(layout, ACTIONS.length, optimisticInit);
+        }
+        return new HashedQTable(ACTIONS.length, optimisticInit);
+    }
+
+    private Action randomValidAction(int stateKey) {
         // If we have blocked bits, avoid choosing blocked moves
-        boolean[] blocked = useActionMasking ? extractBlocked(obs) : null;
+        int blocked = blockedMask(stateKey);
 
-        // Build a small list of allowed actions (no allocations: try a few times then fallback)
+        // Try a few random picks, then fall back (no allocations)
         for (int tries = 0; tries < 12; tries++) {
             Action a = ACTIONS[rng.nextInt(ACTIONS.length)];
-            if (a == Action.STAY) return a; // always valid
-            if (blocked == null) return a;
-
-            if (a == Action.MOVE_NORTH && !blocked[0]) return a;
-            if (a == Action.MOVE_SOUTH && !blocked[1]) return a;
-            if (a == Action.MOVE_EAST  && !blocked[2]) return a;
-            if (a == Action.MOVE_WEST  && !blocked[3]) return a;
+            if (!isMoveBlocked(a, blocked)) return a; // STAY is always valid
         }
 
         // Fallback: pick first unblocked move; else stay
-        if (!blocked[0]) return Action.MOVE_NORTH;
-        if (!blocked[1]) return Action.MOVE_SOUTH;
-        if (!blocked[2]) return Action.MOVE_EAST;
-        if (!blocked[3]) return Action.MOVE_WEST;
+        if (!isMoveBlocked(Action.MOVE_NORTH, blocked)) return Action.MOVE_NORTH;
+        if (!isMoveBlocked(Action.MOVE_SOUTH, blocked)) return Action.MOVE_SOUTH;
+        if (!isMoveBlocked(Action.MOVE_EAST, blocked)) return Action.MOVE_EAST;
+        if (!isMoveBlocked(Action.MOVE_WEST, blocked)) return Action.MOVE_WEST;
         return Action.STAY;
     }
 
-    private int argMaxWithTies(double[] arr, Observation obs) {
-        boolean[] blocked = useActionMasking ? extractBlocked(obs) : null;
+    private int argMaxWithTies(int row, int stateKey) {
+        int blocked = blockedMask(stateKey);
 
         int best = -1;
         double bestVal = -Double.MAX_VALUE;
         int ties = 0;
 
-        for (int i = 0; i < arr.length; i++) {
+        for (int i = 0; i < ACTIONS.length; i++) {
             Action a = ACTIONS[i];
 
-            if (blocked != null && isMoveBlocked(a, blocked)) {
+            if (isMoveBlocked(a, blocked)) {
                 continue;
             }
 
-            double v = arr[i];
+            double v = q.get(row, i);
             if (v > bestVal) {
                 bestVal = v;
                 best = i;
@@ -221,54 +388,36 @@ public class QLearningPolicy implements Policy {
         return best;
     }
 
-    private double maxQ(double[] qValues, Observation nextState) {
-        boolean[] blocked = useActionMasking ? extractBlocked(nextState) : null;
+    private double maxQ(int row, int stateKey) {
+        int blocked = blockedMask(stateKey);
 
         double best = -Double.MAX_VALUE;
         boolean found = false;
 
-        for (int i = 0; i < qValues.length; i++) {
-            Action a = ACTIONS[i];
-            if (blocked != null && isMoveBlocked(a, blocked)) continue;
+        for (int i = 0; i < ACTIONS.length; i++) {
+            if (isMoveBlocked(ACTIONS[i], blocked)) continue;
 
-            best = Math.max(best, qValues[i]);
+            best = Math.max(best, q.get(row, i));
             found = true;
         }
 
         return found ? best : 0.0;
     }
 
-    private boolean isMoveBlocked(Action a, boolean[] blocked) {
-        return (a == Action.MOVE_NORTH && blocked[0])
-                || (a == Action.MOVE_SOUTH && blocked[1])
-                || (a == Action.MOVE_EAST  && blocked[2])
-                || (a == Action.MOVE_WEST  && blocked[3]);
-    }
-
     /**
-     * Extract "blocked" bits if observation includes them.
+     * Blocked-move mask for the state, or 0 when masking is off.
      * <p>
      * Supports both:
      * - GoldCollectorEnvironment observation: dx,dz,dy,dist, blockedN,blockedS,blockedE,blockedW
-     * - Progression observation: dx,dz,dist (no blocked bits)
+     * - Progression observation: dx,dz,dist (no blocked bits, so nothing is masked)
      */
-    private boolean[] extractBlocked(Observation obs) {
-        double[] f = obs.getFeatures();
-
-        // If it's the short progression observation, no blocking info
-        // progression: [dx, dz, dist] -> length 3
-        if (f.length < 8) return null;
-
-        // assume layout: ... then 4 blocked bits at the end or starting at index 4
-        // In your GoldCollectorEnvironment earlier: indexes 4..7 were blocked
-        int start = 4;
-        return new boolean[]{
-                f[start] >= 0.5,
-                f[start + 1] >= 0.5,
-                f[start + 2] >= 0.5,
-                f[start + 3] >= 0.5
-        };
+    private int blockedMask(int stateKey) {
+        return useActionMasking ? StateKey.blockedMask(stateKey) : 0;
+    }
 
+    private boolean isMoveBlocked(Action a, int blockedMask) {
+        // Blocked bits follow Action ordinal order: N, S, E, W. STAY is never blocked.
+        return a != Action.STAY && (blockedMask & (1 << a.ordinal())) != 0;
     }
 
     private double currentEpsilon() {
@@ -290,52 +439,10 @@ public class QLearningPolicy implements Policy {
         return current + t * (target - current);
     }
 
-    /**
-     * State key that works for both of your environments:
-     * - Progression: [dx, dz, dist]
-     * - GoldCollector: [dx, dz, dy, dist, blocked...]
-     */
-    private String toStateKey(Observation obs) {
-        double[] f = obs.getFeatures();
-
-        int idx = 0;
-
-        int dx = clampInt((int) Math.round(f[idx++]), -1, 1);
-        int dz = clampInt((int) Math.round(f[idx++]), -1, 1);
-
-        int dy = 0;
-        // If we have >=4, assume dx,dz,dy,dist
-        // If we have 3, assume dx,dz,dist
-        boolean hasDy = f.length >= 4;
-        if (hasDy) {
-            dy = clampInt((int) Math.round(f[idx++]), -1, 1);
-        }
-
-        double distVal = f[idx++];
-        int distBin = (int) Math.floor(clamp01(distVal) * 8.0); // finer bins than 6
-        if (distBin >= 8) distBin = 7;
-
-        StringBuilder sb = new StringBuilder(64);
-        sb.append(dx).append(',').append(dz).append(',').append(dy).append(',').append(distBin);
-
-        // Include blocked bits if present (helps state discrimination)
-        if (f.length >= 8) {
-            for (int i = 4; i < 8; i++) {
-                sb.append(',').append(f[i] >= 0.5 ? 1 : 0);
-            }
-        }
-
-        return sb.toString();
-    }
-
     private double clamp01(double v) {
         return Math.max(0.0, Math.min(1.0, v));
     }
 
-    private int clampInt(int v, int min, int max) {
-        return Math.max(min, Math.min(max, v));
-    }
-
     private double effectiveEpsilon() {
         // Performance-driven epsilon that can drop faster if success improves.
         double eps = adaptiveEpsilon + adaptiveBoost + tempBoost;
@@ -344,6 +451,54 @@ public class QLearningPolicy implements Policy {
         return eps;
     }
 
+    /**
+     * Keeps every real transition in buffer and replays batchSize random ones after each step,
+     * so every (expensive) environment step is learned from many times. Pass null to turn it off.
+     */
+    public void enableReplay(ReplayBuffer buffer, int batchSize) {
+        this.replay = buffer;
+        this.replayBatchSize = buffer == null ? 0 : Math.max(0, batchSize);
+    }
+
+    public ReplayBuffer getReplay() {
+        return replay;
+    }
+
+    /**
+     * Saves to the given checkpoint from now on and, if it already holds a table, resumes from it
+     * (table, episode count and exploration state).
+     *
+     * @return true if learned state was restored
+     */
+    public boolean attachCheckpoint(QTableCheckpoint checkpoint) throws IOException {
+        this.checkpoint = checkpoint;
+        QTableCheckpoint.Snapshot snapshot = checkpoint.load(optimisticInit);
+        if (snapshot == null) return false;
+
+        QTable table = snapshot.table();
+        if (storage == QTableStorage.HASHED && table instanceof DenseQTable dense) {
+            table = dense.toHashed();
+        }
+        q = table;
+
+        QTableCheckpoint.LearnerState state = snapshot.state();
+        episodesSeen = state.episodesSeen();
+        adaptiveEpsilon = state.adaptiveEpsilon();
+        adaptiveBoost = state.adaptiveBoost();
+        tempBoost = state.tempBoost();
+        tempBoostStep = state.tempBoostStep();
+        tempBoostRemaining = state.tempBoostRemaining();
+        lastEpsilon = state.lastEpsilon();
+        return true;
+    }
+
+    /** Writes the table to the attached checkpoint; does nothing without one or before learning starts. */
+    public void saveCheckpoint() throws IOException {
+        if (checkpoint == null || q == null) return;
+        checkpoint.save(q, new QTableCheckpoint.LearnerState(episodesSeen, adaptiveEpsilon, adaptiveBoost,
+                tempBoost, tempBoostStep, tempBoostRemaining, lastEpsilon));
+    }
+
     public void updatePerformance(double recentSuccessRate) {
         // If performance is below target, increase boost; if above, decay boost.
         double error = (targetRecentSuccess - recentSuccessRate); // positive => struggling
@@ -0,0 +1,47 @@
+package me.evisual.rlenv.control;
+
+/**
+ * Storage for tabular action values, addressed by packed {@link StateKey} ints.
+ * <p>
+ * A state's values live in a "row"; row ids are stable for the lifetime of the table,
+ * so callers may cache them between calls.
+ */
+public interface QTable
+{
+    /**
+     * Returns the row for the given state key, creating it with the initial value if needed.
+     */
+    int row(int stateKey);
+
+    double get(int row, int action);
+
+    void set(int row, int action, double value);
+
+    /**
+     * Adds delta to a value and clamps the result to [min, max]. Tables shared between threads
+     * do this atomically; the default is a plain read-modify-write.
+     */
+    default void addClamped(int row, int action, double delta, double min, double max) {
+        double v = get(row, action) + delta;
+        set(row, action, v < min ? min : Math.min(v, max));
+    }
+
+    /** Number of distinct states stored. */
+    int size();
+
+    int actionCount();
+
+    /** Exclusive upper bound of the row ids currently allocated (some may be unused). */
+    int rowLimit();
+
+    /** State key stored in the given row, or -1 if the row is unused. */
+    int keyAt(int row);
+
+    /** Whether the row was created or written since its dirty bit was last cleared. */
+    boolean isDirty(int row);
+
+    /** Clears the row's dirty bit and returns whether it was set. */
+    boolean takeDirty(int row);
+
+    void clearDirty();
+}
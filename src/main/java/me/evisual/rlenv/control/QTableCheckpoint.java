@@ -0,0 +1,220 @@
+package me.evisual.rlenv.control;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary Q-table checkpoint, written and read through a memory-mapped file.
+ * <p>
+ * Layout (little-endian): a fixed header with the learner state, then one int key per row slot
+ * (-1 = unused) and one block of actionCount doubles per slot. Slots are the table's row ids, so
+ * loading is two bulk copies out of the mapping plus re-inserting the keys, with no parsing.
+ * <p>
+ * Saves go to a sibling ".tmp" file that is then renamed over the checkpoint, so a crash never
+ * leaves a half-written file. While the same table keeps being saved, the tmp file starts as a
+ * copy of the last checkpoint and only rows dirtied since then are rewritten.
+ */
+public final class QTableCheckpoint
+{
+    private static final int MAGIC = 0x524C5154; // "RLQT"
+    private static final int VERSION = 1;
+
+    private static final int OFF_MAGIC = 0;
+    private static final int OFF_VERSION = 4;
+    private static final int OFF_ACTIONS = 8;
+    private static final int OFF_SLOTS = 12;
+    private static final int OFF_LAYOUT = 16;
+    private static final int OFF_BOOST_REMAINING = 20;
+    private static final int OFF_EPISODES = 24;
+    private static final int OFF_ADAPTIVE_EPSILON = 32;
+    private static final int OFF_ADAPTIVE_BOOST = 40;
+    private static final int OFF_TEMP_BOOST = 48;
+    private static final int OFF_TEMP_BOOST_STEP = 56;
+    private static final int OFF_LAST_EPSILON = 64;
+    private static final int HEADER_BYTES = 72;
+
+    /** Exploration state saved next to the table, so a resumed run doesn't restart exploring. */
+    public record LearnerState(long episodesSeen,
+                               double adaptiveEpsilon,
+                               double adaptiveBoost,
+                               double tempBoost,
+                               double tempBoostStep,
+                               int tempBoostRemaining,
+                               double lastEpsilon) {
+    }
+
+    public record Snapshot(QTable table, LearnerState state) {
+    }
+
+    private final Path file;
+    private final Path tmpFile;
+
+    // What the file on disk currently holds, to decide whether a save can be incremental
+    private QTable savedTable;
+    private int savedSlots;
+
+    public QTableCheckpoint(Path file) {
+        this.file = file;
+        this.tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    public boolean exists() {
+        return Files.isRegularFile(file);
+    }
+
+    /**
+     * Writes the table and learner state, clearing the dirty bit of every row it writes. After a
+     * failed save the next one rewrites the whole table.
+     */
+    public void save(QTable table, LearnerState state) throws IOException {
+        int slots = table.rowLimit();
+        int actions = table.actionCount();
+        boolean incremental = table == savedTable && slots == savedSlots && exists();
+
+        try {
+            if (incremental) {
+                Files.copy(file, tmpFile, StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.deleteIfExists(tmpFile);
+            }
+
+            long size = valuesOffset(slots) + (long) slots * actions * Double.BYTES;
+            try (FileChannel channel = FileChannel.open(tmpFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                map.order(ByteOrder.LITTLE_ENDIAN);
+
+                if (!incremental) {
+                    // Cleared before reading, so a row written during the save stays dirty for the next one
+                    table.clearDirty();
+                }
+                writeHeader(map, table, state, slots);
+                long keysOffset = HEADER_BYTES;
+                long valuesOffset = valuesOffset(slots);
+                for (int row = 0; row < slots; row++) {
+                    if (incremental && !table.takeDirty(row)) continue;
+
+                    int key = table.keyAt(row);
+                    map.putInt((int) (keysOffset + (long) row * Integer.BYTES), key);
+                    if (key < 0) continue;
+
+                    int base = (int) (valuesOffset + (long) row * actions * Double.BYTES);
+                    for (int a = 0; a < actions; a++) {
+                        map.putDouble(base + a * Double.BYTES, table.get(row, a));
+                    }
+                }
+                map.force();
+            }
+
+            try {
+                Files.move(tmpFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Rows taken as dirty above may not have reached the disk, so the next save is a full one
+            savedTable = null;
+            try {
+                Files.deleteIfExists(tmpFile);
+            } catch (IOException cleanup) {
+                e.addSuppressed(cleanup);
+            }
+            throw e;
+        }
+
+        savedTable = table;
+        savedSlots = slots;
+    }
+
+    /**
+     * Maps the checkpoint and rebuilds its table, or returns null when there is no checkpoint yet.
+     *
+     * @param initialValue value for table cells the checkpoint doesn't cover
+     * @throws IOException if the file is unreadable, truncated or not a checkpoint
+     */
+    public Snapshot load(double initialValue) throws IOException {
+        if (!exists()) return null;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw new IOException("Checkpoint " + file + " is truncated");
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (map.getInt(OFF_MAGIC) != MAGIC || map.getInt(OFF_VERSION) != VERSION) {
+                throw new IOException("Checkpoint " + file + " has an unknown format");
+            }
+            int actions = map.getInt(OFF_ACTIONS);
+            int slots = map.getInt(OFF_SLOTS);
+            int layoutOrdinal = map.getInt(OFF_LAYOUT);
+            long valuesOffset = valuesOffset(slots);
+            if (actions < 1 || slots < 0 || fileSize < valuesOffset + (long) slots * actions * Double.BYTES) {
+                throw new IOException("Checkpoint " + file + " is truncated");
+            }
+
+            int[] keys = new int[slots];
+            double[] values = new double[slots * actions];
+            map.slice(HEADER_BYTES, slots * Integer.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(keys);
+            map.slice((int) valuesOffset, values.length * Double.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(values);
+
+            StateLayout[] layouts = StateLayout.values();
+            QTable table = layoutOrdinal >= 0 && layoutOrdinal < layouts.length
+                    ? new DenseQTable(layouts[layoutOrdinal], actions, initialValue)
+                    : new HashedQTable(actions, initialValue, Math.max(16, slots));
+
+            for (int slot = 0; slot < slots; slot++) {
+                if (keys[slot] < 0) continue;
+                int row = table.row(keys[slot]);
+                for (int a = 0; a < actions; a++) {
+                    table.set(row, a, values[slot * actions + a]);
+                }
+            }
+
+            LearnerState state = new LearnerState(
+                    map.getLong(OFF_EPISODES),
+                    map.getDouble(OFF_ADAPTIVE_EPSILON),
+                    map.getDouble(OFF_ADAPTIVE_BOOST),
+                    map.getDouble(OFF_TEMP_BOOST),
+                    map.getDouble(OFF_TEMP_BOOST_STEP),
+                    map.getInt(OFF_BOOST_REMAINING),
+                    map.getDouble(OFF_LAST_EPSILON)
+            );
+            return new Snapshot(table, state);
+        }
+    }
+
+    private static void writeHeader(MappedByteBuffer map, QTable table, LearnerState state, int slots) {
+        map.putInt(OFF_MAGIC, MAGIC);
+        map.putInt(OFF_VERSION, VERSION);
+        map.putInt(OFF_ACTIONS, table.actionCount());
+        map.putInt(OFF_SLOTS, slots);
+        map.putInt(OFF_LAYOUT, table instanceof DenseQTable dense ? dense.layout().ordinal() : -1);
+        map.putInt(OFF_BOOST_REMAINING, state.tempBoostRemaining());
+        map.putLong(OFF_EPISODES, state.episodesSeen());
+        map.putDouble(OFF_ADAPTIVE_EPSILON, state.adaptiveEpsilon());
+        map.putDouble(OFF_ADAPTIVE_BOOST, state.adaptiveBoost());
+        map.putDouble(OFF_TEMP_BOOST, state.tempBoost());
+        map.putDouble(OFF_TEMP_BOOST_STEP, state.tempBoostStep());
+        map.putDouble(OFF_LAST_EPSILON, state.lastEpsilon());
+    }
+
+    private static long valuesOffset(int slots) {
+        long keysEnd = HEADER_BYTES + (long) slots * Integer.BYTES;
+        return (keysEnd + 7) & ~7L;
+    }
+}
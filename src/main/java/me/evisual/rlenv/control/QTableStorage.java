@@ -0,0 +1,9 @@
+package me.evisual.rlenv.control;
+
+public enum QTableStorage
+{
+    /** Direct-indexed table when the observation layout is known; hashed otherwise. */
+    DENSE,
+    /** Always use the open-addressing hashed table. */
+    HASHED
+}
@@ -0,0 +1,18 @@
+package me.evisual.rlenv.control;
+
+/** Bias term followed by the observation as-is. */
+public final class RawFeatures implements FeatureMap
+{
+    @Override
+    public int dimension(int observationSize) {
+        return 1 + observationSize;
+    }
+
+    @Override
+    public void write(double[] observation, float[] out) {
+        out[0] = 1f;
+        for (int i = 0; i < observation.length; i++) {
+            out[1 + i] = (float) observation[i];
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package me.evisual.rlenv.control;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+/**
+ * Fixed-capacity ring of past transitions, stored off-heap so a large buffer adds nothing to GC work.
+ * <p>
+ * Each record is 16 bytes: state key (int), next state key (int), reward (float), action (byte),
+ * done flag (byte), 2 bytes padding. Once full, the oldest record is overwritten.
+ * Not thread-safe; it belongs to the policy that fills it.
+ */
+public final class ReplayBuffer
+{
+    private static final int RECORD_BYTES = 16;
+    private static final int STATE = 0;
+    private static final int NEXT_STATE = 4;
+    private static final int REWARD = 8;
+    private static final int ACTION = 12;
+    private static final int DONE = 13;
+
+    private final ByteBuffer data;
+    private final int capacity;
+    private int size = 0;
+    private int head = 0; // next slot to write
+
+    public ReplayBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Replay capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.data = ByteBuffer.allocateDirect(capacity * RECORD_BYTES).order(ByteOrder.nativeOrder());
+    }
+
+    public void add(int stateKey, int action, float reward, int nextStateKey, boolean done) {
+        int base = head * RECORD_BYTES;
+        data.putInt(base + STATE, stateKey);
+        data.putInt(base + NEXT_STATE, nextStateKey);
+        data.putFloat(base + REWARD, reward);
+        data.put(base + ACTION, (byte) action);
+        data.put(base + DONE, (byte) (done ? 1 : 0));
+
+        head = head + 1 == capacity ? 0 : head + 1;
+        if (size < capacity) size++;
+    }
+
+    /** Uniformly random record index; the buffer must not be empty. */
+    public int sample(Random rng) {
+        return rng.nextInt(size);
+    }
+
+    public int stateKey(int index) {
+        return data.getInt(index * RECORD_BYTES + STATE);
+    }
+
+    public int nextStateKey(int index) {
+        return data.getInt(index * RECORD_BYTES + NEXT_STATE);
+    }
+
+    public float reward(int index) {
+        return data.getFloat(index * RECORD_BYTES + REWARD);
+    }
+
+    public int action(int index) {
+        return data.get(index * RECORD_BYTES + ACTION);
+    }
+
+    public boolean isDone(int index) {
+        return data.get(index * RECORD_BYTES + DONE) != 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public void clear() {
+        size = 0;
+        head = 0;
+    }
+}
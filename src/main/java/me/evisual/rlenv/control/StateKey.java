@@ -0,0 +1,112 @@
+package me.evisual.rlenv.control;
+
+/**
+ * Packs the discretized observation used by the tabular policies into a single int.
+ * <p>
+ * Layout (low bits first):
+ * <pre>
+ *   bits 0-1   dx + 1        (0..2)
+ *   bits 2-3   dz + 1        (0..2)
+ *   bits 4-5   dy + 1        (0..2, 1 when the observation has no dy)
+ *   bits 6-8   distance bin  (0..7)
+ *   bits 9-12  blocked N,S,E,W
+ *   bit  13    blocked bits present
+ * </pre>
+ * Works for both environments:
+ * - Progression: [dx, dz, dist]
+ * - GoldCollector: [dx, dz, dy, dist, blockedN, blockedS, blockedE, blockedW]
+ */
+public final class StateKey
+{
+    public static final int DIST_BINS = 8;
+
+    private static final int DZ_SHIFT = 2;
+    private static final int DY_SHIFT = 4;
+    private static final int DIST_SHIFT = 6;
+    private static final int BLOCKED_SHIFT = 9;
+    private static final int HAS_BLOCKED = 1 << 13;
+
+    /** Exclusive upper bound of every key produced by {@link #encode(double[])}. */
+    public static final int KEY_SPACE = HAS_BLOCKED << 1;
+
+    private StateKey() {
+    }
+
+    public static int encode(double[] f) {
+        int idx = 0;
+
+        int dx = clampInt((int) Math.round(f[idx++]), -1, 1);
+        int dz = clampInt((int) Math.round(f[idx++]), -1, 1);
+
+        int dy = 0;
+        // If we have >=4, assume dx,dz,dy,dist
+        // If we have 3, assume dx,dz,dist
+        if (f.length >= 4) {
+            dy = clampInt((int) Math.round(f[idx++]), -1, 1);
+        }
+
+        double distVal = f[idx];
+        int distBin = (int) Math.floor(clamp01(distVal) * DIST_BINS);
+        if (distBin >= DIST_BINS) distBin = DIST_BINS - 1;
+
+        // Include blocked bits if present (helps state discrimination)
+        boolean hasBlocked = f.length >= 8;
+        int blocked = 0;
+        if (hasBlocked) {
+            for (int i = 0; i < 4; i++) {
+                if (f[4 + i] >= 0.5) blocked |= 1 << i;
+            }
+        }
+        return pack(dx, dz, dy, distBin, hasBlocked, blocked);
+    }
+
+    /**
+     * Builds a key from already-discretized fields (dx/dz/dy in -1..1, distBin in 0..7).
+     */
+    public static int pack(int dx, int dz, int dy, int distBin, boolean hasBlocked, int blockedMask) {
+        int key = (dx + 1)
+                | ((dz + 1) << DZ_SHIFT)
+                | ((dy + 1) << DY_SHIFT)
+                | (distBin << DIST_SHIFT);
+        if (hasBlocked) {
+            key |= HAS_BLOCKED | ((blockedMask & 0xF) << BLOCKED_SHIFT);
+        }
+        return key;
+    }
+
+    public static boolean hasBlockedBits(int key) {
+        return (key & HAS_BLOCKED) != 0;
+    }
+
+    /**
+     * Blocked moves as a bitmask in {@link me.evisual.rlenv.env.Action} ordinal order
+     * (bit 0 = north, 1 = south, 2 = east, 3 = west). Zero when the key carries no blocked bits.
+     */
+    public static int blockedMask(int key) {
+        return (key >>> BLOCKED_SHIFT) & 0xF;
+    }
+
+    public static int dx(int key) {
+        return (key & 0x3) - 1;
+    }
+
+    public static int dz(int key) {
+        return ((key >>> DZ_SHIFT) & 0x3) - 1;
+    }
+
+    public static int dy(int key) {
+        return ((key >>> DY_SHIFT) & 0x3) - 1;
+    }
+
+    public static int distBin(int key) {
+        return (key >>> DIST_SHIFT) & 0x7;
+    }
+
+    private static double clamp01(double v) {
+        return Math.max(0.0, Math.min(1.0, v));
+    }
+
+    private static int clampInt(int v, int min, int max) {
+        return Math.max(min, Math.min(max, v));
+    }
+}
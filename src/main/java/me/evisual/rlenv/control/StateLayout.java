@@ -0,0 +1,77 @@
+package me.evisual.rlenv.control;
+
+/**
+ * Bounded observation layouts whose {@link StateKey}s map onto a dense index with no hashing.
+ * <p>
+ * The index is a mixed-radix multiply-add over the key fields, so every state of a layout
+ * gets its own slot in [0, stateCount()).
+ */
+public enum StateLayout
+{
+    /** ProgressionGoldEnvironment: [dx, dz, dist] -> 3 * 3 * 8 states. */
+    PROGRESSION(3, 3 * 3 * StateKey.DIST_BINS),
+
+    /** GoldCollectorEnvironment: [dx, dz, dy, dist, blocked x4] -> 3 * 3 * 3 * 8 * 16 states. */
+    GOLD_COLLECTOR(8, 3 * 3 * 3 * StateKey.DIST_BINS * 16);
+
+    private final int featureCount;
+    private final int stateCount;
+
+    StateLayout(int featureCount, int stateCount) {
+        this.featureCount = featureCount;
+        this.stateCount = stateCount;
+    }
+
+    /**
+     * Layout for observations of the given width, or null if it is not a known bounded layout.
+     */
+    public static StateLayout detect(int featureCount) {
+        for (StateLayout layout : values()) {
+            if (layout.featureCount == featureCount) return layout;
+        }
+        return null;
+    }
+
+    public int featureCount() {
+        return featureCount;
+    }
+
+    public int stateCount() {
+        return stateCount;
+    }
+
+    /** True if the key was produced from an observation with this layout. */
+    public boolean accepts(int key) {
+        if (this == GOLD_COLLECTOR) return StateKey.hasBlockedBits(key);
+        return !StateKey.hasBlockedBits(key) && StateKey.dy(key) == 0;
+    }
+
+    public int index(int key) {
+        int i = (StateKey.dx(key) + 1) * 3 + (StateKey.dz(key) + 1);
+        if (this == GOLD_COLLECTOR) {
+            i = i * 3 + (StateKey.dy(key) + 1);
+            return (i * StateKey.DIST_BINS + StateKey.distBin(key)) * 16 + StateKey.blockedMask(key);
+        }
+        return i * StateKey.DIST_BINS + StateKey.distBin(key);
+    }
+
+    /** Inverse of {@link #index(int)}. */
+    public int keyAt(int index) {
+        int rest = index;
+        int blocked = 0;
+        if (this == GOLD_COLLECTOR) {
+            blocked = rest % 16;
+            rest /= 16;
+        }
+        int distBin = rest % StateKey.DIST_BINS;
+        rest /= StateKey.DIST_BINS;
+        int dy = 0;
+        if (this == GOLD_COLLECTOR) {
+            dy = (rest % 3) - 1;
+            rest /= 3;
+        }
+        int dz = (rest % 3) - 1;
+        int dx = (rest / 3) - 1;
+        return StateKey.pack(dx, dz, dy, distBin, this == GOLD_COLLECTOR, blocked);
+    }
+}
@@ -0,0 +1,91 @@
+package me.evisual.rlenv.control;
+
+/**
+ * Decides how many environment steps fit into a server tick, given a time budget per tick.
+ * <p>
+ * Step cost is a moving average of recent steps, and the budget divided by it is the step count
+ * for the tick. The tick interval (start to start) is averaged too: while it stays above the
+ * nominal 50 ms the server is falling behind, so the budget is halved each tick until the interval
+ * recovers, then grows back towards the configured value a little per tick.
+ * <p>
+ * Times are passed in rather than read here, so the logic runs the same in tests. Main thread only.
+ */
+public final class TickBudget
+{
+    public static final long TICK_NANOS = 50_000_000L;
+
+    private static final double LAG_THRESHOLD_NANOS = TICK_NANOS * 1.1;
+    private static final long MAX_INTERVAL_SAMPLE_NANOS = TICK_NANOS * 4;
+    private static final double INTERVAL_SMOOTHING = 0.2;
+    private static final double STEP_COST_SMOOTHING = 0.1;
+    private static final int RECOVERY_TICKS = 20;
+
+    private final long budgetNanos;
+    private final long minBudgetNanos;
+    private long currentBudgetNanos;
+
+    private long lastTickStart = -1L;
+    private double averageIntervalNanos = TICK_NANOS;
+    private double averageStepNanos = 0.0;
+
+    /**
+     * @param budgetNanos most time spent stepping per tick while the server keeps up
+     */
+    public TickBudget(long budgetNanos) {
+        this.budgetNanos = Math.max(1L, budgetNanos);
+        this.minBudgetNanos = Math.max(1L, this.budgetNanos / 16);
+        this.currentBudgetNanos = this.budgetNanos;
+    }
+
+    /**
+     * Starts a tick: folds the interval since the previous tick into the lag estimate and adjusts
+     * the budget.
+     */
+    public void beginTick(long nowNanos) {
+        if (lastTickStart >= 0) {
+            long interval = Math.min(nowNanos - lastTickStart, MAX_INTERVAL_SAMPLE_NANOS);
+            averageIntervalNanos += INTERVAL_SMOOTHING * (interval - averageIntervalNanos);
+
+            if (averageIntervalNanos > LAG_THRESHOLD_NANOS) {
+                currentBudgetNanos = Math.max(minBudgetNanos, currentBudgetNanos / 2);
+            } else {
+                currentBudgetNanos = Math.min(budgetNanos, currentBudgetNanos + budgetNanos / RECOVERY_TICKS);
+            }
+        }
+        lastTickStart = nowNanos;
+    }
+
+    /**
+     * Steps that fit in this tick's budget at the average cost; at least 1, so training keeps
+     * moving (and the cost gets measured) even while the server lags.
+     */
+    public int stepsThatFit() {
+        if (averageStepNanos <= 0.0) return 1;
+        return (int) Math.max(1L, Math.min(Integer.MAX_VALUE, (long) (currentBudgetNanos / averageStepNanos)));
+    }
+
+    /** Records how long a run of steps took, to refine the step cost estimate. */
+    public void recordSteps(int steps, long elapsedNanos) {
+        if (steps <= 0) return;
+        double perStep = elapsedNanos / (double) steps;
+        averageStepNanos = averageStepNanos == 0.0
+                ? perStep
+                : averageStepNanos + STEP_COST_SMOOTHING * (perStep - averageStepNanos);
+    }
+
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    public long getCurrentBudgetNanos() {
+        return currentBudgetNanos;
+    }
+
+    public double getAverageStepNanos() {
+        return averageStepNanos;
+    }
+
+    public double getAverageTickIntervalNanos() {
+        return averageIntervalNanos;
+    }
+}
@@ -0,0 +1,45 @@
+package me.evisual.rlenv.control;
+
+import java.util.Arrays;
+
+/**
+ * Bias plus one-dimensional tile coding of every observation value over [-1, 1].
+ * <p>
+ * Each value is covered by several offset tilings, and each tiling sets exactly one active
+ * tile, so a continuous signal like the normalized goal distance keeps its resolution instead
+ * of being rounded into a handful of bins. Tilings are offset by a fraction of a tile; each one
+ * gets tiles + 1 slots so the shifted grid still covers the whole range.
+ */
+public final class TileFeatures implements FeatureMap
+{
+    private final int tilings;
+    private final int tiles;
+
+    public TileFeatures(int tilings, int tiles) {
+        this.tilings = Math.max(1, tilings);
+        this.tiles = Math.max(1, tiles);
+    }
+
+    @Override
+    public int dimension(int observationSize) {
+        return 1 + observationSize * tilings * (tiles + 1);
+    }
+
+    @Override
+    public void write(double[] observation, float[] out) {
+        int dimension = dimension(observation.length);
+        Arrays.fill(out, 0, dimension, 0f);
+        out[0] = 1f;
+
+        int slotsPerTiling = tiles + 1;
+        int base = 1;
+        for (double value : observation) {
+            double scaled = (Math.max(-1.0, Math.min(1.0, value)) + 1.0) * 0.5 * tiles;
+            for (int t = 0; t < tilings; t++) {
+                int tile = (int) (scaled + t / (double) tilings);
+                out[base + Math.min(tile, tiles)] = 1f;
+                base += slotsPerTiling;
+            }
+        }
+    }
+}
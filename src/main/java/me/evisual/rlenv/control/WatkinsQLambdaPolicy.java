@@ -0,0 +1,82 @@
+package me.evisual.rlenv.control;
+
+/**
+ * Watkins's Q(λ): each real TD error updates every recently visited state-action in proportion
+ * to its eligibility trace, so the goal reward reaches the whole path in one episode instead of
+ * creeping back one state per visit.
+ * <p>
+ * Traces are cut when an exploratory (non-greedy) action is taken, since the greedy return no
+ * longer follows from the earlier pairs, and at episode end. Each environment of a batch keeps
+ * its own traces.
+ */
+public class WatkinsQLambdaPolicy extends QLearningPolicy {
+
+    private final double lambda;
+    private final int maxTraces;
+    private final double traceThreshold;
+    private EligibilityTraces[] traces = new EligibilityTraces[0];
+
+    /**
+     * @param lambda         trace decay on top of gamma, in [0, 1]
+     * @param maxTraces      most state-actions traced at once (bounds per-step cost)
+     * @param traceThreshold traces below this are dropped
+     */
+    public WatkinsQLambdaPolicy(double lambda, int maxTraces, double traceThreshold) {
+        this.lambda = Math.max(0.0, Math.min(1.0, lambda));
+        this.maxTraces = Math.max(1, maxTraces);
+        this.traceThreshold = Math.max(0.0, traceThreshold);
+    }
+
+    @Override
+    protected void applyUpdate(int envIndex,
+                               int stateKey,
+                               int row,
+                               int action,
+                               double shapedReward,
+                               int nextStateKey,
+                               int nextRow,
+                               boolean done) {
+        EligibilityTraces e = traces(envIndex);
+        if (!isGreedy(row, stateKey, action)) {
+            e.clear();
+        }
+
+        double delta = tdError(row, action, shapedReward, nextRow, nextStateKey, done);
+        e.visit(stateKey, action);
+
+        for (int i = 0; i < e.size(); i++) {
+            int tracedKey = e.stateKey(i);
+            int tracedRow = tracedKey == stateKey ? row : existingRow(tracedKey);
+            addToQ(tracedRow, e.action(i), delta * e.value(i));
+        }
+
+        if (done) {
+            e.clear();
+        } else {
+            e.decay(gamma() * lambda);
+        }
+    }
+
+    @Override
+    public void onEpisodeEnd() {
+        super.onEpisodeEnd();
+        if (traces.length > 0) traces[0].clear();
+    }
+
+    /** Traces currently held for the single-env path (for status/tests). */
+    public int getTraceCount() {
+        return traces.length > 0 ? traces[0].size() : 0;
+    }
+
+    private EligibilityTraces traces(int envIndex) {
+        if (envIndex >= traces.length) {
+            EligibilityTraces[] grown = new EligibilityTraces[envIndex + 1];
+            System.arraycopy(traces, 0, grown, 0, traces.length);
+            for (int i = traces.length; i < grown.length; i++) {
+                grown[i] = new EligibilityTraces(maxTraces, traceThreshold);
+            }
+            traces = grown;
+        }
+        return traces[envIndex];
+    }
+}
@@ -0,0 +1,27 @@
+package me.evisual.rlenv.control;
+
+import me.evisual.rlenv.env.goldcollector.GoldCollectorLayout;
+
+/**
+ * Changes published by the training worker thread for the main thread to apply in-world.
+ * Each update carries the episode number it belongs to so stale updates can be dropped.
+ */
+public sealed interface WorldUpdate
+{
+    long episode();
+
+    /** A new episode began; its terrain and goal need building. */
+    record EpisodeStarted(long episode, GoldCollectorLayout layout,
+                          int agentX, int agentY, int agentZ) implements WorldUpdate {
+    }
+
+    record AgentMoved(long episode, int x, int y, int z) implements WorldUpdate {
+    }
+
+    /** The agent reached the goal marker at the given block position. */
+    record GoalReached(long episode, int x, int y, int z) implements WorldUpdate {
+    }
+
+    record GraphPoint(long episode, double avgReward, double epsilon) implements WorldUpdate {
+    }
+}
@@ -9,4 +9,41 @@ public interface RLEnvironment
     boolean isDone();
 
     Observation getObservation();
+
+    // Allocation-free path: features go into caller-owned buffers, reward/done into a reusable holder.
+    // The defaults adapt the object API above; environments override them to skip the garbage.
+
+    default int observationSize() {
+        return getObservation().getFeatures().length;
+    }
+
+    /** Starts a new episode and writes its first observation into out. */
+    default void reset(double[] out) {
+        copy(reset(), out);
+    }
+
+    /** Writes the current observation into out. */
+    default void writeObservation(double[] out) {
+        copy(getObservation(), out);
+    }
+
+    /**
+     * False while the current episode's block changes are still queued; runners don't step until
+     * the world matches the episode. Environments that don't edit the world are always ready.
+     */
+    default boolean isWorldReady() {
+        return true;
+    }
+
+    /** Applies action, writes the next observation into nextObservation and reward/done into outcome. */
+    default void step(Action action, double[] nextObservation, StepOutcome outcome) {
+        StepResult result = step(action);
+        copy(result.getObservation(), nextObservation);
+        outcome.set(result.getReward(), result.isDone());
+    }
+
+    private static void copy(Observation observation, double[] out) {
+        double[] f = observation.getFeatures();
+        System.arraycopy(f, 0, out, 0, f.length);
+    }
 }
@@ -0,0 +1,20 @@
+package me.evisual.rlenv.env;
+
+/**
+ * Reusable holder for the reward and done flag of one step, filled by
+ * {@link RLEnvironment#step(Action, double[], StepOutcome)} so hot loops don't allocate a
+ * {@link StepResult} per step.
+ */
+public final class StepOutcome
+{
+    private double reward;
+    private boolean done;
+
+    public void set(double reward, boolean done) {
+        this.reward = reward;
+        this.done = done;
+    }
+
+    public double getReward() { return reward; }
+    public boolean isDone() { return done; }
+}
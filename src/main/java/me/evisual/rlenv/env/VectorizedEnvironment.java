@@ -0,0 +1,121 @@
+package me.evisual.rlenv.env;
+
+import java.util.List;
+
+/**
+ * Steps N environments as one batch, resetting each one automatically when its episode ends.
+ * <p>
+ * After {@link #step(Action[])}, index i of {@link #states()}, {@link #rewards()},
+ * {@link #nextStates()} and {@link #dones()} describes env i's transition (the next state is the
+ * terminal one when done), while {@link #observations()} already holds the observation to act on
+ * next, i.e. the fresh episode's first observation for envs that were reset.
+ * <p>
+ * Nothing is allocated per step: every env owns three observation buffers that rotate between
+ * "state", "next state" and "reset observation". The arrays and observations handed out are only
+ * valid until the following {@link #step(Action[])}.
+ */
+public final class VectorizedEnvironment
+{
+    private static final int SLOTS = 3;
+
+    private final RLEnvironment[] envs;
+    private final Observation[][] slots;
+    private final int[] current;
+
+    private final Observation[] observations;
+    private final Observation[] states;
+    private final Observation[] nextStates;
+    private final double[] rewards;
+    private final boolean[] dones;
+    private final StepOutcome outcome = new StepOutcome();
+
+    public VectorizedEnvironment(List<? extends RLEnvironment> envs) {
+        if (envs.isEmpty()) {
+            throw new IllegalArgumentException("VectorizedEnvironment needs at least one environment");
+        }
+        this.envs = envs.toArray(new RLEnvironment[0]);
+        int n = this.envs.length;
+
+        this.slots = new Observation[n][SLOTS];
+        for (int i = 0; i < n; i++) {
+            int size = this.envs[i].observationSize();
+            for (int s = 0; s < SLOTS; s++) {
+                slots[i][s] = new Observation(new double[size]);
+            }
+        }
+        this.current = new int[n];
+        this.observations = new Observation[n];
+        this.states = new Observation[n];
+        this.nextStates = new Observation[n];
+        this.rewards = new double[n];
+        this.dones = new boolean[n];
+    }
+
+    public int size() {
+        return envs.length;
+    }
+
+    public RLEnvironment get(int index) {
+        return envs[index];
+    }
+
+    /** Resets every environment and returns the batch of first observations. */
+    public Observation[] reset() {
+        for (int i = 0; i < envs.length; i++) {
+            current[i] = 0;
+            Observation first = slots[i][0];
+            envs[i].reset(first.getFeatures());
+            observations[i] = first;
+        }
+        return observations;
+    }
+
+    /** Observations to act on next. */
+    public Observation[] observations() {
+        return observations;
+    }
+
+    /** States the last batch of actions was taken in. */
+    public Observation[] states() {
+        return states;
+    }
+
+    /** States the last batch of actions led to (terminal ones for finished envs). */
+    public Observation[] nextStates() {
+        return nextStates;
+    }
+
+    public double[] rewards() {
+        return rewards;
+    }
+
+    public boolean[] dones() {
+        return dones;
+    }
+
+    public void step(Action[] actions) {
+        RLEnvironment[] envs = this.envs;
+        StepOutcome outcome = this.outcome;
+        for (int i = 0; i < envs.length; i++) {
+            Observation[] own = slots[i];
+            int s = current[i];
+            int next = (s + 1) % SLOTS;
+
+            envs[i].step(actions[i], own[next].getFeatures(), outcome);
+            states[i] = own[s];
+            nextStates[i] = own[next];
+            rewards[i] = outcome.getReward();
+            dones[i] = outcome.isDone();
+
+            if (outcome.isDone()) {
+                // Third buffer, so the terminal next state stays readable until the next step
+                int fresh = (s + 2) % SLOTS;
+                envs[i].reset(own[fresh].getFeatures());
+                current[i] = fresh;
+            } else {
+                current[i] = next;
+            }
+            observations[i] = own[current[i]];
+        }
+    }
+}
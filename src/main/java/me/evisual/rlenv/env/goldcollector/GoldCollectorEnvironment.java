@@ -3,15 +3,19 @@ package me.evisual.rlenv.env.goldcollector;
 import me.evisual.rlenv.env.Action;
 import me.evisual.rlenv.env.Observation;
 import me.evisual.rlenv.env.RLEnvironment;
+import me.evisual.rlenv.env.StepOutcome;
 import me.evisual.rlenv.env.StepResult;
-import me.evisual.rlenv.util.LocationUtil;
 import me.evisual.rlenv.world.ArenaTerrain;
+import me.evisual.rlenv.world.BlockEditQueue;
+import me.evisual.rlenv.world.TerrainBuildPlan;
+import me.evisual.rlenv.world.TerrainHeightmap;
 import me.evisual.rlenv.world.TerrainSnapshot;
 import org.bukkit.Material;
 import org.bukkit.World;
-import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
 
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A simple gridworld-like RL environment implemented inside a Minecraft world.
@@ -29,259 +33,227 @@ import java.util.Random;
  *   - +10.0 on reaching the goal.
  *   - -10.0 on stepping into a hazard.
  *   - -0.01 per step otherwise (small step cost).
+ *
+ * The dynamics live in {@link GoldCollectorSimulation}; this class is the in-world mirror that
+ * builds each episode's terrain and goal. Episodes that start with no player within the watch
+ * radius are not rendered at all.
+ *
+ * Resets are double-buffered: while an episode runs, the next one's layout and terrain build plan
+ * are prepared on a background thread, so a reset only swaps them in and queues the blocks that
+ * changed. Until those are applied the environment reports it isn't ready to step.
  */
 public class GoldCollectorEnvironment implements RLEnvironment {
 
-    private enum Direction { NORTH, SOUTH, EAST, WEST }
-
     private final ArenaConfig config;
     private final World world;
-    private final Random random = new Random();
+    private final GoldCollectorSimulation simulation;
+    private final BlockEditQueue edits;
 
-    private final Material goalMarkerMaterial = Material.GOLD_BLOCK;
+    private static final Material GOAL_MARKER = Material.GOLD_BLOCK;
 
     private ArenaTerrain terrain;
     private TerrainSnapshot snapshot;
 
-    private int agentX, agentY, agentZ;
-    private int goalX, goalY, goalZ;
+    // Completes once the last rendered episode's block changes are applied
+    private CompletableFuture<Void> rendered = CompletableFuture.completedFuture(null);
 
-    private int lastGoalX, lastGoalY, lastGoalZ;
-    private Material lastGoalOriginalType;
-    private boolean hasPlacedGoalBefore = false;
+    // Render only when someone is close enough to see it (<= 0 renders every episode).
+    private int watchRadius = 0;
 
-    private int steps;
-    private boolean done;
+    /** A layout together with the block writes that render it. */
+    private record PreparedEpisode(GoldCollectorLayout layout, TerrainBuildPlan plan) {
+    }
+
+    // Next episode, being prepared in the background; null when prefetching is off or not started
+    private CompletableFuture<PreparedEpisode> nextEpisode;
+    private boolean prefetch = true;
+
+    public GoldCollectorEnvironment(ArenaConfig config, BlockEditQueue edits) {
+        this(config, edits, new Random());
+    }
 
-    public GoldCollectorEnvironment(ArenaConfig config) {
+    public GoldCollectorEnvironment(ArenaConfig config, BlockEditQueue edits, Random random) {
         this.config = config;
         this.world = config.world();
-        this.terrain = new ArenaTerrain(config);
+        this.edits = edits;
+        this.simulation = new GoldCollectorSimulation(
+                config.minX(), config.maxX(),
+                config.minZ(), config.maxZ(),
+                config.y(),
+                config.maxStepsPerEpisode(),
+                random
+        );
+        this.terrain = new ArenaTerrain(config, edits);
         this.snapshot = terrain.snapshot();
     }
 
     @Override
     public Observation reset() {
-        done = false;
-        steps = 0;
-
-        // Build natural terrain inside the arena once per reset.
-        terrain.generate(random.nextLong());
-
-        int[] agentPos = sampleRandomTile();
-        agentX = agentPos[0];
-        agentZ = agentPos[1];
-        agentY = terrain.surfaceY(agentX, agentZ);
-
-        int[] goalPos = sampleRandomTileDifferentFrom(agentX, agentZ);
-        setGoalOnSurface(goalPos[0], goalPos[1]);
-
-        return buildObservation();
+        PreparedEpisode episode = takeNextEpisode();
+        Observation observation = simulation.reset(episode.layout());
+        prepareNextEpisode();
+        mirror(episode);
+        return observation;
     }
 
     @Override
     public StepResult step(Action action) {
-        if (done) return new StepResult(buildObservation(), 0.0, true);
-
-        int prevDist = manhattan(agentX, agentZ, goalX, goalZ);
-
-        int newX = agentX;
-        int newZ = agentZ;
-
-        switch (action) {
-            case MOVE_NORTH -> newZ -= 1;
-            case MOVE_SOUTH -> newZ += 1;
-            case MOVE_EAST -> newX += 1;
-            case MOVE_WEST -> newX -= 1;
-            case STAY -> { }
-            default -> { }
-        }
-
-        newX = LocationUtil.clamp(newX, config.minX(), config.maxX());
-        newZ = LocationUtil.clamp(newZ, config.minZ(), config.maxZ());
-
-        // Height-based movement rule:
-        // allow stepping up/down by 1; if diff > 1, treat as blocked (stay put)
-        int curSurfaceY = terrain.surfaceY(agentX, agentZ);
-        int nextSurfaceY = terrain.surfaceY(newX, newZ);
-        int dy = nextSurfaceY - curSurfaceY;
-
-        if (Math.abs(dy) > 1) {
-            // blocked by steep slope
-            newX = agentX;
-            newZ = agentZ;
-            nextSurfaceY = curSurfaceY;
-        }
-
-        agentX = newX;
-        agentZ = newZ;
-        agentY = nextSurfaceY;
-
-        int newDist = manhattan(agentX, agentZ, goalX, goalZ);
+        return simulation.step(action);
+    }
 
-        boolean terminal = false;
-        double reward;
+    @Override
+    public void reset(double[] out) {
+        PreparedEpisode episode = takeNextEpisode();
+        simulation.reset(episode.layout());
+        simulation.writeObservation(out);
+        prepareNextEpisode();
+        mirror(episode);
+    }
 
-        if (agentX == goalX && agentZ == goalZ) {
-            reward = 10.0;
-            terminal = true;
-        } else {
-            reward = -0.01;
+    @Override
+    public void step(Action action, double[] nextObservation, StepOutcome outcome) {
+        simulation.step(action, nextObservation, outcome);
+    }
 
-            // shaping (distance to goal)
-            if (newDist < prevDist) reward += 0.20;
-            else if (newDist > prevDist) reward -= 0.20;
+    @Override public boolean isDone() { return simulation.isDone(); }
+    @Override public Observation getObservation() { return simulation.getObservation(); }
+    @Override public void writeObservation(double[] out) { simulation.writeObservation(out); }
+    @Override public int observationSize() { return simulation.observationSize(); }
+    @Override public boolean isWorldReady() { return rendered.isDone(); }
 
-            // small penalty for changing height (encourages smoother paths when equal)
-            reward -= 0.01 * Math.abs(dy);
+    /**
+     * Builds an episode in-world if a player is watching. Must run on the main thread.
+     */
+    public void mirror(GoldCollectorLayout layout) {
+        if (isWatched()) {
+            render(layout);
         }
-
-        steps++;
-        if (steps >= config.maxStepsPerEpisode()) terminal = true;
-
-        done = terminal;
-        return new StepResult(buildObservation(), reward, terminal);
     }
 
-    @Override public boolean isDone() { return done; }
-    @Override public Observation getObservation() { return buildObservation(); }
-
     /**
-     * Observation:
-     * 0 dxSign (-1,0,1)
-     * 1 dzSign (-1,0,1)
-     * 2 dySign (-1,0,1)  (surface y compare)
-     * 3 normManhattanDist (0..~1)
-     * 4..7 blocked N,S,E,W (0/1) by boundary or steep slope (>1 height diff)
+     * Queues an episode's terrain and goal in-world. Must run on the main thread, and only once
+     * the previous render is applied ({@link #isWorldReady()}), since it diffs against the world.
      */
-    private Observation buildObservation() {
-        int dxSign = Integer.compare(goalX, agentX);
-        int dzSign = Integer.compare(goalZ, agentZ);
-        int dySign = Integer.compare(goalY, agentY);
-
-        double normDist = manhattan(agentX, agentZ, goalX, goalZ)
-                / (double) ((config.maxX() - config.minX() + 1) + (config.maxZ() - config.minZ() + 1));
-
-        double[] f = new double[] {
-                dxSign,
-                dzSign,
-                dySign,
-                normDist,
-                isBlocked(Direction.NORTH) ? 1.0 : 0.0,
-                isBlocked(Direction.SOUTH) ? 1.0 : 0.0,
-                isBlocked(Direction.EAST)  ? 1.0 : 0.0,
-                isBlocked(Direction.WEST)  ? 1.0 : 0.0
-        };
-
-        return new Observation(f);
+    public void render(GoldCollectorLayout layout) {
+        rendered = terrain.build(buildPlan(layout, config.minX(), config.minZ()));
     }
 
-    private boolean isBlocked(Direction dir) {
-        int nx = agentX;
-        int nz = agentZ;
+    /** Queues the arena back to how it was before the first render. */
+    public CompletableFuture<Void> restoreTerrain() {
+        return snapshot.restore(edits, world);
+    }
 
-        switch (dir) {
-            case NORTH -> nz -= 1;
-            case SOUTH -> nz += 1;
-            case EAST -> nx += 1;
-            case WEST -> nx -= 1;
+    /**
+     * Stops preparing episodes in the background, for when another thread takes over stepping the
+     * simulation (and so its RNG). Waits for a preparation already running.
+     */
+    public void disablePrefetch() {
+        prefetch = false;
+        if (nextEpisode != null) {
+            nextEpisode.join();
+            nextEpisode = null;
         }
+    }
 
-        if (!LocationUtil.isWithinBounds(nx, nz, config.minX(), config.maxX(), config.minZ(), config.maxZ())) {
-            return true;
+    private void mirror(PreparedEpisode episode) {
+        if (isWatched()) {
+            // The plan already holds the goal, cover and ring, so the build also clears the old ones
+            rendered = terrain.build(episode.plan());
         }
-
-        int curY = terrain.surfaceY(agentX, agentZ);
-        int nextY = terrain.surfaceY(nx, nz);
-        return Math.abs(nextY - curY) > 1;
     }
 
-    private int manhattan(int x1, int z1, int x2, int z2) {
-        return Math.abs(x1 - x2) + Math.abs(z1 - z2);
+    private PreparedEpisode takeNextEpisode() {
+        CompletableFuture<PreparedEpisode> next = nextEpisode;
+        nextEpisode = null;
+        // Normally long done; only the first reset, or one right after the last, generates inline
+        return next != null ? next.join() : prepare();
     }
 
-    private int[] sampleRandomTile() {
-        int x = config.minX() + random.nextInt((config.maxX() - config.minX()) + 1);
-        int z = config.minZ() + random.nextInt((config.maxZ() - config.minZ()) + 1);
-        return new int[] { x, z };
+    private void prepareNextEpisode() {
+        if (prefetch) {
+            nextEpisode = CompletableFuture.supplyAsync(this::prepare);
+        }
     }
 
-    private int[] sampleRandomTileDifferentFrom(int avoidX, int avoidZ) {
-        for (int attempt = 0; attempt < 64; attempt++) {
-            int[] p = sampleRandomTile();
-            if (p[0] != avoidX || p[1] != avoidZ) return p;
-        }
-        // fallback
-        int x = (avoidX == config.minX()) ? config.maxX() : config.minX();
-        int z = (avoidZ == config.minZ()) ? config.maxZ() : config.minZ();
-        return new int[] { x, z };
+    // Runs on a pool thread; only the simulation's RNG is shared, and resets wait for this first
+    private PreparedEpisode prepare() {
+        GoldCollectorLayout layout = simulation.generateLayout();
+        return new PreparedEpisode(layout, buildPlan(layout, config.minX(), config.minZ()));
     }
 
-    private void setGoalOnSurface(int x, int z) {
-        int y = terrain.surfaceY(x, z);
+    /**
+     * A new, unmirrored simulation of this arena with its own RNG, for batched headless training.
+     */
+    public GoldCollectorSimulation newHeadlessSimulation() {
+        return new GoldCollectorSimulation(
+                config.minX(), config.maxX(),
+                config.minZ(), config.maxZ(),
+                config.y(),
+                config.maxStepsPerEpisode(),
+                new Random()
+        );
+    }
 
-        // restore old goal block
-        if (hasPlacedGoalBefore) {
-            world.getBlockAt(lastGoalX, lastGoalY, lastGoalZ).setType(lastGoalOriginalType, false);
+    public void setWatchRadius(int watchRadius) {
+        this.watchRadius = watchRadius;
+    }
 
-            // also clear any old "cover" if it still exists (safe)
-            world.getBlockAt(lastGoalX, lastGoalY + 1, lastGoalZ).setType(Material.AIR, false);
-        }
+    private boolean isWatched() {
+        if (watchRadius <= 0) return true;
 
-        // place gold marker on the surface block (one below standing Y)
-        Block goalBlock = world.getBlockAt(x, y - 1, z);
-        lastGoalOriginalType = goalBlock.getType();
-        lastGoalX = x;
-        lastGoalY = y - 1;
-        lastGoalZ = z;
-        hasPlacedGoalBefore = true;
-
-        goalBlock.setType(goalMarkerMaterial, false);
-
-        goalX = x;
-        goalZ = z;
-        goalY = y;
-
-        // Occasionally cover the goal so the agent has to break in.
-        if (random.nextDouble() < 0.65) {
-            Block cover = world.getBlockAt(x, y, z); // standing space
-            if (cover.getType() == Material.AIR || cover.isPassable()) {
-                cover.setType(Material.DIRT, false); // breakable "cap"
-            }
-        }
+        double centerX = (config.minX() + config.maxX() + 1) / 2.0;
+        double centerZ = (config.minZ() + config.maxZ() + 1) / 2.0;
+        double maxDistSq = (double) watchRadius * watchRadius;
 
-        // Occasionally add a 1-block ring around the goal (forces jump/break).
-        if (random.nextDouble() < 0.35) {
-            placeGoalRing(x, y, z);
+        for (Player player : world.getPlayers()) {
+            double dx = player.getLocation().getX() - centerX;
+            double dz = player.getLocation().getZ() - centerZ;
+            if (dx * dx + dz * dz <= maxDistSq) return true;
         }
+        return false;
     }
 
-    private void placeGoalRing(int x, int y, int z) {
-        // 4-neighbor ring at standing height (y)
-        placeIfAirOrPassable(x + 1, y, z, Material.COBBLESTONE);
-        placeIfAirOrPassable(x - 1, y, z, Material.COBBLESTONE);
-        placeIfAirOrPassable(x, y, z + 1, Material.COBBLESTONE);
-        placeIfAirOrPassable(x, y, z - 1, Material.COBBLESTONE);
+    /**
+     * The episode's terrain with the goal marker, and its dirt cap and cobblestone ring when the
+     * layout has them, baked in. Pure data, so it can be computed off the main thread.
+     */
+    static TerrainBuildPlan buildPlan(GoldCollectorLayout layout, int minX, int minZ) {
+        TerrainBuildPlan plan = TerrainBuildPlan.of(layout.terrain());
+        int gx = layout.goalX() - minX;
+        int gz = layout.goalZ() - minZ;
+        int h = layout.terrain().height(gx, gz);
+
+        // Gold marker replaces the surface block; the cap and ring sit at standing height
+        plan.set(gx, gz, h, GOAL_MARKER);
+        if (layout.goalCovered() && plan.isReplaceable(gx, gz, h + 1)) {
+            plan.set(gx, gz, h + 1, Material.DIRT); // breakable "cap"
+        }
+        if (layout.goalRing()) {
+            placeRingBlock(plan, gx + 1, gz, h + 1);
+            placeRingBlock(plan, gx - 1, gz, h + 1);
+            placeRingBlock(plan, gx, gz + 1, h + 1);
+            placeRingBlock(plan, gx, gz - 1, h + 1);
+        }
+        return plan;
     }
 
-    private void placeIfAirOrPassable(int x, int y, int z, Material m) {
-        if (!LocationUtil.isWithinBounds(x, z, config.minX(), config.maxX(), config.minZ(), config.maxZ())) {
-            return;
-        }
-        Block b = world.getBlockAt(x, y, z);
-        if (b.getType() == Material.AIR || b.isPassable()) {
-            b.setType(m, false);
+    private static void placeRingBlock(TerrainBuildPlan plan, int localX, int localZ, int dy) {
+        TerrainHeightmap map = plan.heightmap();
+        if (localX < 0 || localX >= map.width() || localZ < 0 || localZ >= map.length()) return;
+        if (plan.isReplaceable(localX, localZ, dy)) {
+            plan.set(localX, localZ, dy, Material.COBBLESTONE);
         }
     }
 
     public ArenaConfig getConfig() { return config; }
     public TerrainSnapshot getTerrainSnapshot() { return snapshot; }
+    public GoldCollectorSimulation getSimulation() { return simulation; }
 
-    public int getAgentX() { return agentX; }
-    public int getAgentY() { return agentY; }
-    public int getAgentZ() { return agentZ; }
+    public int getAgentX() { return simulation.getAgentX(); }
+    public int getAgentY() { return simulation.getAgentY(); }
+    public int getAgentZ() { return simulation.getAgentZ(); }
 
-    public int getGoalX() { return goalX; }
-    public int getGoalY() { return goalY; }
-    public int getGoalZ() { return goalZ; }
+    public int getGoalX() { return simulation.getGoalX(); }
+    public int getGoalY() { return simulation.getGoalY(); }
+    public int getGoalZ() { return simulation.getGoalZ(); }
 }
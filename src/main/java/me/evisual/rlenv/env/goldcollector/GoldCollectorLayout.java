@@ -0,0 +1,18 @@
+package me.evisual.rlenv.env.goldcollector;
+
+import me.evisual.rlenv.world.TerrainHeightmap;
+
+/**
+ * Everything needed to render one GoldCollector episode: terrain, spawn, goal and the
+ * goal decorations (dirt cap and cobblestone ring). Produced by {@link GoldCollectorSimulation#reset()}.
+ */
+public record GoldCollectorLayout(
+        TerrainHeightmap terrain,
+        int spawnX,
+        int spawnZ,
+        int goalX,
+        int goalZ,
+        boolean goalCovered,
+        boolean goalRing
+) {
+}
@@ -0,0 +1,294 @@
+package me.evisual.rlenv.env.goldcollector;
+
+import me.evisual.rlenv.env.Action;
+import me.evisual.rlenv.env.Observation;
+import me.evisual.rlenv.env.RLEnvironment;
+import me.evisual.rlenv.env.StepOutcome;
+import me.evisual.rlenv.env.StepResult;
+import me.evisual.rlenv.world.TerrainHeightmap;
+
+import java.util.Random;
+
+/**
+ * Bukkit-free GoldCollector dynamics: terrain generation, transitions, reward and observation.
+ * <p>
+ * Safe to run on any thread and without a server. {@link GoldCollectorEnvironment} wraps one of
+ * these and mirrors its episodes into the world; given the same {@link Random} seed both produce
+ * identical trajectories.
+ *
+ * Reward:
+ *   - +10.0 on reaching the goal.
+ *   - -0.01 per step otherwise, +/-0.20 for moving closer/further, -0.01 per block climbed.
+ */
+public class GoldCollectorSimulation implements RLEnvironment {
+
+    public static final int OBSERVATION_SIZE = 8;
+
+    private enum Direction { NORTH, SOUTH, EAST, WEST }
+
+    private final int minX, maxX, minZ, maxZ;
+    private final int baseY;
+    private final int maxStepsPerEpisode;
+    private final int width, length;
+    private final Random random;
+
+    private TerrainHeightmap terrain;
+    private GoldCollectorLayout layout;
+
+    private int agentX, agentY, agentZ;
+    private int goalX, goalY, goalZ;
+
+    // Blocked N,S,E,W bits for the agent's tile; only changes when the agent moves
+    private int blockedMask;
+
+    private int steps;
+    private boolean done;
+
+    public GoldCollectorSimulation(int minX, int maxX,
+                                   int minZ, int maxZ,
+                                   int baseY,
+                                   int maxStepsPerEpisode,
+                                   Random random) {
+        this.minX = minX;
+        this.maxX = maxX;
+        this.minZ = minZ;
+        this.maxZ = maxZ;
+        this.baseY = baseY;
+        this.maxStepsPerEpisode = maxStepsPerEpisode;
+        this.width = (maxX - minX) + 1;
+        this.length = (maxZ - minZ) + 1;
+        this.random = random;
+    }
+
+    @Override
+    public Observation reset() {
+        return reset(generateLayout());
+    }
+
+    /**
+     * Draws the next episode's terrain, spawn, goal and goal decorations from this simulation's RNG
+     * without changing the current episode, so it can run ahead on another thread. The caller must
+     * make sure nothing else uses the simulation's RNG meanwhile; only resets draw from it.
+     */
+    public GoldCollectorLayout generateLayout() {
+        // New natural terrain once per reset.
+        TerrainHeightmap map = TerrainHeightmap.generate(width, length, random.nextLong());
+
+        int[] agentPos = sampleRandomTile();
+        int[] goalPos = sampleRandomTileDifferentFrom(agentPos[0], agentPos[1]);
+
+        // Occasionally cover the goal so the agent has to break in, and
+        // occasionally add a 1-block ring around it (forces jump/break).
+        boolean covered = random.nextDouble() < 0.65;
+        boolean ring = random.nextDouble() < 0.35;
+
+        return new GoldCollectorLayout(map, agentPos[0], agentPos[1], goalPos[0], goalPos[1], covered, ring);
+    }
+
+    /**
+     * Starts an episode on a layout from {@link #generateLayout()}.
+     */
+    public Observation reset(GoldCollectorLayout layout) {
+        done = false;
+        steps = 0;
+
+        this.layout = layout;
+        terrain = layout.terrain();
+
+        agentX = layout.spawnX();
+        agentZ = layout.spawnZ();
+        agentY = surfaceY(agentX, agentZ);
+
+        goalX = layout.goalX();
+        goalZ = layout.goalZ();
+        goalY = surfaceY(goalX, goalZ);
+
+        updateBlockedMask();
+        return buildObservation();
+    }
+
+    @Override
+    public void reset(double[] out) {
+        reset();
+        writeObservation(out);
+    }
+
+    @Override
+    public StepResult step(Action action) {
+        if (done) return new StepResult(buildObservation(), 0.0, true);
+
+        double reward = advance(action);
+        return new StepResult(buildObservation(), reward, done);
+    }
+
+    @Override
+    public void step(Action action, double[] nextObservation, StepOutcome outcome) {
+        double reward = done ? 0.0 : advance(action);
+        writeObservation(nextObservation);
+        outcome.set(reward, done);
+    }
+
+    /**
+     * Applies the action and returns its reward; updates position, blocked bits and done.
+     */
+    private double advance(Action action) {
+        int prevDist = manhattan(agentX, agentZ, goalX, goalZ);
+
+        int newX = agentX;
+        int newZ = agentZ;
+
+        switch (action) {
+            case MOVE_NORTH -> newZ -= 1;
+            case MOVE_SOUTH -> newZ += 1;
+            case MOVE_EAST -> newX += 1;
+            case MOVE_WEST -> newX -= 1;
+            case STAY -> { }
+            default -> { }
+        }
+
+        newX = clamp(newX, minX, maxX);
+        newZ = clamp(newZ, minZ, maxZ);
+
+        // Height-based movement rule:
+        // allow stepping up/down by 1; if diff > 1, treat as blocked (stay put)
+        int curSurfaceY = surfaceY(agentX, agentZ);
+        int nextSurfaceY = surfaceY(newX, newZ);
+        int dy = nextSurfaceY - curSurfaceY;
+
+        if (Math.abs(dy) > 1) {
+            // blocked by steep slope
+            newX = agentX;
+            newZ = agentZ;
+            nextSurfaceY = curSurfaceY;
+        }
+
+        boolean moved = newX != agentX || newZ != agentZ;
+        agentX = newX;
+        agentZ = newZ;
+        agentY = nextSurfaceY;
+        if (moved) updateBlockedMask();
+
+        int newDist = manhattan(agentX, agentZ, goalX, goalZ);
+
+        boolean terminal = false;
+        double reward;
+
+        if (agentX == goalX && agentZ == goalZ) {
+            reward = 10.0;
+            terminal = true;
+        } else {
+            reward = -0.01;
+
+            // shaping (distance to goal)
+            if (newDist < prevDist) reward += 0.20;
+            else if (newDist > prevDist) reward -= 0.20;
+
+            // small penalty for changing height (encourages smoother paths when equal)
+            reward -= 0.01 * Math.abs(dy);
+        }
+
+        steps++;
+        if (steps >= maxStepsPerEpisode) terminal = true;
+
+        done = terminal;
+        return reward;
+    }
+
+    @Override public boolean isDone() { return done; }
+    @Override public Observation getObservation() { return buildObservation(); }
+    @Override public int observationSize() { return OBSERVATION_SIZE; }
+
+    /**
+     * Observation:
+     * 0 dxSign (-1,0,1)
+     * 1 dzSign (-1,0,1)
+     * 2 dySign (-1,0,1)  (surface y compare)
+     * 3 normManhattanDist (0..~1)
+     * 4..7 blocked N,S,E,W (0/1) by boundary or steep slope (>1 height diff)
+     */
+    private Observation buildObservation() {
+        double[] f = new double[OBSERVATION_SIZE];
+        writeObservation(f);
+        return new Observation(f);
+    }
+
+    @Override
+    public void writeObservation(double[] out) {
+        out[0] = Integer.compare(goalX, agentX);
+        out[1] = Integer.compare(goalZ, agentZ);
+        out[2] = Integer.compare(goalY, agentY);
+        out[3] = manhattan(agentX, agentZ, goalX, goalZ) / (double) (width + length);
+        out[4] = blockedMask & 1;
+        out[5] = (blockedMask >>> 1) & 1;
+        out[6] = (blockedMask >>> 2) & 1;
+        out[7] = (blockedMask >>> 3) & 1;
+    }
+
+    private void updateBlockedMask() {
+        blockedMask = (isBlocked(Direction.NORTH) ? 1 : 0)
+                | (isBlocked(Direction.SOUTH) ? 2 : 0)
+                | (isBlocked(Direction.EAST) ? 4 : 0)
+                | (isBlocked(Direction.WEST) ? 8 : 0);
+    }
+
+    private boolean isBlocked(Direction dir) {
+        int nx = agentX;
+        int nz = agentZ;
+
+        switch (dir) {
+            case NORTH -> nz -= 1;
+            case SOUTH -> nz += 1;
+            case EAST -> nx += 1;
+            case WEST -> nx -= 1;
+        }
+
+        if (nx < minX || nx > maxX || nz < minZ || nz > maxZ) {
+            return true;
+        }
+
+        int curY = surfaceY(agentX, agentZ);
+        int nextY = surfaceY(nx, nz);
+        return Math.abs(nextY - curY) > 1;
+    }
+
+    /** Standing Y (top block + 1) of the column at world (x, z). */
+    public int surfaceY(int x, int z) {
+        return baseY + terrain.height(x - minX, z - minZ) + 1;
+    }
+
+    private int manhattan(int x1, int z1, int x2, int z2) {
+        return Math.abs(x1 - x2) + Math.abs(z1 - z2);
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private int[] sampleRandomTile() {
+        int x = minX + random.nextInt(width);
+        int z = minZ + random.nextInt(length);
+        return new int[] { x, z };
+    }
+
+    private int[] sampleRandomTileDifferentFrom(int avoidX, int avoidZ) {
+        for (int attempt = 0; attempt < 64; attempt++) {
+            int[] p = sampleRandomTile();
+            if (p[0] != avoidX || p[1] != avoidZ) return p;
+        }
+        // fallback
+        int x = (avoidX == minX) ? maxX : minX;
+        int z = (avoidZ == minZ) ? maxZ : minZ;
+        return new int[] { x, z };
+    }
+
+    /** Layout of the current episode, or null before the first reset. */
+    public GoldCollectorLayout getLayout() { return layout; }
+
+    public int getAgentX() { return agentX; }
+    public int getAgentY() { return agentY; }
+    public int getAgentZ() { return agentZ; }
+
+    public int getGoalX() { return goalX; }
+    public int getGoalY() { return goalY; }
+    public int getGoalZ() { return goalZ; }
+}
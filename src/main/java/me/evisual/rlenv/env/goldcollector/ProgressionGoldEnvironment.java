@@ -3,6 +3,7 @@ package me.evisual.rlenv.env.goldcollector;
 import me.evisual.rlenv.env.Action;
 import me.evisual.rlenv.env.Observation;
 import me.evisual.rlenv.env.RLEnvironment;
+import me.evisual.rlenv.env.StepOutcome;
 import me.evisual.rlenv.env.StepResult;
 import me.evisual.rlenv.util.LocationUtil;
 import org.bukkit.Material;
@@ -13,6 +14,8 @@ import java.util.Random;
 
 public class ProgressionGoldEnvironment implements RLEnvironment {
 
+    public static final int OBSERVATION_SIZE = 3;
+
     private final ArenaConfig config;
     private final World world;
     private final Random random = new Random();
@@ -64,10 +67,28 @@ public class ProgressionGoldEnvironment implements RLEnvironment {
         return buildObservation();
     }
 
+    @Override
+    public void reset(double[] out) {
+        reset();
+        writeObservation(out);
+    }
+
     @Override
     public StepResult step(Action action) {
         if (done) return new StepResult(buildObservation(), 0.0, true);
 
+        double reward = advance(action);
+        return new StepResult(buildObservation(), reward, done);
+    }
+
+    @Override
+    public void step(Action action, double[] nextObservation, StepOutcome outcome) {
+        double reward = done ? 0.0 : advance(action);
+        writeObservation(nextObservation);
+        outcome.set(reward, done);
+    }
+
+    private double advance(Action action) {
         int prevDist = manhattan(agentX, agentZ, goalX, goalZ);
 
         int nx = agentX;
@@ -108,7 +129,7 @@ public class ProgressionGoldEnvironment implements RLEnvironment {
         if (steps >= config.maxStepsPerEpisode()) terminal = true;
 
         done = terminal;
-        return new StepResult(buildObservation(), reward, terminal);
+        return reward;
     }
 
     @Override
@@ -121,16 +142,24 @@ public class ProgressionGoldEnvironment implements RLEnvironment {
         return buildObservation();
     }
 
-    private Observation buildObservation() {
-        int dxSign = Integer.compare(goalX, agentX);
-        int dzSign = Integer.compare(goalZ, agentZ);
+    @Override
+    public int observationSize() {
+        return OBSERVATION_SIZE;
+    }
 
-        double normDist = manhattan(agentX, agentZ, goalX, goalZ)
-                / (double) ((config.maxX() - config.minX() + 1) + (config.maxZ() - config.minZ() + 1));
+    private Observation buildObservation() {
+        double[] f = new double[OBSERVATION_SIZE];
+        writeObservation(f);
+        return new Observation(f);
+    }
 
+    @Override
+    public void writeObservation(double[] out) {
         // Compact & strong state signal
-        double[] f = new double[] { dxSign, dzSign, normDist };
-        return new Observation(f);
+        out[0] = Integer.compare(goalX, agentX);
+        out[1] = Integer.compare(goalZ, agentZ);
+        out[2] = manhattan(agentX, agentZ, goalX, goalZ)
+                / (double) ((config.maxX() - config.minX() + 1) + (config.maxZ() - config.minZ() + 1));
     }
 
     private int[] sampleGoalNotAtSpawn() {
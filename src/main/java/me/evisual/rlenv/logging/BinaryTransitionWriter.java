@@ -0,0 +1,168 @@
+package me.evisual.rlenv.logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends transitions to a binary file through memory-mapped segments.
+ * <p>
+ * Layout (little-endian): a fixed header, then one fixed-width record per transition:
+ * <pre>
+ *   header  0  int   magic "RLTR"
+ *           4  int   version
+ *           8  int   observation width w
+ *          12  int   record bytes (8w + 8)
+ *          16  long  record count
+ *          24  long  reserved
+ *   record  0  float[w]  obs
+ *          4w  float[w]  next_obs
+ *          8w  float     reward
+ *        8w+4  uint8     action ordinal
+ *        8w+5  uint8     done (0/1)
+ *        8w+6  uint16    environment index (0 in files from before it was recorded)
+ * </pre>
+ * The file grows one segment (about 4 MB) at a time; the count in the header is updated on every
+ * flush and is what readers go by, so a crash leaves at most a zeroed tail past it. The width is
+ * only known with the first transition, so the file is opened then. An existing file with another
+ * width is moved aside rather than appended to. Read it back with {@link TransitionReader}.
+ */
+public final class BinaryTransitionWriter implements TransitionSink
+{
+    static final int MAGIC = 0x524C5452; // "RLTR"
+    static final int VERSION = 1;
+
+    static final int OFF_MAGIC = 0;
+    static final int OFF_VERSION = 4;
+    static final int OFF_WIDTH = 8;
+    static final int OFF_RECORD_BYTES = 12;
+    static final int OFF_COUNT = 16;
+    static final int HEADER_BYTES = 32;
+
+    private static final int SEGMENT_BYTES = 4 << 20;
+
+    private final Path file;
+
+    private FileChannel channel;
+    private MappedByteBuffer header;
+    private MappedByteBuffer segment;
+    private int width = -1;
+    private int recordBytes;
+    private int segmentRecords;
+    private long segmentStart; // first record in the mapped segment
+    private long count;
+
+    public BinaryTransitionWriter(File file) {
+        this.file = file.toPath();
+    }
+
+    static int recordBytes(int width) {
+        return 8 * width + 8;
+    }
+
+    @Override
+    public void append(double[] values, int base, int width, int action, boolean done, int env) throws IOException {
+        if (channel == null) {
+            open(width);
+        }
+        if (segment == null || count - segmentStart == segmentRecords) {
+            mapSegment(count);
+        }
+
+        int offset = (int) (count - segmentStart) * recordBytes;
+        for (int i = 0; i < 2 * width; i++) {
+            segment.putFloat(offset + i * Float.BYTES, (float) values[base + i]);
+        }
+        segment.putFloat(offset + 8 * width, (float) values[base + 2 * width]);
+        segment.put(offset + 8 * width + 4, (byte) action);
+        segment.put(offset + 8 * width + 5, (byte) (done ? 1 : 0));
+        segment.putShort(offset + 8 * width + 6, (short) env);
+        count++;
+    }
+
+    @Override
+    public Path file() {
+        return file;
+    }
+
+    @Override
+    public long bytes() {
+        return channel == null ? 0L : HEADER_BYTES + count * recordBytes;
+    }
+
+    @Override
+    public void flush() {
+        if (header != null) {
+            header.putLong(OFF_COUNT, count);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel == null) return;
+        flush();
+        header.force();
+        segment = null;
+        header = null;
+        try {
+            channel.truncate(HEADER_BYTES + count * recordBytes);
+        } catch (IOException e) {
+            // Some platforms refuse while a mapping is still live; the header count still holds
+        }
+        channel.close();
+        channel = null;
+    }
+
+    private void open(int width) throws IOException {
+        this.width = width;
+        this.recordBytes = recordBytes(width);
+        this.segmentRecords = Math.max(1, SEGMENT_BYTES / recordBytes);
+
+        if (Files.exists(file) && !appendable()) {
+            Path aside = file.resolveSibling(file.getFileName() + "." + System.currentTimeMillis());
+            Files.move(file, aside);
+        }
+
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt(OFF_MAGIC) == MAGIC) {
+            count = header.getLong(OFF_COUNT);
+        } else {
+            header.putInt(OFF_MAGIC, MAGIC);
+            header.putInt(OFF_VERSION, VERSION);
+            header.putInt(OFF_WIDTH, width);
+            header.putInt(OFF_RECORD_BYTES, recordBytes);
+            header.putLong(OFF_COUNT, 0L);
+            count = 0;
+        }
+    }
+
+    // True if the file is empty or a transition file of this version and width
+    private boolean appendable() throws IOException {
+        long size = Files.size(file);
+        if (size == 0) return true;
+        if (size < HEADER_BYTES) return false;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer map = in.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            return map.getInt(OFF_MAGIC) == MAGIC
+                    && map.getInt(OFF_VERSION) == VERSION
+                    && map.getInt(OFF_WIDTH) == width
+                    && map.getInt(OFF_RECORD_BYTES) == recordBytes
+                    && map.getLong(OFF_COUNT) * recordBytes <= size - HEADER_BYTES;
+        }
+    }
+
+    private void mapSegment(long firstRecord) throws IOException {
+        segmentStart = firstRecord;
+        long position = HEADER_BYTES + firstRecord * recordBytes;
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, position, (long) segmentRecords * recordBytes);
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,103 @@
+package me.evisual.rlenv.logging;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Formatter;
+import java.util.Locale;
+
+/**
+ * Appends transitions to a CSV file: obs,action,reward,next_obs,done,env with each observation's
+ * values semicolon-joined, formatted as %.6f. An existing file with another header, such as one
+ * from before the env column, is moved aside rather than appended to.
+ */
+final class CsvTransitionWriter implements TransitionSink
+{
+    private static final int WRITE_CHUNK_CHARS = 1 << 15;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    // obs_0,...,obs_n,action,reward,next_obs_0,...,next_obs_n,done,env
+    private static final String HEADER = "obs,action,reward,next_obs,done,env";
+
+    private final Path file;
+    private final BufferedWriter writer;
+    private long bytes;
+    private final StringBuilder sb = new StringBuilder(WRITE_CHUNK_CHARS + 1024);
+    private final Formatter formatter = new Formatter(sb, Locale.getDefault(Locale.Category.FORMAT));
+
+    CsvTransitionWriter(File file) throws IOException {
+        this.file = file.toPath();
+        boolean newFile = !file.exists() || file.length() == 0;
+        if (!newFile && !HEADER.equals(firstLine(this.file))) {
+            Path aside = this.file.resolveSibling(file.getName() + "." + System.currentTimeMillis());
+            Files.move(this.file, aside);
+            newFile = true;
+        }
+        this.writer = new BufferedWriter(new FileWriter(file, true), 1 << 16);
+        if (newFile) {
+            writer.write(HEADER);
+            writer.newLine();
+            writer.flush();
+        }
+        this.bytes = file.length();
+    }
+
+    private static String firstLine(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.ISO_8859_1)) {
+            return reader.readLine();
+        }
+    }
+
+    @Override
+    public void append(double[] values, int base, int width, int action, boolean done, int env) throws IOException {
+        appendArray(values, base, width);
+        sb.append(',').append(action).append(',');
+        formatter.format("%.6f", values[base + 2 * width]);
+        sb.append(',');
+        appendArray(values, base + width, width);
+        sb.append(',').append(done ? 1 : 0).append(',').append(env).append(LINE_SEPARATOR);
+        if (sb.length() >= WRITE_CHUNK_CHARS) {
+            writeBuffered();
+        }
+    }
+
+    private void writeBuffered() throws IOException {
+        // Numbers and separators only, so one char is one byte
+        bytes += sb.length();
+        writer.append(sb);
+        sb.setLength(0);
+    }
+
+    @Override
+    public Path file() {
+        return file;
+    }
+
+    @Override
+    public long bytes() {
+        return bytes + sb.length();
+    }
+
+    private void appendArray(double[] values, int offset, int width) {
+        for (int i = 0; i < width; i++) {
+            if (i > 0) sb.append(';');
+            formatter.format("%.6f", values[offset + i]);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writeBuffered();
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        writer.close();
+    }
+}
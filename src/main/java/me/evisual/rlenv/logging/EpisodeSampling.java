@@ -0,0 +1,124 @@
+package me.evisual.rlenv.logging;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Which episodes a {@link TransitionLogger} keeps. The decision is made once, when an episode
+ * starts, so the steps of a skipped episode cost nothing; only {@link Mode#SUCCESSFUL} has to
+ * wait for the outcome, and buffers the episode until then.
+ * <p>
+ * Episodes are numbered in the order they start, across every recorder of the logger.
+ */
+public final class EpisodeSampling
+{
+    public enum Mode
+    {
+        /** Every episode. */
+        ALL,
+        /** Every Nth episode, starting with the first. */
+        EVERY_NTH,
+        /** Episodes that end with a positive reward (reaching the goal). */
+        SUCCESSFUL,
+        /** Episodes from a given index on, e.g. once early exploration is over. */
+        AFTER,
+        /** A uniform random K episodes out of every window of W. */
+        RESERVOIR
+    }
+
+    private final Mode mode;
+    private final int every;
+    private final long afterEpisode;
+    private final int sampleSize;
+    private final int window;
+    private final Random random;
+
+    private long nextEpisode = 0;
+    private int selectedInWindow = 0;
+
+    private EpisodeSampling(Mode mode, int every, long afterEpisode, int sampleSize, int window, Random random) {
+        this.mode = mode;
+        this.every = Math.max(1, every);
+        this.afterEpisode = Math.max(0L, afterEpisode);
+        this.window = Math.max(1, window);
+        this.sampleSize = Math.max(0, Math.min(sampleSize, this.window));
+        this.random = random;
+    }
+
+    public static EpisodeSampling all() {
+        return new EpisodeSampling(Mode.ALL, 1, 0L, 0, 1, null);
+    }
+
+    public static EpisodeSampling everyNth(int n) {
+        return new EpisodeSampling(Mode.EVERY_NTH, n, 0L, 0, 1, null);
+    }
+
+    public static EpisodeSampling successfulOnly() {
+        return new EpisodeSampling(Mode.SUCCESSFUL, 1, 0L, 0, 1, null);
+    }
+
+    public static EpisodeSampling after(long episode) {
+        return new EpisodeSampling(Mode.AFTER, 1, episode, 0, 1, null);
+    }
+
+    public static EpisodeSampling reservoir(int sampleSize, int window) {
+        return reservoir(sampleSize, window, new Random());
+    }
+
+    public static EpisodeSampling reservoir(int sampleSize, int window, Random random) {
+        return new EpisodeSampling(Mode.RESERVOIR, 1, 0L, sampleSize, window, random);
+    }
+
+    /**
+     * Builds the sampling a config names ("all", "every-nth", "successful", "after", "reservoir"),
+     * or returns null if the mode is unknown.
+     */
+    public static EpisodeSampling fromConfig(String mode, int every, long afterEpisode, int sampleSize, int window) {
+        if (mode == null) return null;
+        Mode parsed;
+        try {
+            parsed = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return switch (parsed) {
+            case ALL -> all();
+            case EVERY_NTH -> everyNth(every);
+            case SUCCESSFUL -> successfulOnly();
+            case AFTER -> after(afterEpisode);
+            case RESERVOIR -> reservoir(sampleSize, window);
+        };
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    /** True if kept episodes also have to succeed, so they are only known at their end. */
+    public boolean needsOutcome() {
+        return mode == Mode.SUCCESSFUL;
+    }
+
+    /**
+     * Numbers the next episode and decides whether its transitions are kept.
+     * <p>
+     * The reservoir is filled by selection sampling: the i-th episode of a window is taken with
+     * probability (K - taken so far) / (W - i), which keeps exactly K per window, each equally
+     * likely, without holding back any episode until the window ends.
+     */
+    public synchronized boolean begin() {
+        long episode = nextEpisode++;
+        return switch (mode) {
+            case ALL, SUCCESSFUL -> true;
+            case EVERY_NTH -> episode % every == 0;
+            case AFTER -> episode >= afterEpisode;
+            case RESERVOIR -> {
+                int position = (int) (episode % window);
+                if (position == 0) selectedInWindow = 0;
+                boolean take = random.nextInt(window - position) < sampleSize - selectedInWindow;
+                if (take) selectedInWindow++;
+                yield take;
+            }
+        };
+    }
+}
@@ -0,0 +1,169 @@
+package me.evisual.rlenv.logging;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzips closed transition log segments on a low-priority thread, then deletes the oldest
+ * compressed segments while they take more than the retention limit.
+ * <p>
+ * A segment is compressed to a ".tmp" file that is renamed into place before the original is
+ * deleted, so an interrupted compression never loses data; leftovers are picked up again the next
+ * time a logger opens the folder. Segments that fail to compress are reported, and retried each
+ * time another segment is queued.
+ */
+final class SegmentCompressor
+{
+    static final String COMPRESSED_SUFFIX = ".gz";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private final Path folder;
+    private final String segmentPrefix;
+    private final long retainBytes;
+    private final TimingReporter reporter;
+    private final Logger log;
+    private final ExecutorService executor;
+    private final List<Path> failed = new ArrayList<>(); // compressor thread only
+
+    /**
+     * @param segmentPrefix file name prefix of rotated segments, e.g. "transitions-"
+     * @param retainBytes   most bytes of compressed segments to keep (0 = keep all)
+     * @param reporter      where compressed and failed segments are counted, or null
+     * @param log           where failures are reported
+     */
+    SegmentCompressor(Path folder, String segmentPrefix, long retainBytes, TimingReporter reporter, Logger log) {
+        this.folder = folder;
+        this.segmentPrefix = segmentPrefix;
+        this.retainBytes = Math.max(0L, retainBytes);
+        this.reporter = reporter;
+        this.log = log;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "RLEnv-LogCompressor");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /** Queues a closed segment for compression. */
+    void compress(Path segment) {
+        executor.execute(() -> {
+            retryFailed();
+            compressNow(segment);
+        });
+    }
+
+    /** Queues segments a previous run rotated but didn't get to compress. */
+    void recoverLeftovers() {
+        for (Path path : segments()) {
+            String name = path.getFileName().toString();
+            if (name.endsWith(TMP_SUFFIX)) {
+                tryDelete(path);
+            } else if (!name.endsWith(COMPRESSED_SUFFIX)) {
+                compress(path);
+            }
+        }
+    }
+
+    /** Lets queued compressions finish in the background, but accepts no more. */
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /** Waits for queued compressions; for tests and callers that can afford to block. */
+    boolean awaitTermination(long millis) throws InterruptedException {
+        return executor.awaitTermination(millis, TimeUnit.MILLISECONDS);
+    }
+
+    private void retryFailed() {
+        for (Path segment : new ArrayList<>(failed)) {
+            failed.remove(segment);
+            if (Files.exists(segment)) {
+                compressNow(segment);
+            }
+        }
+    }
+
+    private void compressNow(Path segment) {
+        Path target = segment.resolveSibling(segment.getFileName() + COMPRESSED_SUFFIX);
+        Path tmp = target.resolveSibling(target.getFileName() + TMP_SUFFIX);
+        try {
+            long rawBytes = Files.size(segment);
+            try (InputStream in = Files.newInputStream(segment);
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp), 1 << 16)) {
+                in.transferTo(out);
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.delete(segment);
+            if (reporter != null) {
+                reporter.recordLogSegment(rawBytes, Files.size(target));
+            }
+            enforceRetention();
+        } catch (IOException e) {
+            tryDelete(tmp);
+            if (Files.exists(segment)) {
+                failed.add(segment);
+            }
+            if (reporter != null) {
+                reporter.recordFailedLogSegment();
+            }
+            log.log(Level.WARNING, "Failed to compress transition log segment " + segment
+                    + "; retrying with the next one", e);
+        }
+    }
+
+    private void enforceRetention() throws IOException {
+        if (retainBytes == 0) return;
+
+        List<Path> compressed = new ArrayList<>();
+        long total = 0;
+        for (Path path : segments()) {
+            if (path.getFileName().toString().endsWith(COMPRESSED_SUFFIX)) {
+                compressed.add(path);
+                total += Files.size(path);
+            }
+        }
+        // Segment names sort by rotation time, so the oldest go first
+        compressed.sort(null);
+        for (int i = 0; i < compressed.size() && total > retainBytes; i++) {
+            total -= Files.size(compressed.get(i));
+            Files.delete(compressed.get(i));
+        }
+    }
+
+    private List<Path> segments() {
+        List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(folder, segmentPrefix + "*")) {
+            dir.forEach(result::add);
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Failed to list transition log segments in " + folder, e);
+        }
+        return result;
+    }
+
+    private static void tryDelete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // Picked up again by the next recoverLeftovers
+        }
+    }
+}
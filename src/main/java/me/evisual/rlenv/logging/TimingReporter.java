@@ -26,6 +26,11 @@ public final class TimingReporter implements Closeable {
     private long maxStepNanos = 0;
     private long maxTickNanos = 0;
 
+    private long logSegments = 0;
+    private long logSegmentRawBytes = 0;
+    private long logSegmentCompressedBytes = 0;
+    private long failedLogSegments = 0;
+
     public TimingReporter(Logger logger, File dataFolder, int reportIntervalSeconds) {
         this.logger = logger;
         this.reportFile = new File(dataFolder, "timing-report.txt");
@@ -34,7 +39,7 @@ public final class TimingReporter implements Closeable {
         this.lastReportNanos = startNanos;
     }
 
-    public void recordStep(long nanos) {
+    public synchronized void recordStep(long nanos) {
         stepCount++;
         totalStepNanos += nanos;
         if (nanos > maxStepNanos) {
@@ -42,7 +47,7 @@ public final class TimingReporter implements Closeable {
         }
     }
 
-    public void recordTick(long nanos) {
+    public synchronized void recordTick(long nanos) {
         tickCount++;
         totalTickNanos += nanos;
         if (nanos > maxTickNanos) {
@@ -50,11 +55,23 @@ public final class TimingReporter implements Closeable {
         }
     }
 
-    public void recordEpisode() {
+    public synchronized void recordEpisode() {
         episodeCount++;
     }
 
-    public void maybeReport() {
+    /** A rotated transition log segment was compressed from rawBytes down to compressedBytes. */
+    public synchronized void recordLogSegment(long rawBytes, long compressedBytes) {
+        logSegments++;
+        logSegmentRawBytes += rawBytes;
+        logSegmentCompressedBytes += compressedBytes;
+    }
+
+    /** Compressing a rotated transition log segment failed; it is retried later. */
+    public synchronized void recordFailedLogSegment() {
+        failedLogSegments++;
+    }
+
+    public synchronized void maybeReport() {
         long now = System.nanoTime();
         if ((now - lastReportNanos) < reportIntervalNanos) {
             return;
@@ -64,7 +81,7 @@ public final class TimingReporter implements Closeable {
     }
 
     @Override
-    public void close() {
+    public synchronized void close() {
         writeSummary();
     }
 
@@ -102,6 +119,15 @@ public final class TimingReporter implements Closeable {
                 .append(String.format("%.1f", ticksPerSecond)).append(" ticks/s) | ");
         line.append("episodes=").append(episodeCount)
                 .append(" (").append(String.format("%.2f", episodesPerMinute)).append(" /min)");
+        if (logSegments > 0) {
+            line.append(" | log segments=").append(logSegments)
+                    .append(" (").append(String.format("%.1f", logSegmentRawBytes / 1_048_576.0))
+                    .append(" MB compressed to ")
+                    .append(String.format("%.1f", logSegmentCompressedBytes / 1_048_576.0)).append(" MB)");
+        }
+        if (failedLogSegments > 0) {
+            line.append(" | failed segment compressions=").append(failedLogSegments);
+        }
         return line.toString();
     }
 
@@ -0,0 +1,22 @@
+package me.evisual.rlenv.logging;
+
+import java.util.Locale;
+
+/** How transitions are stored on disk. */
+public enum TransitionFormat
+{
+    /** transitions.csv: one text line per transition, observations semicolon-joined. */
+    CSV,
+    /** transitions.bin: fixed-width float32 records, see {@link BinaryTransitionWriter}. */
+    BINARY;
+
+    /** Parses a config value such as "binary"; null if it names no format. */
+    public static TransitionFormat fromConfig(String value) {
+        if (value == null) return null;
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
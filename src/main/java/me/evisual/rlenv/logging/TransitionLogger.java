@@ -4,93 +4,469 @@ import me.evisual.rlenv.env.Action;
 import me.evisual.rlenv.env.Observation;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
 
+/**
+ * Appends every transition to transitions.csv, or transitions.bin in the binary format, without
+ * doing any I/O on the stepping thread.
+ * <p>
+ * {@link #logTransition} only copies the transition's primitives into a preallocated ring buffer.
+ * A background writer thread takes whatever has accumulated and encodes it in one go,
+ * flushing the file at most once per flush interval. When the ring is full, loggers wait for the
+ * writer rather than drop transitions, and {@link #close()} writes everything still queued.
+ * <p>
+ * If writing fails, the writer stops and keeps the error for {@link #getFailure()}; from then on
+ * transitions are dropped and counted instead, so loggers never wait on a writer that is gone.
+ * <p>
+ * With a {@link Rotation}, the writer thread also closes the file as a segment once it is big
+ * enough or has enough episodes, and hands it to a low-priority thread to gzip.
+ * <p>
+ * Several threads may log at once (Hogwild actors share the arena's logger); the lock they take
+ * only covers the copy into the ring.
+ */
 public class TransitionLogger implements Closeable {
 
-    private final BufferedWriter writer;
+    public static final int DEFAULT_CAPACITY = 16384;
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000L;
+
+    // Wake the writer early once this much of the ring is waiting
+    private static final int WRITE_BATCH_DIVISOR = 4;
+    private static final String SEGMENT_PREFIX = "transitions-";
+
+    /**
+     * When the active file is closed as a segment and a new one started. Closed segments are
+     * gzipped in the background, and the oldest compressed ones deleted beyond retainBytes.
+     *
+     * @param maxSegmentBytes    rotate once the active file reaches this size (0 = no limit)
+     * @param maxSegmentEpisodes rotate after this many finished episodes (0 = no limit)
+     * @param retainBytes        most bytes of compressed segments kept (0 = keep all)
+     */
+    public record Rotation(long maxSegmentBytes, int maxSegmentEpisodes, long retainBytes) {
+        public static final Rotation NONE = new Rotation(0L, 0, 0L);
+
+        boolean enabled() {
+            return maxSegmentBytes > 0 || maxSegmentEpisodes > 0;
+        }
+    }
+
+    private final File dataFolder;
+    private final TransitionFormat format;
+    private final Rotation rotation;
+    private final SegmentCompressor compressor; // null without rotation
+    private final int capacity;
+    private final long flushIntervalNanos;
+
+    // Writer thread only
+    private TransitionSink sink;
+    private long written = 0; // records appended to the sink
+    private int segmentEpisodes = 0;
+    private long lastSegmentMillis = 0;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    // Ring of records, sized on the first transition: features of state and next state, reward
+    private int width = -1;
+    private double[] values;
+    private byte[] actions;
+    private boolean[] dones;
+    private short[] envs;
+    private long head = 0; // next record to fill
+    private long tail = 0; // next record to write
     private boolean closed = false;
+    private volatile Throwable failure; // what stopped the writer
+    private long dropped = 0;           // transitions not written because of it
+
+    private final Thread writerThread;
+    private volatile EpisodeSampling sampling = EpisodeSampling.all();
 
     public TransitionLogger(File dataFolder) {
+        this(dataFolder, TransitionFormat.CSV);
+    }
+
+    public TransitionLogger(File dataFolder, TransitionFormat format) {
+        this(dataFolder, format, Rotation.NONE, null, Logger.getLogger(TransitionLogger.class.getName()));
+    }
+
+    public TransitionLogger(File dataFolder, TransitionFormat format, Rotation rotation, TimingReporter reporter, Logger log) {
+        this(dataFolder, format, rotation, reporter, log, DEFAULT_CAPACITY, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param format               transitions.csv or transitions.bin
+     * @param rotation             segment rotation and retention, or {@link Rotation#NONE}
+     * @param reporter             where compressed and failed segments are counted, or null
+     * @param log                  where segments that fail to compress are reported
+     * @param capacity             transitions the ring holds before loggers have to wait
+     * @param flushIntervalMillis  longest a written transition stays in the file buffer
+     */
+    public TransitionLogger(File dataFolder,
+                            TransitionFormat format,
+                            Rotation rotation,
+                            TimingReporter reporter,
+                            Logger log,
+                            int capacity,
+                            long flushIntervalMillis) {
+        this.dataFolder = dataFolder;
+        this.format = format;
+        this.rotation = rotation;
+        this.capacity = Math.max(1, capacity);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, flushIntervalMillis));
         try {
             if (!dataFolder.exists()) {
                 dataFolder.mkdirs();
             }
+            this.sink = openSink();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to initialize TransitionLogger", e);
+        }
 
-            File file = new File(dataFolder, "transitions.csv");
-            boolean newFile = !file.exists() || file.length() == 0;
+        if (rotation.enabled()) {
+            compressor = new SegmentCompressor(dataFolder.toPath(), SEGMENT_PREFIX, rotation.retainBytes(), reporter, log);
+            compressor.recoverLeftovers();
+        } else {
+            compressor = null;
+        }
 
-            this.writer = new BufferedWriter(new FileWriter(file, true));
+        writerThread = new Thread(this::writeLoop, "RLEnv-TransitionLogger");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
 
-            if (newFile) {
-                writeHeader();
+    // Package-private so tests can stand in a failing sink
+    TransitionSink openSink() throws IOException {
+        return format == TransitionFormat.BINARY
+                ? new BinaryTransitionWriter(new File(dataFolder, "transitions.bin"))
+                : new CsvTransitionWriter(new File(dataFolder, "transitions.csv"));
+    }
+
+    /** Logs one transition of environment 0 unconditionally; {@link Recorder}s apply the episode sampling. */
+    public void logTransition(Observation state,
+                              Action action,
+                              double reward,
+                              Observation nextState,
+                              boolean done) {
+        logTransition(state, action, reward, nextState, done, 0);
+    }
+
+    /**
+     * Logs one transition unconditionally. env tells apart the environments of an arena that
+     * steps several (0 to 65535), whose episodes interleave in the log.
+     */
+    public void logTransition(Observation state,
+                              Action action,
+                              double reward,
+                              Observation nextState,
+                              boolean done,
+                              int env) {
+        double[] s = state.getFeatures();
+        double[] sNext = nextState.getFeatures();
+        if (sNext.length != s.length) {
+            throw new IllegalArgumentException("Observation sizes differ: " + s.length + " and " + sNext.length);
+        }
+        enqueue(s, 0, sNext, 0, s.length, reward, action.ordinal(), done, env);
+    }
+
+    private void enqueue(double[] s, int sOffset, double[] sNext, int nextOffset, int size,
+                         double reward, int action, boolean done, int env) {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
             }
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to initialize TransitionLogger", e);
+            if (failure != null) {
+                dropped++;
+                return;
+            }
+            if (width < 0) {
+                allocate(size);
+            } else if (size != width) {
+                throw new IllegalArgumentException("Observation size changed from " + width + " to " + size);
+            }
+            while (head - tail == capacity && !closed && failure == null) {
+                notFull.awaitUninterruptibly();
+            }
+            if (closed) {
+                return;
+            }
+            if (failure != null) {
+                dropped++;
+                return;
+            }
+
+            int slot = (int) (head % capacity);
+            int base = slot * recordDoubles();
+            System.arraycopy(s, sOffset, values, base, width);
+            System.arraycopy(sNext, nextOffset, values, base + width, width);
+            values[base + 2 * width] = reward;
+            actions[slot] = (byte) action;
+            dones[slot] = done;
+            envs[slot] = (short) env;
+            head++;
+
+            if (head - tail == Math.max(1, capacity / WRITE_BATCH_DIVISOR)) {
+                notEmpty.signal();
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
-    private void writeHeader() throws IOException {
-        // obs_0,...,obs_n,action,reward,next_obs_0,...,next_obs_n,done
-        writer.write("obs,action,reward,next_obs,done");
-        writer.newLine();
-        writer.flush();
+    /** Which episodes {@link Recorder}s keep; every episode by default. Set before recording. */
+    public void setSampling(EpisodeSampling sampling) {
+        this.sampling = sampling;
+    }
+
+    /** A recorder for environment 0. */
+    public Recorder recorder() {
+        return recorder(0);
     }
 
-    public synchronized void logTransition(Observation state,
-                                           Action action,
-                                           double reward,
-                                           Observation nextState,
-                                           boolean done) {
-        if (closed) {
-            return;
+    /** A recorder for one environment's stream of consecutive episodes, logged with its index. */
+    public Recorder recorder(int env) {
+        return new Recorder(env);
+    }
+
+    /**
+     * Logs one environment's transitions, keeping only the episodes the logger's sampling picks.
+     * The choice is made at each episode's first step; a skipped episode's steps return at once.
+     * Episodes that are only kept if they succeed are buffered here and handed over when they end.
+     * Not thread-safe: each stepping thread or environment uses its own.
+     */
+    public final class Recorder
+    {
+        private final int env;
+        private boolean episodeStarted = false;
+        private boolean keep;
+        private boolean deferred;
+
+        // Episode held back until its outcome is known: [obs, next obs, reward] per step
+        private int bufferedWidth = 0;
+        private double[] buffer = new double[0];
+        private byte[] bufferedActions = new byte[0];
+        private int buffered = 0;
+
+        private Recorder(int env) {
+            this.env = env;
         }
 
-        double[] s = state.getFeatures();
-        double[] sNext = nextState.getFeatures();
+        public void log(Observation state, Action action, double reward, Observation nextState, boolean done) {
+            if (!episodeStarted) {
+                EpisodeSampling current = sampling;
+                keep = current.begin();
+                deferred = keep && current.needsOutcome();
+                episodeStarted = true;
+                buffered = 0;
+            }
+            if (keep) {
+                if (deferred) {
+                    buffer(state.getFeatures(), action, reward, nextState.getFeatures());
+                    if (done && reward > 0.0) commit();
+                } else {
+                    logTransition(state, action, reward, nextState, done, env);
+                }
+            }
+            if (done) {
+                episodeStarted = false;
+            }
+        }
 
-        String obsStr = joinArray(s);
-        String nextObsStr = joinArray(sNext);
-        int actionIndex = action.ordinal();
-        int doneFlag = done ? 1 : 0;
+        private void buffer(double[] s, Action action, double reward, double[] sNext) {
+            int w = s.length;
+            if (buffered == 0) bufferedWidth = w;
+            int stride = 2 * w + 1;
+            if ((buffered + 1) * stride > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(64 * stride, buffer.length * 2));
+            }
+            if (buffered == bufferedActions.length) {
+                bufferedActions = Arrays.copyOf(bufferedActions, Math.max(64, buffered * 2));
+            }
+            int base = buffered * stride;
+            System.arraycopy(s, 0, buffer, base, w);
+            System.arraycopy(sNext, 0, buffer, base + w, w);
+            buffer[base + 2 * w] = reward;
+            bufferedActions[buffered++] = (byte) action.ordinal();
+        }
+
+        private void commit() {
+            int w = bufferedWidth;
+            int stride = 2 * w + 1;
+            for (int i = 0; i < buffered; i++) {
+                int base = i * stride;
+                enqueue(buffer, base, buffer, base + w, w, buffer[base + 2 * w], bufferedActions[i], i == buffered - 1, env);
+            }
+            buffered = 0;
+        }
+    }
+
+    private void allocate(int observationSize) {
+        width = observationSize;
+        values = new double[capacity * recordDoubles()];
+        actions = new byte[capacity];
+        dones = new boolean[capacity];
+        envs = new short[capacity];
+    }
+
+    private int recordDoubles() {
+        return 2 * width + 1;
+    }
 
-        String line = obsStr + "," + actionIndex + "," + formatDouble(reward) + "," + nextObsStr + "," + doneFlag;
+    /**
+     * Writer thread body: waits for a batch (or the flush interval), formats the records between
+     * tail and head outside the lock, and only then frees their slots. Stops at the first error,
+     * dropping what is still queued.
+     */
+    private void writeLoop() {
+        long lastFlush = System.nanoTime();
 
         try {
-            writer.write(line);
-            writer.newLine();
-            writer.flush();
-        } catch (IOException e) {
-            e.printStackTrace();
+            while (true) {
+                long from;
+                long to;
+                boolean closing;
+                lock.lock();
+                try {
+                    long waitNanos = flushIntervalNanos - (System.nanoTime() - lastFlush);
+                    while (!closed && head - tail < Math.max(1, capacity / WRITE_BATCH_DIVISOR) && waitNanos > 0) {
+                        try {
+                            waitNanos = notEmpty.awaitNanos(waitNanos);
+                        } catch (InterruptedException e) {
+                            break;
+                        }
+                    }
+                    from = tail;
+                    to = head;
+                    closing = closed;
+                } finally {
+                    lock.unlock();
+                }
+
+                for (long r = from; r < to; r++) {
+                    int slot = (int) (r % capacity);
+                    sink.append(values, slot * recordDoubles(), width, actions[slot], dones[slot], envs[slot] & 0xFFFF);
+                    if (dones[slot]) segmentEpisodes++;
+                    if (rotationDue()) rotate();
+                    written = r + 1;
+                }
+                if (closing || System.nanoTime() - lastFlush >= flushIntervalNanos) {
+                    sink.flush();
+                    lastFlush = System.nanoTime();
+                }
+
+                lock.lock();
+                try {
+                    tail = to;
+                    notFull.signalAll();
+                    if (closing && tail == head) break;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } catch (IOException | RuntimeException | Error e) {
+            lock.lock();
+            try {
+                failure = e;
+                dropped += head - written;
+                tail = head;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            try {
+                sink.close();
+            } catch (IOException | RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else if (failure != e) {
+                    failure.addSuppressed(e);
+                }
+            }
+            if (compressor != null) {
+                compressor.shutdown();
+            }
         }
     }
 
-    private String joinArray(double[] arr) {
-        if (arr.length == 0) {
-            return "";
+    /** The error that stopped the writer thread, or null while it is writing normally. */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /** Transitions dropped because the writer had failed. */
+    public long getDroppedTransitions() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
         }
-        StringBuilder sb = new StringBuilder(arr.length * 8);
-        sb.append(formatDouble(arr[0]));
-        for (int i = 1; i < arr.length; i++) {
-            sb.append(';').append(formatDouble(arr[i]));
+    }
+
+    private boolean rotationDue() {
+        return (rotation.maxSegmentBytes() > 0 && sink.bytes() >= rotation.maxSegmentBytes())
+                || (rotation.maxSegmentEpisodes() > 0 && segmentEpisodes >= rotation.maxSegmentEpisodes());
+    }
+
+    /**
+     * Closes the active file, renames it to the next segment name and queues it for compression,
+     * then starts a new active file. Runs on the writer thread, so loggers only ever wait if the
+     * ring fills up in the meantime.
+     */
+    private void rotate() throws IOException {
+        sink.close();
+        try {
+            Path active = sink.file();
+            if (Files.exists(active)) {
+                Path segment = active.resolveSibling(nextSegmentName(active.getFileName().toString()));
+                Files.move(active, segment);
+                compressor.compress(segment);
+            }
+        } finally {
+            // If the rename failed, this keeps appending to the same file
+            sink = openSink();
+            segmentEpisodes = 0;
         }
-        return sb.toString();
     }
 
-    private String formatDouble(double value) {
-        return String.format("%.6f", value);
+    // transitions-<millis>.csv, zero-padded so names sort by rotation time
+    private String nextSegmentName(String activeName) {
+        String extension = activeName.substring(activeName.lastIndexOf('.'));
+        long millis = Math.max(System.currentTimeMillis(), lastSegmentMillis + 1);
+        lastSegmentMillis = millis;
+        return String.format("%s%015d%s", SEGMENT_PREFIX, millis, extension);
     }
 
+    /** Waits for queued segment compressions after {@link #close()}; for tests. */
+    boolean awaitCompression(long millis) throws InterruptedException {
+        return compressor == null || compressor.awaitTermination(millis);
+    }
+
+    /** Stops accepting transitions, then waits until everything already logged is written. */
     @Override
-    public synchronized void close() {
-        if (closed) {
-            return;
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notEmpty.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
         }
-        closed = true;
         try {
-            writer.flush();
-            writer.close();
-        } catch (IOException e) {
-            e.printStackTrace();
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 }
@@ -0,0 +1,161 @@
+package me.evisual.rlenv.logging;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static me.evisual.rlenv.logging.BinaryTransitionWriter.HEADER_BYTES;
+import static me.evisual.rlenv.logging.BinaryTransitionWriter.MAGIC;
+import static me.evisual.rlenv.logging.BinaryTransitionWriter.OFF_COUNT;
+import static me.evisual.rlenv.logging.BinaryTransitionWriter.OFF_MAGIC;
+import static me.evisual.rlenv.logging.BinaryTransitionWriter.OFF_RECORD_BYTES;
+import static me.evisual.rlenv.logging.BinaryTransitionWriter.OFF_VERSION;
+import static me.evisual.rlenv.logging.BinaryTransitionWriter.OFF_WIDTH;
+import static me.evisual.rlenv.logging.BinaryTransitionWriter.VERSION;
+
+/**
+ * Random access to a file written by {@link BinaryTransitionWriter}.
+ * <p>
+ * The records the header counts when the reader opens are mapped read-only; every accessor reads
+ * straight out of the mapping, so streaming is just a loop over indices with nothing parsed or
+ * copied. Records appended after opening are not visible.
+ */
+public final class TransitionReader implements Closeable
+{
+    // Largest mapping per segment, a whole number of records
+    private static final int MAX_SEGMENT_BYTES = 1 << 30;
+
+    private final FileChannel channel;
+    private final int width;
+    private final int recordBytes;
+    private final long count;
+    private final int segmentRecords;
+    private final MappedByteBuffer[] segments;
+
+    public TransitionReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Transition file " + file + " is truncated");
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(OFF_MAGIC) != MAGIC || header.getInt(OFF_VERSION) != VERSION) {
+                throw new IOException("Transition file " + file + " has an unknown format");
+            }
+            width = header.getInt(OFF_WIDTH);
+            recordBytes = header.getInt(OFF_RECORD_BYTES);
+            count = header.getLong(OFF_COUNT);
+            if (width < 0 || recordBytes != BinaryTransitionWriter.recordBytes(width) || count < 0
+                    || size < HEADER_BYTES + count * recordBytes) {
+                throw new IOException("Transition file " + file + " is truncated");
+            }
+
+            segmentRecords = Math.max(1, MAX_SEGMENT_BYTES / recordBytes);
+            segments = new MappedByteBuffer[(int) ((count + segmentRecords - 1) / segmentRecords)];
+            for (int s = 0; s < segments.length; s++) {
+                long first = (long) s * segmentRecords;
+                long records = Math.min(segmentRecords, count - first);
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_BYTES + first * recordBytes, records * recordBytes);
+                segments[s].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Number of transitions. */
+    public long size() {
+        return count;
+    }
+
+    /** Observation width. */
+    public int width() {
+        return width;
+    }
+
+    public float observation(long record, int i) {
+        return segment(record).getFloat(offset(record) + i * Float.BYTES);
+    }
+
+    public float nextObservation(long record, int i) {
+        return segment(record).getFloat(offset(record) + (width + i) * Float.BYTES);
+    }
+
+    public float reward(long record) {
+        return segment(record).getFloat(offset(record) + 8 * width);
+    }
+
+    public int action(long record) {
+        return segment(record).get(offset(record) + 8 * width + 4) & 0xFF;
+    }
+
+    public boolean done(long record) {
+        return segment(record).get(offset(record) + 8 * width + 5) != 0;
+    }
+
+    /** Index of the environment that took the step, within the arena that logged it. */
+    public int env(long record) {
+        return segment(record).getShort(offset(record) + 8 * width + 6) & 0xFFFF;
+    }
+
+    /** Copies the record's observation into out[0 .. width). */
+    public void readObservation(long record, float[] out) {
+        MappedByteBuffer segment = segment(record);
+        int offset = offset(record);
+        for (int i = 0; i < width; i++) {
+            out[i] = segment.getFloat(offset + i * Float.BYTES);
+        }
+    }
+
+    /** Copies the record's next observation into out[0 .. width). */
+    public void readNextObservation(long record, float[] out) {
+        MappedByteBuffer segment = segment(record);
+        int offset = offset(record) + width * Float.BYTES;
+        for (int i = 0; i < width; i++) {
+            out[i] = segment.getFloat(offset + i * Float.BYTES);
+        }
+    }
+
+    /**
+     * Writes every record to a CSV file in the format {@link TransitionFormat#CSV} logs, appending
+     * if it already exists.
+     */
+    public void exportCsv(File csv) throws IOException {
+        double[] values = new double[2 * width + 1];
+        try (CsvTransitionWriter out = new CsvTransitionWriter(csv)) {
+            for (long r = 0; r < count; r++) {
+                for (int i = 0; i < width; i++) {
+                    values[i] = observation(r, i);
+                    values[width + i] = nextObservation(r, i);
+                }
+                values[2 * width] = reward(r);
+                out.append(values, 0, width, action(r), done(r), env(r));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private MappedByteBuffer segment(long record) {
+        if (record < 0 || record >= count) {
+            throw new IndexOutOfBoundsException("Record " + record + " of " + count);
+        }
+        return segments[(int) (record / segmentRecords)];
+    }
+
+    private int offset(long record) {
+        return (int) (record % segmentRecords) * recordBytes;
+    }
+}
@@ -0,0 +1,334 @@
+package me.evisual.rlenv.logging;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static me.evisual.rlenv.logging.BinaryTransitionWriter.HEADER_BYTES;
+import static me.evisual.rlenv.logging.BinaryTransitionWriter.MAGIC;
+import static me.evisual.rlenv.logging.BinaryTransitionWriter.OFF_COUNT;
+import static me.evisual.rlenv.logging.BinaryTransitionWriter.OFF_MAGIC;
+import static me.evisual.rlenv.logging.BinaryTransitionWriter.OFF_RECORD_BYTES;
+import static me.evisual.rlenv.logging.BinaryTransitionWriter.OFF_VERSION;
+import static me.evisual.rlenv.logging.BinaryTransitionWriter.OFF_WIDTH;
+import static me.evisual.rlenv.logging.BinaryTransitionWriter.VERSION;
+
+/**
+ * Streams transition logs to a {@link Visitor}, one transition at a time, whatever they were
+ * written as: CSV or binary (told apart by the binary header), plain or gzipped like rotated
+ * segments.
+ * <p>
+ * Files are read in large chunks into one reused buffer and parsed in place, CSV numbers included,
+ * so a scan allocates nothing per line and runs at about the speed the disk delivers. The arrays
+ * handed to the visitor are reused as well: copy what has to outlive the call.
+ * <p>
+ * Not thread-safe; one scanner per thread, reused across files.
+ */
+public final class TransitionScanner
+{
+    private static final int CHUNK_BYTES = 1 << 20;
+    // Exact powers of ten; a mantissa of at most 15 digits divided by one is correctly rounded
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+    private static final int MAX_FAST_DIGITS = 15;
+
+    /** Receives each transition of a scan. */
+    public interface Visitor
+    {
+        /**
+         * @param env index of the environment that took the step; 0 in logs from before it was recorded
+         * @return false to stop the scan after this transition
+         */
+        boolean transition(double[] state, int action, double reward, double[] nextState, boolean done, int env);
+    }
+
+    private byte[] buffer = new byte[CHUNK_BYTES];
+    private ByteBuffer view = ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN);
+    private InputStream in;
+    private int position;
+    private int limit;
+    private boolean eof;
+
+    private double[] state = new double[0];
+    private double[] nextState = new double[0];
+    private int cursor; // parse position within the current CSV line
+    private int lineAction;
+    private double lineReward;
+    private int lineEnv;
+
+    /**
+     * Log files in a folder in the order they were written: rotated segments oldest first, then
+     * the active file. Partly written ".tmp" files and logs moved aside for a different
+     * observation width ("transitions.bin.<time>") are left out.
+     */
+    public static List<Path> logFiles(Path folder) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(folder)) return files;
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(folder, "transitions*")) {
+            for (Path path : dir) {
+                String name = path.getFileName().toString();
+                if (Files.isRegularFile(path) && (name.endsWith(".csv") || name.endsWith(".bin")
+                        || name.endsWith(SegmentCompressor.COMPRESSED_SUFFIX))) {
+                    files.add(path);
+                }
+            }
+        }
+        // "transitions-<time>" sorts before "transitions.", so the active file comes last
+        files.sort(null);
+        return files;
+    }
+
+    /**
+     * Visits every transition in the file, or until the visitor asks to stop.
+     *
+     * @return the number of transitions visited
+     */
+    public long scan(Path file, Visitor visitor) throws IOException {
+        try (InputStream opened = open(file)) {
+            if (ensure(4) && view.getInt(position + OFF_MAGIC) == MAGIC) {
+                return scanBinary(file, visitor);
+            }
+            return scanCsv(file, visitor);
+        } finally {
+            in = null;
+        }
+    }
+
+    /**
+     * The observation width of the file's transitions, read from the binary header or the first
+     * CSV line without scanning the rest; -1 if the file holds no transitions.
+     */
+    public int width(Path file) throws IOException {
+        try (InputStream opened = open(file)) {
+            if (ensure(4) && view.getInt(position + OFF_MAGIC) == MAGIC) {
+                if (!ensure(HEADER_BYTES)) {
+                    throw new IOException("Transition file " + file + " has an unknown format");
+                }
+                return view.getLong(position + OFF_COUNT) > 0 ? view.getInt(position + OFF_WIDTH) : -1;
+            }
+            int[] width = { -1 };
+            scanCsv(file, (state, action, reward, nextState, done, env) -> {
+                width[0] = state.length;
+                return false;
+            });
+            return width[0];
+        } finally {
+            in = null;
+        }
+    }
+
+    private InputStream open(Path file) throws IOException {
+        InputStream stream = Files.newInputStream(file);
+        if (file.getFileName().toString().endsWith(SegmentCompressor.COMPRESSED_SUFFIX)) {
+            stream = new GZIPInputStream(stream, 1 << 16);
+        }
+        in = stream;
+        position = 0;
+        limit = 0;
+        eof = false;
+        return stream;
+    }
+
+    private long scanBinary(Path file, Visitor visitor) throws IOException {
+        if (!ensure(HEADER_BYTES) || view.getInt(position + OFF_VERSION) != VERSION) {
+            throw new IOException("Transition file " + file + " has an unknown format");
+        }
+        int width = view.getInt(position + OFF_WIDTH);
+        int recordBytes = view.getInt(position + OFF_RECORD_BYTES);
+        long count = view.getLong(position + OFF_COUNT);
+        if (width < 0 || recordBytes != BinaryTransitionWriter.recordBytes(width)) {
+            throw new IOException("Transition file " + file + " has an unknown format");
+        }
+        position += HEADER_BYTES;
+        size(width);
+
+        long visited = 0;
+        // The header count, not the file length, says how much is written; a live file is longer
+        while (visited < count && ensure(recordBytes)) {
+            int base = position;
+            for (int i = 0; i < width; i++) {
+                state[i] = view.getFloat(base + i * Float.BYTES);
+                nextState[i] = view.getFloat(base + (width + i) * Float.BYTES);
+            }
+            double reward = view.getFloat(base + 8 * width);
+            int action = buffer[base + 8 * width + 4] & 0xFF;
+            boolean done = buffer[base + 8 * width + 5] != 0;
+            int env = view.getShort(base + 8 * width + 6) & 0xFFFF;
+            position += recordBytes;
+            visited++;
+            if (!visitor.transition(state, action, reward, nextState, done, env)) break;
+        }
+        return visited;
+    }
+
+    private long scanCsv(Path file, Visitor visitor) throws IOException {
+        long visited = 0;
+        long line = 0;
+        int width = -1;
+        int searchFrom = position;
+        while (true) {
+            int end = indexOf((byte) '\n', searchFrom, limit);
+            if (end < 0) {
+                if (eof) {
+                    if (position == limit) break;
+                    end = limit; // last line without a line break
+                } else {
+                    int searched = limit - position;
+                    refill();
+                    searchFrom = position + searched;
+                    continue;
+                }
+            }
+
+            line++;
+            int start = position;
+            int lineEnd = end > start && buffer[end - 1] == '\r' ? end - 1 : end;
+            position = Math.min(limit, end + 1);
+            searchFrom = position;
+            // Skip the header and blank lines
+            if (lineEnd == start || buffer[start] == 'o') continue;
+
+            if (width < 0) {
+                width = 1;
+                for (int i = start; i < lineEnd && buffer[i] != ','; i++) {
+                    if (buffer[i] == ';') width++;
+                }
+                size(width);
+            }
+            boolean done = parseLine(start, lineEnd, width, file, line);
+            visited++;
+            if (!visitor.transition(state, lineAction, lineReward, nextState, done, lineEnv)) break;
+        }
+        return visited;
+    }
+
+    /** obs_0;...;obs_n,action,reward,next_0;...;next_n,done[,env] (older logs have no env) */
+    private boolean parseLine(int start, int end, int width, Path file, long line) throws IOException {
+        cursor = start;
+        for (int i = 0; i < width; i++) {
+            state[i] = number(end, file, line);
+            expect(i < width - 1 ? ';' : ',', end, file, line);
+        }
+        lineAction = (int) number(end, file, line);
+        expect(',', end, file, line);
+        lineReward = number(end, file, line);
+        expect(',', end, file, line);
+        for (int i = 0; i < width; i++) {
+            nextState[i] = number(end, file, line);
+            expect(i < width - 1 ? ';' : ',', end, file, line);
+        }
+        if (cursor >= end || (buffer[cursor] != '0' && buffer[cursor] != '1')) {
+            throw malformed(file, line);
+        }
+        boolean done = buffer[cursor++] == '1';
+        lineEnv = 0;
+        if (cursor < end) {
+            expect(',', end, file, line);
+            double env = number(end, file, line);
+            if (cursor != end || env < 0 || env > 0xFFFF || env != (int) env) {
+                throw malformed(file, line);
+            }
+            lineEnv = (int) env;
+        }
+        return done;
+    }
+
+    private double number(int end, Path file, long line) throws IOException {
+        int start = cursor;
+        boolean negative = cursor < end && buffer[cursor] == '-';
+        if (negative) cursor++;
+
+        long mantissa = 0;
+        int digits = 0;
+        int fraction = -1;
+        while (cursor < end) {
+            byte c = buffer[cursor];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (fraction >= 0) fraction++;
+            } else if (c == '.' && fraction < 0) {
+                fraction = 0;
+            } else {
+                break;
+            }
+            cursor++;
+        }
+
+        boolean delimited = cursor == end || buffer[cursor] == ',' || buffer[cursor] == ';';
+        if (delimited && digits > 0 && digits <= MAX_FAST_DIGITS) {
+            double value = fraction > 0 ? mantissa / POW10[fraction] : mantissa;
+            return negative ? -value : value;
+        }
+
+        // Exponents, NaN, Infinity and long mantissas: rare, so parse them the slow way
+        while (cursor < end && buffer[cursor] != ',' && buffer[cursor] != ';') cursor++;
+        try {
+            return Double.parseDouble(new String(buffer, start, cursor - start, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw malformed(file, line);
+        }
+    }
+
+    private void expect(char separator, int end, Path file, long line) throws IOException {
+        if (cursor >= end || buffer[cursor] != separator) {
+            throw malformed(file, line);
+        }
+        cursor++;
+    }
+
+    private static IOException malformed(Path file, long line) {
+        return new IOException("Malformed transition at " + file + " line " + line);
+    }
+
+    private int indexOf(byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == b) return i;
+        }
+        return -1;
+    }
+
+    /** Makes at least n unread bytes available, unless the file ends first. */
+    private boolean ensure(int n) throws IOException {
+        while (limit - position < n && !eof) {
+            refill();
+        }
+        return limit - position >= n;
+    }
+
+    /** Moves the unread bytes to the front (growing the buffer if they fill it) and reads more. */
+    private void refill() throws IOException {
+        int unread = limit - position;
+        if (unread == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            view = ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN);
+        } else if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, unread);
+        }
+        position = 0;
+        limit = unread;
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    private void size(int width) {
+        if (state.length != width) {
+            state = new double[width];
+            nextState = new double[width];
+        }
+    }
+}
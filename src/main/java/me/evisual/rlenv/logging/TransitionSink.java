@@ -0,0 +1,27 @@
+package me.evisual.rlenv.logging;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Encodes and stores the transitions {@link TransitionLogger}'s writer thread takes off its ring.
+ * Only ever called from that thread.
+ */
+interface TransitionSink extends Closeable
+{
+    /**
+     * Appends one transition. values[base ..] holds the observation, then the next observation
+     * (width values each), then the reward. env is the index of the environment that took the step.
+     */
+    void append(double[] values, int base, int width, int action, boolean done, int env) throws IOException;
+
+    /** Makes everything appended so far visible in the file. */
+    void flush() throws IOException;
+
+    /** The file being appended to. */
+    Path file();
+
+    /** Size of the file once everything appended so far is flushed. */
+    long bytes();
+}
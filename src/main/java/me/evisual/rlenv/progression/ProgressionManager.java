@@ -11,12 +11,15 @@ import org.bukkit.block.BlockFace;
 import org.bukkit.entity.Player;
 import org.bukkit.util.Vector;
 
+import java.util.concurrent.CompletableFuture;
+
 public class ProgressionManager {
 
     private final RLEnvPlugin plugin;
 
     private QuartzRoom room;
     private TerrainSnapshot roomSnapshot;
+    private CompletableFuture<Void> roomBuilt;
 
     private int levelIndex = -1;
     private ArenaConfig arenaConfig;
@@ -50,16 +53,23 @@ public class ProgressionManager {
         goalX = arenaConfig.maxX() - 2;
         goalZ = arenaConfig.maxZ() - 2;
 
-        room = new QuartzRoom(arenaConfig);
+        QuartzRoom builtRoom = new QuartzRoom(arenaConfig, plugin.getBlockEdits());
+        room = builtRoom;
         BlockFace barrierSide = computeBarrierSide(startLoc);
-        room.build(barrierSide);
         roomSnapshot = room.snapshot();
         teleportPlayerInFront(player, startLoc);
 
         levelIndex = 0;
-        policy = new QLearningPolicy();
+        policy = plugin.createPolicy("progression");
         currentEnv = makeLevelEnvironment(levelIndex);
-        plugin.startEnvironmentWithCustomEnv(player, currentEnv, policy);
+
+        // The first level places its goal in the room, so it starts once the room is built
+        roomBuilt = room.build(barrierSide);
+        roomBuilt.thenRun(() -> {
+            if (room == builtRoom && player.isOnline()) {
+                plugin.startEnvironmentWithCustomEnv(player, currentEnv, policy);
+            }
+        });
     }
 
     public void next(Player player) {
@@ -67,6 +77,9 @@ public class ProgressionManager {
             start(player);
             return;
         }
+        if (!roomBuilt.isDone()) {
+            return; // still building; the first level hasn't started yet
+        }
 
         if (currentEnv != null) {
             currentEnv.cleanupGoal();
@@ -85,18 +98,19 @@ public class ProgressionManager {
     }
 
     public void stop() {
-        plugin.stopEnvironment();
+        plugin.stopArena(RLEnvPlugin.PROGRESSION_ARENA);
 
         if (currentEnv != null) {
             currentEnv.cleanupGoal();
         }
 
         if (roomSnapshot != null && arenaConfig != null) {
-            roomSnapshot.restore(arenaConfig.world());
+            roomSnapshot.restore(plugin.getBlockEdits(), arenaConfig.world());
         }
 
         room = null;
         roomSnapshot = null;
+        roomBuilt = null;
         arenaConfig = null;
         levelIndex = -1;
         currentEnv = null;
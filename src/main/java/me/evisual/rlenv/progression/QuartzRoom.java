@@ -1,21 +1,25 @@
 package me.evisual.rlenv.progression;
 
 import me.evisual.rlenv.env.goldcollector.ArenaConfig;
+import me.evisual.rlenv.world.BlockEditQueue;
 import me.evisual.rlenv.world.TerrainSnapshot;
 import org.bukkit.Material;
 import org.bukkit.World;
-import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 
+import java.util.concurrent.CompletableFuture;
+
 public class QuartzRoom {
 
     public static final int ROOM_HEIGHT = 10;
 
     private final ArenaConfig arena;
+    private final BlockEditQueue edits;
     private final TerrainSnapshot snapshot = new TerrainSnapshot();
 
-    public QuartzRoom(ArenaConfig arena) {
+    public QuartzRoom(ArenaConfig arena, BlockEditQueue edits) {
         this.arena = arena;
+        this.edits = edits;
     }
 
     public TerrainSnapshot snapshot() {
@@ -25,8 +29,9 @@ public class QuartzRoom {
     /**
      * Builds a room around the arena bounds.
      * Floor/ceiling/walls are QUARTZ_BLOCK except one wall of BARRIER.
+     * The blocks are queued, one change per block; the future completes once the room is built.
      */
-    public void build(BlockFace barrierSide) {
+    public CompletableFuture<Void> build(BlockFace barrierSide) {
         World w = arena.world();
         int minX = arena.minX();
         int maxX = arena.maxX();
@@ -44,46 +49,36 @@ public class QuartzRoom {
         int wallMinZ = minZ - 1;
         int wallMaxZ = maxZ + 1;
 
-        // Clear interior (air volume) so the agent can move freely.
+        BlockEditQueue.Batch batch = edits.batch(w);
         for (int x = wallMinX; x <= wallMaxX; x++) {
             for (int z = wallMinZ; z <= wallMaxZ; z++) {
                 for (int y = y0; y <= y1; y++) {
-                    Block b = w.getBlockAt(x, y, z);
-                    snapshot.capture(b);
-                    b.setType(Material.AIR, false);
+                    Material m;
+                    if (y == y0 || y == y1) {
+                        // Floor + ceiling
+                        m = Material.QUARTZ_BLOCK;
+                    } else if (z == wallMinZ || z == wallMaxZ || x == wallMinX || x == wallMaxX) {
+                        m = wallMaterial(barrierSide, x, z, wallMinX, wallMaxX, wallMinZ, wallMaxZ);
+                    } else {
+                        // Clear interior (air volume) so the agent can move freely.
+                        m = Material.AIR;
+                    }
+                    snapshot.capture(w.getBlockAt(x, y, z));
+                    batch.set(x, y, z, m);
                 }
             }
         }
-
-        // Floor + ceiling
-        for (int x = wallMinX; x <= wallMaxX; x++) {
-            for (int z = wallMinZ; z <= wallMaxZ; z++) {
-                set(w, x, y0, z, Material.QUARTZ_BLOCK);
-                set(w, x, y1, z, Material.QUARTZ_BLOCK);
-            }
-        }
-
-        // Walls
-        for (int y = y0 + 1; y <= y1 - 1; y++) {
-            for (int x = wallMinX; x <= wallMaxX; x++) {
-                Material north = barrierSide == BlockFace.NORTH ? Material.BARRIER : Material.QUARTZ_BLOCK;
-                Material south = barrierSide == BlockFace.SOUTH ? Material.BARRIER : Material.QUARTZ_BLOCK;
-                set(w, x, y, wallMinZ, north);
-                set(w, x, y, wallMaxZ, south);
-            }
-            for (int z = wallMinZ; z <= wallMaxZ; z++) {
-                Material west = barrierSide == BlockFace.WEST ? Material.BARRIER : Material.QUARTZ_BLOCK;
-                Material east = barrierSide == BlockFace.EAST ? Material.BARRIER : Material.QUARTZ_BLOCK;
-                set(w, wallMinX, y, z, west);
-                set(w, wallMaxX, y, z, east);
-            }
-        }
+        return batch.submit();
     }
 
-
-    private void set(World w, int x, int y, int z, Material m) {
-        Block b = w.getBlockAt(x, y, z);
-        snapshot.capture(b);
-        b.setType(m, false);
+    private static Material wallMaterial(BlockFace barrierSide, int x, int z,
+                                         int wallMinX, int wallMaxX, int wallMinZ, int wallMaxZ) {
+        // Corners belong to the east/west walls
+        BlockFace side;
+        if (x == wallMinX) side = BlockFace.WEST;
+        else if (x == wallMaxX) side = BlockFace.EAST;
+        else if (z == wallMinZ) side = BlockFace.NORTH;
+        else side = BlockFace.SOUTH;
+        return side == barrierSide ? Material.BARRIER : Material.QUARTZ_BLOCK;
     }
 }
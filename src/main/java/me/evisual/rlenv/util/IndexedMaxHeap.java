@@ -0,0 +1,111 @@
+package me.evisual.rlenv.util;
+
+import java.util.Arrays;
+
+/**
+ * Binary max-heap over int ids in [0, capacity) with a position index, so an id that is already
+ * queued can have its priority raised in place instead of being queued twice.
+ * <p>
+ * Everything lives in primitive arrays sized up front; no operation allocates.
+ */
+public final class IndexedMaxHeap
+{
+    private final int[] heap;        // heap slot -> id
+    private final int[] position;    // id -> heap slot, or -1 when not queued
+    private final double[] priority; // id -> priority (valid while queued)
+    private int size = 0;
+
+    public IndexedMaxHeap(int capacity) {
+        this.heap = new int[capacity];
+        this.position = new int[capacity];
+        this.priority = new double[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    /**
+     * Queues id with the given priority, or raises its priority if already queued and lower.
+     */
+    public void offer(int id, double p) {
+        int slot = position[id];
+        if (slot >= 0) {
+            if (p > priority[id]) {
+                priority[id] = p;
+                siftUp(slot);
+            }
+            return;
+        }
+        priority[id] = p;
+        heap[size] = id;
+        position[id] = size;
+        siftUp(size++);
+    }
+
+    /** Removes and returns the id with the highest priority; the heap must not be empty. */
+    public int poll() {
+        int top = heap[0];
+        position[top] = -1;
+        int last = heap[--size];
+        if (size > 0) {
+            heap[0] = last;
+            position[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    public double peekPriority() {
+        return priority[heap[0]];
+    }
+
+    public boolean contains(int id) {
+        return position[id] >= 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int slot) {
+        int id = heap[slot];
+        double p = priority[id];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            int parentId = heap[parent];
+            if (priority[parentId] >= p) break;
+            heap[slot] = parentId;
+            position[parentId] = slot;
+            slot = parent;
+        }
+        heap[slot] = id;
+        position[id] = slot;
+    }
+
+    private void siftDown(int slot) {
+        int id = heap[slot];
+        double p = priority[id];
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            int right = child + 1;
+            if (right < size && priority[heap[right]] > priority[heap[child]]) child = right;
+            int childId = heap[child];
+            if (p >= priority[childId]) break;
+            heap[slot] = childId;
+            position[childId] = slot;
+            slot = child;
+        }
+        heap[slot] = id;
+        position[id] = slot;
+    }
+}
@@ -0,0 +1,47 @@
+package me.evisual.rlenv.util;
+
+/**
+ * Float kernels for the function-approximation policies, written as plain counted loops over
+ * flat arrays so HotSpot's superword pass can turn them into SIMD code.
+ * <p>
+ * Reductions keep four independent accumulators: the JIT won't reorder a single floating-point
+ * sum on its own, and splitting it is what lets the loop vectorize.
+ */
+public final class VectorMath
+{
+    private VectorMath() {
+    }
+
+    /** Dot product of w[offset .. offset + n) and x[0 .. n). */
+    public static float dot(float[] w, int offset, float[] x, int n) {
+        return dot(w, offset, x, 0, n);
+    }
+
+    /** Dot product of w[wOffset .. wOffset + n) and x[xOffset .. xOffset + n). */
+    public static float dot(float[] w, int wOffset, float[] x, int xOffset, int n) {
+        float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f;
+        int i = 0;
+        for (; i + 3 < n; i += 4) {
+            s0 += w[wOffset + i] * x[xOffset + i];
+            s1 += w[wOffset + i + 1] * x[xOffset + i + 1];
+            s2 += w[wOffset + i + 2] * x[xOffset + i + 2];
+            s3 += w[wOffset + i + 3] * x[xOffset + i + 3];
+        }
+        for (; i < n; i++) {
+            s0 += w[wOffset + i] * x[xOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /** w[offset .. offset + n) += a * x[0 .. n). */
+    public static void axpy(float a, float[] x, float[] w, int offset, int n) {
+        axpy(a, x, 0, w, offset, n);
+    }
+
+    /** w[wOffset .. wOffset + n) += a * x[xOffset .. xOffset + n). */
+    public static void axpy(float a, float[] x, int xOffset, float[] w, int wOffset, int n) {
+        for (int i = 0; i < n; i++) {
+            w[wOffset + i] += a * x[xOffset + i];
+        }
+    }
+}
@@ -5,106 +5,83 @@ import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
 
-import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 
 public class ArenaTerrain
 {
     private final ArenaConfig config;
+    private final BlockEditQueue edits;
     private final TerrainSnapshot snapshot;
-    private final int[] height; // per (x,z) tile height offset 0..2
     private final int width;
     private final int length;
+    private TerrainHeightmap heightmap;
+    private boolean captured = false;
 
-    public ArenaTerrain(ArenaConfig config) {
+    public ArenaTerrain(ArenaConfig config, BlockEditQueue edits) {
         this.config = config;
+        this.edits = edits;
         this.snapshot = new TerrainSnapshot();
         this.width = (config.maxX() - config.minX()) + 1;
         this.length = (config.maxZ() - config.minZ()) + 1;
-        this.height = new int[width * length];
     }
 
     public TerrainSnapshot snapshot() {
         return snapshot;
     }
 
-    public void generate(long seed) {
-        Random r = new Random(seed);
-        // 1) noise-ish heights 0..2
-        for (int x = 0; x < width; x++) {
-            for (int z = 0; z < length; z++) {
-                int h = r.nextInt(3); // 0..2
-                height[idx(x, z)] = h;
-            }
-        }
-        // 2) cheap smoothing (2 passes) to look more natural
-        smoothOnce();
-        smoothOnce();
+    public CompletableFuture<Void> generate(long seed) {
+        return build(TerrainHeightmap.generate(width, length, seed));
+    }
+
+    /**
+     * Builds the given heightmap's columns in-world.
+     */
+    public CompletableFuture<Void> build(TerrainHeightmap map) {
+        return build(TerrainBuildPlan.of(map));
+    }
+
+    /**
+     * Builds a prepared plan in-world, queueing only the blocks that differ from what is there now;
+     * the future completes once they are applied. Consecutive episodes share most of their
+     * columns, so this is a small fraction of the arena. The diff is taken against the world
+     * rather than the previous plan, because the agent breaks blocks while an episode runs, so
+     * the previous build must have been applied before the next one is started.
+     * <p>
+     * Every build covers the same positions, so the snapshot only needs capturing the first time.
+     */
+    public CompletableFuture<Void> build(TerrainBuildPlan plan) {
+        this.heightmap = plan.heightmap();
 
-        // 3) build terrain columns in-world
         World world = config.world();
         int baseY = config.y();
+        boolean capture = !captured;
+        BlockEditQueue.Batch batch = edits.batch(world);
 
         for (int x = config.minX(); x <= config.maxX(); x++) {
             for (int z = config.minZ(); z <= config.maxZ(); z++) {
                 int localX = x - config.minX();
                 int localZ = z - config.minZ();
-                int h = height[idx(localX, localZ)];
-
-                // clear 0..2 above base so we can rebuild cleanly
-                for (int dy = 0; dy <= 3; dy++) {
+                for (int dy = 0; dy < TerrainBuildPlan.COLUMN_HEIGHT; dy++) {
                     Block b = world.getBlockAt(x, baseY + dy, z);
-                    snapshot.capture(b);
-                    b.setType(Material.AIR, false);
-                }
-
-                // build up to h
-                for (int dy = 0; dy <= h; dy++) {
-                    Block b = world.getBlockAt(x, baseY + dy, z);
-                    snapshot.capture(b);
-                    b.setType(dy == h ? Material.GRASS_BLOCK : Material.DIRT, false);
-                }
-
-                // sprinkle some “natural” variation
-                if (r.nextDouble() < 0.08) {
-                    Block b = world.getBlockAt(x, baseY + h + 1, z);
-                    snapshot.capture(b);
-                    b.setType(Material.OAK_LEAVES, false);
-                } else if (r.nextDouble() < 0.05) {
-                    Block b = world.getBlockAt(x, baseY + h + 1, z);
-                    snapshot.capture(b);
-                    b.setType(Material.TALL_GRASS, false);
+                    if (capture) snapshot.capture(b);
+                    Material target = plan.block(localX, localZ, dy);
+                    if (b.getType() != target) {
+                        batch.set(x, baseY + dy, z, target);
+                    }
                 }
             }
         }
+        captured = true;
+        return batch.submit();
+    }
+
+    public TerrainHeightmap heightmap() {
+        return heightmap;
     }
 
     public int surfaceY(int x, int z) {
         // return the top block Y + 1 (standing position)
-        int localX = x - config.minX();
-        int localZ = z - config.minZ();
-        int h = height[idx(localX, localZ)];
+        int h = heightmap.height(x - config.minX(), z - config.minZ());
         return config.y() + h + 1;
     }
-
-    private void smoothOnce() {
-        int[] copy = height.clone();
-        for (int x = 0; x < width; x++) {
-            for (int z = 0; z < length; z++) {
-                int sum = copy[idx(x, z)];
-                int count = 1;
-
-                if (x > 0) { sum += copy[idx(x - 1, z)]; count++; }
-                if (x < width - 1) { sum += copy[idx(x + 1, z)]; count++; }
-                if (z > 0) { sum += copy[idx(x, z - 1)]; count++; }
-                if (z < length - 1) { sum += copy[idx(x, z + 1)]; count++; }
-
-                int avg = (int) Math.round(sum / (double) count);
-                height[idx(x, z)] = Math.max(0, Math.min(2, avg));
-            }
-        }
-    }
-
-    private int idx(int localX, int localZ) {
-        return localX * length + localZ;
-    }
-}
\ No newline at end of file
+}
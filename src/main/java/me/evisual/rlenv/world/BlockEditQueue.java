@@ -0,0 +1,208 @@
+package me.evisual.rlenv.world;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Block changes waiting for the main thread, applied at most a fixed number per tick so building
+ * a room or restoring a large arena is spread over several ticks instead of stalling one.
+ * <p>
+ * Changes are submitted in {@link Batch}es, which are applied in submission order; within a batch
+ * they are grouped by chunk, so each chunk is loaded and resent to clients once. A batch's future
+ * completes on the main thread once its last change is applied. Changes to a block that already
+ * has the target type are skipped, and each material's {@link BlockData} is created only once.
+ * <p>
+ * Main thread only.
+ */
+public final class BlockEditQueue extends BukkitRunnable
+{
+    private final ArrayDeque<Batch> batches = new ArrayDeque<>();
+    private final Map<Material, BlockData> blockData = new EnumMap<>(Material.class);
+    private int blocksPerTick;
+    private int pendingBlocks = 0;
+
+    public BlockEditQueue(int blocksPerTick) {
+        setBlocksPerTick(blocksPerTick);
+    }
+
+    public void setBlocksPerTick(int blocksPerTick) {
+        this.blocksPerTick = Math.max(1, blocksPerTick);
+    }
+
+    public int getBlocksPerTick() {
+        return blocksPerTick;
+    }
+
+    /** Changes submitted but not applied yet. */
+    public int pendingBlocks() {
+        return pendingBlocks;
+    }
+
+    public boolean isIdle() {
+        return batches.isEmpty();
+    }
+
+    /** Starts a batch of changes in one world; nothing is queued until it is submitted. */
+    public Batch batch(World world) {
+        return new Batch(this, world);
+    }
+
+    @Override
+    public void run() {
+        apply(blocksPerTick);
+    }
+
+    /** Applies everything queued right away, e.g. on shutdown when no more ticks will run. */
+    public void flush() {
+        apply(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Applies up to budget queued changes, completing the batches that finish, and returns how
+     * many were applied.
+     */
+    int apply(int budget) {
+        int applied = 0;
+        while (applied < budget && !batches.isEmpty()) {
+            Batch batch = batches.peekFirst();
+            int n = Math.min(budget - applied, batch.size - batch.next);
+            for (int i = 0; i < n; i++) {
+                int e = batch.order[batch.next++];
+                Block b = batch.world.getBlockAt(batch.xs[e], batch.ys[e], batch.zs[e]);
+                Material m = batch.materials[e];
+                if (b.getType() != m) {
+                    b.setBlockData(blockData(m), false);
+                }
+            }
+            applied += n;
+            pendingBlocks -= n;
+            if (batch.next == batch.size) {
+                batches.pollFirst();
+                batch.done.complete(null);
+            }
+        }
+        return applied;
+    }
+
+    /** The material the last queued change to a block sets, or null if none is queued; for tests. */
+    Material queuedMaterial(int x, int y, int z) {
+        Material result = null;
+        for (Batch batch : batches) {
+            for (int i = batch.next; i < batch.size; i++) {
+                int e = batch.order[i];
+                if (batch.xs[e] == x && batch.ys[e] == y && batch.zs[e] == z) {
+                    result = batch.materials[e];
+                }
+            }
+        }
+        return result;
+    }
+
+    private BlockData blockData(Material material) {
+        return blockData.computeIfAbsent(material, Material::createBlockData);
+    }
+
+    private CompletableFuture<Void> enqueue(Batch batch) {
+        if (batch.size == 0) {
+            batch.done.complete(null);
+        } else {
+            batches.addLast(batch);
+            pendingBlocks += batch.size;
+        }
+        return batch.done;
+    }
+
+    /**
+     * Block changes in one world, filled in with {@link #set} and then handed to the queue with
+     * {@link #submit}. A later change to the same block in the batch wins.
+     */
+    public static final class Batch
+    {
+        private final BlockEditQueue queue;
+        private final World world;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private int[] xs = new int[64];
+        private int[] ys = new int[64];
+        private int[] zs = new int[64];
+        private Material[] materials = new Material[64];
+        private int size = 0;
+
+        // Application order, grouped by chunk; set on submit
+        private int[] order;
+        private int next = 0;
+
+        private Batch(BlockEditQueue queue, World world) {
+            this.queue = queue;
+            this.world = world;
+        }
+
+        public Batch set(int x, int y, int z, Material material) {
+            if (order != null) {
+                throw new IllegalStateException("Batch already submitted");
+            }
+            if (size == xs.length) {
+                int capacity = size * 2;
+                xs = Arrays.copyOf(xs, capacity);
+                ys = Arrays.copyOf(ys, capacity);
+                zs = Arrays.copyOf(zs, capacity);
+                materials = Arrays.copyOf(materials, capacity);
+            }
+            xs[size] = x;
+            ys[size] = y;
+            zs[size] = z;
+            materials[size] = material;
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /** Queues the batch; the future completes once every change in it is applied. */
+        public CompletableFuture<Void> submit() {
+            if (order != null) {
+                throw new IllegalStateException("Batch already submitted");
+            }
+            order = chunkOrder();
+            return queue.enqueue(this);
+        }
+
+        /**
+         * Change indices grouped by chunk (chunks in order of first appearance), keeping the
+         * submission order within each chunk. A counting sort, so linear in the batch size.
+         */
+        int[] chunkOrder() {
+            Map<Long, Integer> chunkIds = new HashMap<>();
+            int[] chunkOf = new int[size];
+            int[] counts = new int[Math.max(1, size)];
+            for (int i = 0; i < size; i++) {
+                long key = ((long) (xs[i] >> 4) << 32) | ((zs[i] >> 4) & 0xFFFFFFFFL);
+                int id = chunkIds.computeIfAbsent(key, k -> chunkIds.size());
+                chunkOf[i] = id;
+                counts[id]++;
+            }
+
+            int[] start = new int[chunkIds.size()];
+            for (int id = 1; id < start.length; id++) {
+                start[id] = start[id - 1] + counts[id - 1];
+            }
+            int[] result = new int[size];
+            for (int i = 0; i < size; i++) {
+                result[start[chunkOf[i]]++] = i;
+            }
+            return result;
+        }
+    }
+}
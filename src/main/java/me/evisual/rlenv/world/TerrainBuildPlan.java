@@ -0,0 +1,73 @@
+package me.evisual.rlenv.world;
+
+import org.bukkit.Material;
+
+/**
+ * The final block of every position {@link ArenaTerrain} manages for one heightmap: the four
+ * blocks from the arena base up of each column (dirt, grass on top, then the decoration or air).
+ * <p>
+ * Pure data computed from a {@link TerrainHeightmap}, so it can be prepared off the main thread;
+ * building it writes each block exactly once instead of clearing the column first. Overlays such
+ * as a goal marker are {@link #set} into the plan before it is handed to the main thread, which
+ * only reads it from then on.
+ */
+public final class TerrainBuildPlan
+{
+    /** Blocks per column, from the arena base up; covers the tallest column plus its decoration. */
+    public static final int COLUMN_HEIGHT = TerrainHeightmap.MAX_HEIGHT + 2;
+
+    private final TerrainHeightmap heightmap;
+    private final Material[] blocks; // [(localX * length + localZ) * COLUMN_HEIGHT + dy]
+
+    private TerrainBuildPlan(TerrainHeightmap heightmap, Material[] blocks) {
+        this.heightmap = heightmap;
+        this.blocks = blocks;
+    }
+
+    public static TerrainBuildPlan of(TerrainHeightmap map) {
+        int width = map.width();
+        int length = map.length();
+        Material[] blocks = new Material[width * length * COLUMN_HEIGHT];
+        for (int x = 0; x < width; x++) {
+            for (int z = 0; z < length; z++) {
+                int h = map.height(x, z);
+                TerrainDecoration decoration = map.decoration(x, z);
+                int base = (x * length + z) * COLUMN_HEIGHT;
+                for (int dy = 0; dy < COLUMN_HEIGHT; dy++) {
+                    Material m;
+                    if (dy < h) m = Material.DIRT;
+                    else if (dy == h) m = Material.GRASS_BLOCK;
+                    else if (dy == h + 1 && decoration == TerrainDecoration.OAK_LEAVES) m = Material.OAK_LEAVES;
+                    else if (dy == h + 1 && decoration == TerrainDecoration.TALL_GRASS) m = Material.TALL_GRASS;
+                    else m = Material.AIR;
+                    blocks[base + dy] = m;
+                }
+            }
+        }
+        return new TerrainBuildPlan(map, blocks);
+    }
+
+    public TerrainHeightmap heightmap() {
+        return heightmap;
+    }
+
+    /** Block at height dy (0 = arena base) of the column at local (x, z). */
+    public Material block(int localX, int localZ, int dy) {
+        return blocks[index(localX, localZ, dy)];
+    }
+
+    /** Replaces the block at height dy of the column at local (x, z). */
+    public void set(int localX, int localZ, int dy, Material material) {
+        blocks[index(localX, localZ, dy)] = material;
+    }
+
+    /** Whether the block is one a placed overlay may replace (air or a plant). */
+    public boolean isReplaceable(int localX, int localZ, int dy) {
+        Material m = block(localX, localZ, dy);
+        return m == Material.AIR || m == Material.TALL_GRASS;
+    }
+
+    private int index(int localX, int localZ, int dy) {
+        return (localX * heightmap.length() + localZ) * COLUMN_HEIGHT + dy;
+    }
+}
@@ -0,0 +1,8 @@
+package me.evisual.rlenv.world;
+
+public enum TerrainDecoration
+{
+    NONE,
+    OAK_LEAVES,
+    TALL_GRASS
+}
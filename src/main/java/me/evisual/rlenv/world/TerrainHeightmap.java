@@ -0,0 +1,94 @@
+package me.evisual.rlenv.world;
+
+import java.util.Random;
+
+/**
+ * Bukkit-free arena terrain: a per-column height offset (0..2) plus an optional decoration
+ * on top of each column. {@link ArenaTerrain} renders it into the world; simulations read it directly.
+ * <p>
+ * Instances are not modified after {@link #generate(int, int, long)} returns, so they can be
+ * handed between threads freely.
+ */
+public final class TerrainHeightmap
+{
+    public static final int MAX_HEIGHT = 2;
+
+    private final int width;
+    private final int length;
+    private final int[] height; // per (x,z) tile height offset 0..2
+    private final TerrainDecoration[] decorations;
+
+    private TerrainHeightmap(int width, int length) {
+        this.width = width;
+        this.length = length;
+        this.height = new int[width * length];
+        this.decorations = new TerrainDecoration[width * length];
+    }
+
+    public static TerrainHeightmap generate(int width, int length, long seed) {
+        TerrainHeightmap map = new TerrainHeightmap(width, length);
+        Random r = new Random(seed);
+        // 1) noise-ish heights 0..2
+        for (int x = 0; x < width; x++) {
+            for (int z = 0; z < length; z++) {
+                map.height[map.idx(x, z)] = r.nextInt(MAX_HEIGHT + 1);
+            }
+        }
+        // 2) cheap smoothing (2 passes) to look more natural
+        map.smoothOnce();
+        map.smoothOnce();
+
+        // 3) sprinkle some “natural” variation (same draw order as the in-world build)
+        for (int x = 0; x < width; x++) {
+            for (int z = 0; z < length; z++) {
+                TerrainDecoration decoration = TerrainDecoration.NONE;
+                if (r.nextDouble() < 0.08) {
+                    decoration = TerrainDecoration.OAK_LEAVES;
+                } else if (r.nextDouble() < 0.05) {
+                    decoration = TerrainDecoration.TALL_GRASS;
+                }
+                map.decorations[map.idx(x, z)] = decoration;
+            }
+        }
+        return map;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /** Height offset (0..2) of the top block above the arena base, in local coordinates. */
+    public int height(int localX, int localZ) {
+        return height[idx(localX, localZ)];
+    }
+
+    public TerrainDecoration decoration(int localX, int localZ) {
+        return decorations[idx(localX, localZ)];
+    }
+
+    private void smoothOnce() {
+        int[] copy = height.clone();
+        for (int x = 0; x < width; x++) {
+            for (int z = 0; z < length; z++) {
+                int sum = copy[idx(x, z)];
+                int count = 1;
+
+                if (x > 0) { sum += copy[idx(x - 1, z)]; count++; }
+                if (x < width - 1) { sum += copy[idx(x + 1, z)]; count++; }
+                if (z > 0) { sum += copy[idx(x, z - 1)]; count++; }
+                if (z < length - 1) { sum += copy[idx(x, z + 1)]; count++; }
+
+                int avg = (int) Math.round(sum / (double) count);
+                height[idx(x, z)] = Math.max(0, Math.min(MAX_HEIGHT, avg));
+            }
+        }
+    }
+
+    private int idx(int localX, int localZ) {
+        return localX * length + localZ;
+    }
+}
@@ -3,32 +3,122 @@ package me.evisual.rlenv.world;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * The original type of every block an arena or room overwrites, so it can be put back.
+ * <p>
+ * Positions are packed into longs and materials kept as ordinals, in parallel primitive arrays,
+ * with an open-addressing index over the positions so each block keeps the type it had the first
+ * time it was captured. That is about 20 bytes per block, where a map of "x:y:z" strings to
+ * materials took well over 100.
+ */
 public class TerrainSnapshot
 {
+    private static final Material[] MATERIALS = Material.values();
+    private static final int EMPTY = -1;
 
-    private final Map<String, Material> original = new HashMap<>();
+    // Packed position layout, as in Minecraft's BlockPos: 26 bits x, 26 bits z, 12 bits y
+    private static final int XZ_BITS = 26;
+    private static final int Y_BITS = 12;
+
+    private long[] positions = new long[64];
+    private short[] materials = new short[64];
+    private int size = 0;
+
+    private int[] index = newIndex(128); // entry per slot, EMPTY if free
+    private int mask = 127;
 
     public void capture(Block b) {
-        String key = key(b.getX(), b.getY(), b.getZ());
-        original.putIfAbsent(key, b.getType());
+        capture(b.getX(), b.getY(), b.getZ(), b.getType());
+    }
+
+    /** Records the block's original material, unless it was captured before. */
+    public void capture(int x, int y, int z, Material material) {
+        long position = pack(x, y, z);
+        int slot = slot(position);
+        while (index[slot] != EMPTY) {
+            if (positions[index[slot]] == position) return;
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, size * 2);
+            materials = Arrays.copyOf(materials, size * 2);
+        }
+        positions[size] = position;
+        materials[size] = (short) material.ordinal();
+        index[slot] = size++;
+        if (size * 2 > index.length) {
+            rehash(index.length * 2);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Queues every captured block back to its original type and forgets them; the future
+     * completes once the restore is applied. The queue writes each chunk's blocks together and
+     * skips the ones that already hold their original type.
+     */
+    public CompletableFuture<Void> restore(BlockEditQueue edits, org.bukkit.World world) {
+        BlockEditQueue.Batch batch = edits.batch(world);
+        for (int i = 0; i < size; i++) {
+            long p = positions[i];
+            batch.set(unpackX(p), unpackY(p), unpackZ(p), MATERIALS[materials[i]]);
+        }
+        clear();
+        return batch.submit();
     }
 
-    public void restore(org.bukkit.World world) {
-        for (Map.Entry<String, Material> e : original.entrySet()) {
-            String[] parts = e.getKey().split(":");
-            int x = Integer.parseInt(parts[0]);
-            int y = Integer.parseInt(parts[1]);
-            int z = Integer.parseInt(parts[2]);
+    private void clear() {
+        positions = new long[64];
+        materials = new short[64];
+        size = 0;
+        index = newIndex(128);
+        mask = 127;
+    }
 
-            world.getBlockAt(x, y, z).setType(e.getValue(), false);
+    private void rehash(int capacity) {
+        index = newIndex(capacity);
+        mask = capacity - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = slot(positions[i]);
+            while (index[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            index[slot] = i;
         }
-        original.clear();
     }
 
-    private String key(int x, int y, int z) {
-        return x + ":" + y + ":" + z;
+    private int slot(long position) {
+        long h = position * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mask;
+    }
+
+    private static int[] newIndex(int capacity) {
+        int[] slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+        return slots;
+    }
+
+    static long pack(int x, int y, int z) {
+        long xz = (1L << XZ_BITS) - 1;
+        return ((x & xz) << (XZ_BITS + Y_BITS)) | ((z & xz) << Y_BITS) | (y & ((1L << Y_BITS) - 1));
+    }
+
+    static int unpackX(long p) {
+        return (int) (p >> (XZ_BITS + Y_BITS));
+    }
+
+    static int unpackZ(long p) {
+        return (int) (p << (64 - XZ_BITS - Y_BITS) >> (64 - XZ_BITS));
+    }
+
+    static int unpackY(long p) {
+        return (int) (p << (64 - Y_BITS) >> (64 - Y_BITS));
     }
-}
\ No newline at end of file
+}
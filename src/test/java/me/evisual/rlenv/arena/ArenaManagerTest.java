@@ -0,0 +1,36 @@
+package me.evisual.rlenv.arena;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class ArenaManagerTest {
+
+    @Test
+    void splitsTheBudgetByWeight() {
+        int[] grants = new int[3];
+        ArenaManager.allocate(12, 3, new int[] { 100, 100, 100 }, new int[] { 1, 2, 3 }, 0, grants);
+
+        assertArrayEquals(new int[] { 2, 4, 6 }, grants);
+    }
+
+    @Test
+    void passesUnusedShareToArenasThatStillWantSteps() {
+        int[] grants = new int[3];
+        ArenaManager.allocate(30, 3, new int[] { 2, 0, 100 }, new int[] { 1, 1, 1 }, 0, grants);
+
+        assertArrayEquals(new int[] { 2, 0, 28 }, grants);
+    }
+
+    @Test
+    void rotatingStartSharesATightBudgetFairly() {
+        int[] totals = new int[3];
+        int[] grants = new int[3];
+        for (int tick = 0; tick < 30; tick++) {
+            ArenaManager.allocate(1, 3, new int[] { 5, 5, 5 }, new int[] { 1, 1, 1 }, tick % 3, grants);
+            for (int i = 0; i < 3; i++) totals[i] += grants[i];
+        }
+
+        assertArrayEquals(new int[] { 10, 10, 10 }, totals);
+    }
+}
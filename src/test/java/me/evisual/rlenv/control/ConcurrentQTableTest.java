@@ -0,0 +1,55 @@
+package me.evisual.rlenv.control;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentQTableTest {
+
+    @Test
+    void concurrentAddsToOneCellAreNotLost() throws InterruptedException {
+        ConcurrentQTable table = new ConcurrentQTable(5, 0.0);
+        int row = table.row(StateKey.pack(1, 1, 0, 2, true, 0));
+        int threads = 8;
+        int addsPerThread = 20_000;
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < addsPerThread; i++) {
+                    table.addClamped(row, 2, 1.0, -1e9, 1e9);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) worker.join();
+
+        assertEquals(threads * addsPerThread, table.get(row, 2));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void copiesRowsAndTracksDirtyBits() {
+        HashedQTable source = new HashedQTable(5, 1.0);
+        int a = source.row(7);
+        source.set(a, 3, -2.0);
+
+        ConcurrentQTable table = ConcurrentQTable.copyOf(source, 1.0);
+        assertEquals(-2.0, table.get(table.row(7), 3));
+        assertEquals(1.0, table.get(table.row(7), 0));
+        assertEquals(7, table.keyAt(7));
+        assertEquals(-1, table.keyAt(8));
+
+        assertTrue(table.takeDirty(7));
+        assertFalse(table.takeDirty(7));
+        table.addClamped(7, 0, 5.0, -10.0, 3.0);
+        assertEquals(3.0, table.get(7, 0));
+        assertTrue(table.isDirty(7));
+    }
+}
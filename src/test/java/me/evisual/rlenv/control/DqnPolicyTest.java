@@ -0,0 +1,57 @@
+package me.evisual.rlenv.control;
+
+import me.evisual.rlenv.env.Action;
+import me.evisual.rlenv.env.Observation;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DqnPolicyTest {
+
+    private static final Observation START = new Observation(new double[] { 1.0, 0.0, 0.0, 0.5, 0.0, 0.0, 0.0, 0.0 });
+    private static final Observation GOAL = new Observation(new double[] { 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0 });
+
+    @Test
+    void learnsToPreferTheRewardedAction() {
+        DqnPolicy policy = new DqnPolicy(16, 1, 256, 8, 0.01, 20, 0.95, 0.0, 0.0, 1, new Random(5));
+
+        for (int i = 0; i < 300; i++) {
+            policy.observeTransition(START, Action.MOVE_EAST, 1.0, GOAL, true);
+            policy.observeTransition(START, Action.MOVE_WEST, -1.0, GOAL, true);
+        }
+
+        assertTrue(policy.qValue(START, Action.MOVE_EAST) > policy.qValue(START, Action.MOVE_WEST) + 1.0);
+        assertEquals(Action.MOVE_EAST, policy.chooseAction(START));
+    }
+
+    @Test
+    void trainsOnceTheReplayHoldsABatch() {
+        DqnPolicy policy = new DqnPolicy(8, 2, 4, 4, 0.001, 100);
+        for (int i = 0; i < 6; i++) {
+            policy.observeTransition(START, Action.STAY, 0.0, START, false);
+        }
+
+        assertEquals(4, policy.getReplaySize());
+        assertEquals(3, policy.getTrainingUpdates());
+        assertEquals(8 * 8 + 8 + 8 * 8 + 8 + 8 * 5 + 5, policy.getParameterCount());
+    }
+
+    @Test
+    void batchedSelectionMatchesGreedyActions() {
+        DqnPolicy policy = new DqnPolicy(16, 1, 256, 8, 0.01, 20, 0.95, 0.0, 0.0, 1, new Random(9));
+        for (int i = 0; i < 300; i++) {
+            policy.observeTransition(START, Action.MOVE_EAST, 1.0, GOAL, true);
+            policy.observeTransition(START, Action.MOVE_WEST, -1.0, GOAL, true);
+        }
+
+        Observation[] batch = { START, START, START };
+        Action[] out = new Action[3];
+        policy.chooseActions(batch, out);
+        for (Action a : out) {
+            assertEquals(Action.MOVE_EAST, a);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package me.evisual.rlenv.control;
+
+import me.evisual.rlenv.env.Action;
+import me.evisual.rlenv.env.Observation;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DynaQPolicyTest {
+
+    @Test
+    void planningPropagatesGoalValueFromModel() {
+        DynaQPolicy policy = new DynaQPolicy(0.05);
+        QLearningPolicy oneStep = new QLearningPolicy();
+        Observation far = new Observation(new double[] { 1.0, 0.0, 0.0, 0.9, 0.0, 0.0, 0.0, 0.0 });
+        Observation near = new Observation(new double[] { 1.0, 0.0, 0.0, 0.5, 0.0, 0.0, 0.0, 0.0 });
+        Observation goal = new Observation(new double[] { 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0 });
+
+        try {
+            policy.observeTransition(far, Action.MOVE_EAST, 0.0, near, false);
+            policy.observeTransition(near, Action.MOVE_EAST, 10.0, goal, true);
+            oneStep.observeTransition(far, Action.MOVE_EAST, 0.0, near, false);
+            oneStep.observeTransition(near, Action.MOVE_EAST, 10.0, goal, true);
+            assertEquals(2, policy.getModelSize());
+
+            // The real far->near step saw no reward; only planning can back the goal value up
+            policy.plan(200);
+
+            // Without planning far only moves from the optimistic 1.0 toward the unchanged near value
+            assertTrue(farValue(oneStep, far) < 1.0);
+            assertTrue(farValue(policy, far) > 1.0);
+            assertTrue(policy.getPlanningUpdates() >= 200);
+        } finally {
+            policy.close();
+        }
+    }
+
+    @Test
+    void revisitedPairsDoNotGrowTheModel() {
+        DynaQPolicy policy = new DynaQPolicy(0.05);
+        Observation s = new Observation(new double[] { 0.0, 1.0, 0.0, 0.4, 0.0, 0.0, 0.0, 0.0 });
+        Observation s2 = new Observation(new double[] { 0.0, 1.0, 0.0, 0.3, 0.0, 0.0, 0.0, 0.0 });
+
+        try {
+            for (int i = 0; i < 10; i++) {
+                policy.observeTransition(s, Action.MOVE_SOUTH, 0.0, s2, false);
+            }
+            assertEquals(1, policy.getModelSize());
+        } finally {
+            policy.close();
+        }
+    }
+
+    private static double farValue(QLearningPolicy policy, Observation far) {
+        synchronized (policy) {
+            QTable table = policy.getTable();
+            return table.get(table.row(StateKey.encode(far.getFeatures())), Action.MOVE_EAST.ordinal());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package me.evisual.rlenv.control;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EligibilityTracesTest {
+
+    @Test
+    void decayDropsTracesBelowThreshold() {
+        EligibilityTraces traces = new EligibilityTraces(8, 0.2);
+        traces.visit(1, 0);
+        traces.decay(0.5);
+        traces.visit(2, 0);
+        traces.decay(0.5);
+        traces.decay(0.5);
+
+        // (1,0) is at 0.125 and gone; (2,0) is at 0.25 and kept
+        assertEquals(1, traces.size());
+        assertEquals(2, traces.stateKey(0));
+        assertEquals(0.25, traces.value(0), 1e-12);
+    }
+
+    @Test
+    void revisitReplacesAndFullTableEvictsWeakest() {
+        EligibilityTraces traces = new EligibilityTraces(2, 0.0);
+        traces.visit(1, 0);
+        traces.decay(0.5);
+        traces.visit(2, 3);
+        traces.visit(2, 3);
+        assertEquals(2, traces.size());
+
+        traces.visit(3, 1);
+
+        assertEquals(2, traces.size());
+        for (int i = 0; i < traces.size(); i++) {
+            assertEquals(1.0, traces.value(i), 1e-12);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package me.evisual.rlenv.control;
+
+import me.evisual.rlenv.env.Action;
+import me.evisual.rlenv.env.Observation;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LinearQPolicyTest {
+
+    private static final Observation START = new Observation(new double[] { 1.0, 0.0, 0.0, 0.5, 0.0, 0.0, 0.0, 0.0 });
+    private static final Observation GOAL = new Observation(new double[] { 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0 });
+
+    @Test
+    void learnsToPreferTheRewardedAction() {
+        LinearQPolicy policy = new LinearQPolicy(new TileFeatures(4, 8), 0.5, 0.95, 0.0, 0.0, 1);
+
+        for (int i = 0; i < 20; i++) {
+            policy.observeTransition(START, Action.MOVE_EAST, 1.0, GOAL, true);
+            policy.observeTransition(START, Action.MOVE_WEST, -1.0, GOAL, true);
+        }
+
+        assertTrue(policy.qValue(START, Action.MOVE_EAST) > 0.9);
+        assertTrue(policy.qValue(START, Action.MOVE_WEST) < -0.9);
+        assertEquals(Action.MOVE_EAST, policy.chooseAction(START));
+    }
+
+    @Test
+    void weightCountDoesNotGrowWithVisitedStates() {
+        LinearQPolicy policy = new LinearQPolicy(new RawFeatures());
+        assertEquals(0, policy.getWeightCount());
+
+        for (int i = 0; i < 100; i++) {
+            double d = i / 100.0;
+            Observation s = new Observation(new double[] { d, -d, 0.0, d, 0.0, 0.0, 0.0, 0.0 });
+            policy.observeTransition(s, policy.chooseAction(s), -0.01, s, false);
+        }
+
+        assertEquals(Action.values().length * 9, policy.getWeightCount());
+    }
+
+    @Test
+    void featureDimensions() {
+        assertEquals(9, new RawFeatures().dimension(8));
+        assertEquals(1 + 8 + 8 * 9 / 2, new PolynomialFeatures().dimension(8));
+        assertEquals(1 + 8 * 4 * 9, new TileFeatures(4, 8).dimension(8));
+
+        float[] out = new float[new TileFeatures(4, 8).dimension(8)];
+        new TileFeatures(4, 8).write(START.getFeatures(), out);
+        float active = 0f;
+        for (float v : out) active += v;
+        // Bias plus one tile per tiling per value
+        assertEquals(1 + 8 * 4, active);
+    }
+}
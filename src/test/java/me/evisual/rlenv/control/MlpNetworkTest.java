@@ -0,0 +1,79 @@
+package me.evisual.rlenv.control;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MlpNetworkTest {
+
+    @Test
+    void gradientStepsReduceTheLoss() {
+        MlpNetwork net = new MlpNetwork(new int[] { 3, 5, 2 }, new Random(7));
+        float[] x = { 0.3f, -0.8f, 0.5f };
+
+        // Loss = sum of outputs, so the output gradient is all ones
+        float before = loss(net, x);
+        for (int i = 0; i < 20; i++) {
+            System.arraycopy(x, 0, net.input(), 0, 3);
+            net.forward(1);
+            net.outputGradient()[0] = 1f;
+            net.outputGradient()[1] = 1f;
+            net.backward(1);
+            net.adamStep(0.01f);
+        }
+        assertTrue(loss(net, x) < before);
+    }
+
+    @Test
+    void fitsASmallRegression() {
+        Random rng = new Random(3);
+        MlpNetwork net = new MlpNetwork(new int[] { 2, 16, 1 }, rng);
+        int batch = 8;
+        net.ensureBatch(batch);
+
+        for (int step = 0; step < 2000; step++) {
+            float[] in = net.input();
+            for (int b = 0; b < batch; b++) {
+                in[b * 2] = rng.nextFloat() * 2f - 1f;
+                in[b * 2 + 1] = rng.nextFloat() * 2f - 1f;
+            }
+            float[] out = net.forward(batch);
+            for (int b = 0; b < batch; b++) {
+                float target = in[b * 2] - 2f * in[b * 2 + 1];
+                net.outputGradient()[b] = (out[b] - target) / batch;
+            }
+            net.backward(batch);
+            net.adamStep(0.01f);
+        }
+
+        net.input()[0] = 0.5f;
+        net.input()[1] = 0.25f;
+        assertEquals(0.0f, net.forward(1)[0], 0.1f);
+    }
+
+    @Test
+    void targetCopyMatchesOutputs() {
+        MlpNetwork a = new MlpNetwork(new int[] { 4, 8, 8, 3 }, new Random(1));
+        MlpNetwork b = new MlpNetwork(new int[] { 4, 8, 8, 3 }, new Random(2));
+        b.copyParametersFrom(a);
+
+        float[] x = { 0.1f, 0.2f, -0.3f, 0.9f };
+        System.arraycopy(x, 0, a.input(), 0, 4);
+        System.arraycopy(x, 0, b.input(), 0, 4);
+        float[] outA = a.forward(1).clone();
+        float[] outB = b.forward(1);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(outA[i], outB[i]);
+        }
+        assertEquals(4 * 8 + 8 + 8 * 8 + 8 + 8 * 3 + 3, a.parameterCount());
+    }
+
+    private static float loss(MlpNetwork net, float[] x) {
+        System.arraycopy(x, 0, net.input(), 0, x.length);
+        float[] out = net.forward(1);
+        return out[0] + out[1];
+    }
+}
@@ -0,0 +1,33 @@
+package me.evisual.rlenv.control;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ObservationReplayBufferTest {
+
+    @Test
+    void roundTripsRecordsAndOverwritesOldest() {
+        ObservationReplayBuffer buffer = new ObservationReplayBuffer(2, 3);
+        buffer.add(new double[] { 1, 2, 3 }, 1, 0.5f, new double[] { 4, 5, 6 }, 0b0101, false);
+        buffer.add(new double[] { 7, 8, 9 }, 4, -1f, new double[] { 0, 0, 0 }, 0, true);
+
+        float[] out = new float[4];
+        buffer.readState(0, out, 1);
+        assertArrayEquals(new float[] { 0, 1, 2, 3 }, out);
+        buffer.readNextState(0, out, 0);
+        assertArrayEquals(new float[] { 4, 5, 6, 3 }, out);
+        assertEquals(1, buffer.action(0));
+        assertEquals(0.5f, buffer.reward(0));
+        assertEquals(0b0101, buffer.nextBlockedMask(0));
+        assertFalse(buffer.isDone(0));
+        assertTrue(buffer.isDone(1));
+
+        buffer.add(new double[] { 9, 9, 9 }, 2, 2f, new double[] { 1, 1, 1 }, 0, false);
+        assertEquals(2, buffer.size());
+        assertEquals(2, buffer.action(0));
+    }
+}
@@ -0,0 +1,124 @@
+package me.evisual.rlenv.control;
+
+import me.evisual.rlenv.env.Action;
+import me.evisual.rlenv.env.Observation;
+import me.evisual.rlenv.logging.TransitionFormat;
+import me.evisual.rlenv.logging.TransitionLogger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class OfflinePretrainerTest {
+
+    private static final Logger LOG = Logger.getLogger("OfflinePretrainerTest");
+
+    private static QLearningPolicy greedyPolicy() {
+        return new QLearningPolicy(
+                0.5, 0.9,
+                0.0, 0.0, 1,
+                0.0, 0.0,
+                0.0,
+                true,
+                -10.0, 10.0
+        );
+    }
+
+    @Test
+    void learnsTheLoggedPathToTheGoal(@TempDir Path dir) throws Exception {
+        // Two steps east reach the goal; episodes that wander west time out
+        Observation far = new Observation(new double[] { 1.0, 0.0, 0.0, 0.9, 0.0, 0.0, 0.0, 0.0 });
+        Observation near = new Observation(new double[] { 1.0, 0.0, 0.0, 0.5, 0.0, 0.0, 0.0, 0.0 });
+        Observation goal = new Observation(new double[] { 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0 });
+        TransitionLogger logger = new TransitionLogger(dir.toFile(), TransitionFormat.BINARY,
+                TransitionLogger.Rotation.NONE, null, LOG, 64, 1000L);
+        for (int episode = 0; episode < 20; episode++) {
+            logger.logTransition(far, Action.MOVE_EAST, -0.01, near, false);
+            logger.logTransition(near, Action.MOVE_EAST, 10.0, goal, true);
+            logger.logTransition(far, Action.MOVE_WEST, -1.0, far, true);
+        }
+        logger.close();
+
+        QLearningPolicy policy = greedyPolicy();
+        OfflinePretrainer.Result result = new OfflinePretrainer(policy,
+                List.of(dir.resolve("transitions.bin")), 3, 8).start().get();
+
+        assertEquals(180, result.transitions());
+        assertEquals(3, result.epochs());
+        assertFalse(result.cancelled());
+        assertEquals(3, result.stateCount());
+        assertEquals(0, result.skippedLogs());
+        // The goal value reached the first step of the path, not just the last
+        assertSame(Action.MOVE_EAST, policy.chooseAction(far));
+        assertSame(Action.MOVE_EAST, policy.chooseAction(near));
+    }
+
+    private static Observation eastOf(double dx) {
+        return new Observation(new double[] { 1.0, 0.0, 0.0, dx, 0.0, 0.0, 0.0, 0.0 });
+    }
+
+    @Test
+    void countsStepIndicesPerLoggedEnvironment(@TempDir Path dir) throws Exception {
+        // Two environments log three-step episodes interleaved; step k always starts from state k
+        double[] dx = { 0.9, 0.5, 0.2, 0.0 };
+        TransitionLogger logger = new TransitionLogger(dir.toFile(), TransitionFormat.CSV,
+                TransitionLogger.Rotation.NONE, null, LOG, 64, 1000L);
+        for (int step = 0; step < 3; step++) {
+            for (int env = 0; env < 2; env++) {
+                Observation s = eastOf(dx[step]);
+                Observation next = eastOf(dx[step + 1]);
+                logger.logTransition(s, Action.MOVE_EAST, 0.0, next, step == 2, env);
+            }
+        }
+        logger.close();
+
+        // alpha 1 and gamma 0 leave each value at its shaped reward, -stepIndex
+        QLearningPolicy policy = new QLearningPolicy(
+                1.0, 0.0,
+                0.0, 0.0, 1,
+                0.0, 1.0,
+                0.0,
+                false,
+                -10.0, 10.0
+        );
+        new OfflinePretrainer(policy, List.of(dir.resolve("transitions.csv")), 1, 8).run();
+
+        QTable table = policy.getTable();
+        for (int step = 0; step < 3; step++) {
+            int row = table.row(StateKey.encode(eastOf(dx[step]).getFeatures()));
+            assertEquals(-step, table.get(row, Action.MOVE_EAST.ordinal()), 1e-9);
+        }
+    }
+
+    @Test
+    void skipsLogsOfAnotherObservationWidth(@TempDir Path dir) throws Exception {
+        Path narrow = Files.createDirectory(dir.resolve("narrow"));
+        Path wide = Files.createDirectory(dir.resolve("wide"));
+        Observation three = new Observation(new double[] { 1.0, 0.0, 0.5 });
+        for (TransitionFormat format : TransitionFormat.values()) {
+            TransitionLogger logger = new TransitionLogger(narrow.toFile(), format,
+                    TransitionLogger.Rotation.NONE, null, LOG, 64, 1000L);
+            logger.logTransition(three, Action.MOVE_EAST, 1.0, three, true);
+            logger.close();
+        }
+        TransitionLogger logger = new TransitionLogger(wide.toFile(), TransitionFormat.CSV,
+                TransitionLogger.Rotation.NONE, null, LOG, 64, 1000L);
+        logger.logTransition(eastOf(0.9), Action.MOVE_EAST, 1.0, eastOf(0.5), true);
+        logger.close();
+        Path empty = Files.writeString(dir.resolve("transitions.csv"), "obs,action,reward,next_obs,done,env\n");
+
+        QLearningPolicy policy = greedyPolicy();
+        OfflinePretrainer.Result result = new OfflinePretrainer(policy, List.of(narrow.resolve("transitions.bin"),
+                narrow.resolve("transitions.csv"), empty, wide.resolve("transitions.csv")), 2, 8).run();
+
+        assertEquals(2, result.transitions());
+        assertEquals(2, result.skippedLogs());
+    }
+}
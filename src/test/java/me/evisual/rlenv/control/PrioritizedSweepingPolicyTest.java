@@ -0,0 +1,45 @@
+package me.evisual.rlenv.control;
+
+import me.evisual.rlenv.env.Action;
+import me.evisual.rlenv.env.Observation;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrioritizedSweepingPolicyTest {
+
+    private static final Observation GOAL = new Observation(new double[] { 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0 });
+    private static final Observation[] PATH = { state(0.9), state(0.7), state(0.5), state(0.3) };
+
+    private static Observation state(double dist) {
+        return new Observation(new double[] { 1.0, 0.0, 0.0, dist, 0.0, 0.0, 0.0, 0.0 });
+    }
+
+    @Test
+    void goalValueSweepsBackWithinTheSameEpisode() {
+        QLearningPolicy oneStep = new QLearningPolicy();
+        PrioritizedSweepingPolicy sweeping = new PrioritizedSweepingPolicy(32, 1e-4);
+
+        runEpisode(oneStep);
+        runEpisode(sweeping);
+
+        // One-step Q-learning only moves the last state; sweeping also lifts the ones before it
+        for (int i = 1; i < PATH.length - 1; i++) {
+            assertTrue(value(sweeping, PATH[i]) > value(oneStep, PATH[i]), "state " + i);
+        }
+        assertTrue(sweeping.getSweepBackups() > PATH.length);
+    }
+
+    private static void runEpisode(QLearningPolicy policy) {
+        for (int i = 0; i + 1 < PATH.length; i++) {
+            policy.observeTransition(PATH[i], Action.MOVE_EAST, 0.0, PATH[i + 1], false);
+        }
+        policy.observeTransition(PATH[PATH.length - 1], Action.MOVE_EAST, 10.0, GOAL, true);
+        policy.onEpisodeEnd();
+    }
+
+    private static double value(QLearningPolicy policy, Observation state) {
+        QTable table = policy.getTable();
+        return table.get(table.row(StateKey.encode(state.getFeatures())), Action.MOVE_EAST.ordinal());
+    }
+}
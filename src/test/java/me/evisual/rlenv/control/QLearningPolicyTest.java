@@ -4,8 +4,10 @@ import me.evisual.rlenv.env.Action;
 import me.evisual.rlenv.env.Observation;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class QLearningPolicyTest {
 
@@ -42,4 +44,50 @@ class QLearningPolicyTest {
         Action action = policy.chooseAction(blockedObs);
         assertSame(Action.STAY, action);
     }
+
+    @Test
+    void greedyChoiceFollowsLearnedValues() {
+        QLearningPolicy policy = new QLearningPolicy(
+                0.5, 0.9,
+                0.0, 0.0, 1,
+                0.0, 0.0,
+                0.0,
+                true,
+                -10.0, 10.0
+        );
+        Observation s = new Observation(new double[] { 1.0, 0.0, 0.0, 0.5, 0.0, 0.0, 0.0, 0.0 });
+        Observation goal = new Observation(new double[] { 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0 });
+
+        for (int i = 0; i < 5; i++) {
+            policy.observeTransition(s, Action.MOVE_EAST, 10.0, goal, true);
+        }
+
+        assertSame(Action.MOVE_EAST, policy.chooseAction(s));
+        assertEquals(2, policy.getStateCount());
+    }
+
+    @Test
+    void replayPropagatesGoalValueWithoutNewSteps() {
+        QLearningPolicy policy = new QLearningPolicy(
+                0.5, 0.9,
+                0.0, 0.0, 1,
+                0.0, 0.0,
+                0.0,
+                true,
+                -10.0, 10.0
+        );
+        policy.enableReplay(new ReplayBuffer(16), 64);
+        Observation far = new Observation(new double[] { 1.0, 0.0, 0.0, 0.9, 0.0, 0.0, 0.0, 0.0 });
+        Observation near = new Observation(new double[] { 1.0, 0.0, 0.0, 0.5, 0.0, 0.0, 0.0, 0.0 });
+        Observation goal = new Observation(new double[] { 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0 });
+
+        // The goal reward is only seen after the far->near step, so without replay far stays at 0
+        policy.observeTransition(far, Action.MOVE_EAST, 0.0, near, false);
+        policy.observeTransition(near, Action.MOVE_EAST, 10.0, goal, true);
+
+        QTable table = policy.getTable();
+        int farRow = table.row(StateKey.encode(far.getFeatures()));
+        assertTrue(table.get(farRow, Action.MOVE_EAST.ordinal()) > 0.0);
+        assertEquals(2, policy.getReplay().size());
+    }
 }
@@ -0,0 +1,147 @@
+package me.evisual.rlenv.control;
+
+import me.evisual.rlenv.env.Action;
+import me.evisual.rlenv.env.Observation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QTableCheckpointTest {
+
+    private static final QTableCheckpoint.LearnerState STATE =
+            new QTableCheckpoint.LearnerState(42L, 0.3, 0.05, 0.1, 0.01, 7, 0.35);
+
+    @Test
+    void roundTripsHashedTableAndLearnerState(@TempDir Path dir) throws IOException {
+        HashedQTable table = new HashedQTable(5, 1.0);
+        int a = table.row(100);
+        int b = table.row(StateKey.KEY_SPACE - 1);
+        table.set(a, 2, -3.5);
+        table.set(b, 4, 9.25);
+
+        QTableCheckpoint checkpoint = new QTableCheckpoint(dir.resolve("q.qtable"));
+        checkpoint.save(table, STATE);
+        assertFalse(table.isDirty(a));
+        assertFalse(Files.exists(dir.resolve("q.qtable.tmp")));
+
+        QTableCheckpoint.Snapshot loaded = new QTableCheckpoint(checkpoint.file()).load(1.0);
+        QTable restored = loaded.table();
+        assertEquals(2, restored.size());
+        assertEquals(-3.5, restored.get(restored.row(100), 2));
+        assertEquals(9.25, restored.get(restored.row(StateKey.KEY_SPACE - 1), 4));
+        assertEquals(1.0, restored.get(restored.row(100), 0));
+        assertEquals(STATE, loaded.state());
+    }
+
+    @Test
+    void incrementalSaveKeepsCleanRowsAndWritesDirtyOnes(@TempDir Path dir) throws IOException {
+        DenseQTable table = new DenseQTable(StateLayout.GOLD_COLLECTOR, 5, 0.0);
+        int clean = table.row(StateKey.pack(1, 0, 0, 3, true, 0));
+        int changed = table.row(StateKey.pack(-1, 1, 0, 5, true, 0b0101));
+        table.set(clean, 0, 1.5);
+        table.set(changed, 1, 2.5);
+
+        QTableCheckpoint checkpoint = new QTableCheckpoint(dir.resolve("q.qtable"));
+        checkpoint.save(table, STATE);
+
+        table.set(changed, 1, 4.0);
+        int added = table.row(StateKey.pack(0, 0, 1, 1, true, 0b1000));
+        table.set(added, 3, -1.0);
+        assertTrue(table.isDirty(changed));
+        assertFalse(table.isDirty(clean));
+        checkpoint.save(table, STATE);
+
+        QTable restored = checkpoint.load(0.0).table();
+        assertTrue(restored instanceof DenseQTable);
+        assertEquals(3, restored.size());
+        assertEquals(1.5, restored.get(clean, 0));
+        assertEquals(4.0, restored.get(changed, 1));
+        assertEquals(-1.0, restored.get(added, 3));
+    }
+
+    @Test
+    void saveAfterAFailedOneWritesTheRowsItTook(@TempDir Path dir) throws IOException {
+        FailingTable table = new FailingTable(new DenseQTable(StateLayout.GOLD_COLLECTOR, 5, 0.0));
+        int key = StateKey.pack(-1, 1, 0, 5, true, 0b0101);
+        int changed = table.row(key);
+        table.set(changed, 1, 2.5);
+
+        QTableCheckpoint checkpoint = new QTableCheckpoint(dir.resolve("q.qtable"));
+        checkpoint.save(table, STATE);
+
+        // The failing save takes the row's dirty bit before it fails
+        table.set(changed, 1, 4.0);
+        table.failReads = true;
+        assertThrows(IllegalStateException.class, () -> checkpoint.save(table, STATE));
+        assertFalse(table.isDirty(changed));
+        assertFalse(Files.exists(dir.resolve("q.qtable.tmp")));
+
+        table.failReads = false;
+        checkpoint.save(table, STATE);
+        QTable restored = checkpoint.load(0.0).table();
+        assertEquals(4.0, restored.get(restored.row(key), 1));
+    }
+
+    /** Delegates to a real table, but can fail value reads midway through a save. */
+    private static final class FailingTable implements QTable
+    {
+        private final QTable table;
+        boolean failReads = false;
+
+        FailingTable(QTable table) {
+            this.table = table;
+        }
+
+        @Override public int row(int stateKey) { return table.row(stateKey); }
+        @Override public double get(int row, int action) {
+            if (failReads) throw new IllegalStateException("read failed");
+            return table.get(row, action);
+        }
+        @Override public void set(int row, int action, double value) { table.set(row, action, value); }
+        @Override public int size() { return table.size(); }
+        @Override public int actionCount() { return table.actionCount(); }
+        @Override public int rowLimit() { return table.rowLimit(); }
+        @Override public int keyAt(int row) { return table.keyAt(row); }
+        @Override public boolean isDirty(int row) { return table.isDirty(row); }
+        @Override public boolean takeDirty(int row) { return table.takeDirty(row); }
+        @Override public void clearDirty() { table.clearDirty(); }
+    }
+
+    @Test
+    void policyResumesFromCheckpoint(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("policy.qtable");
+        QLearningPolicy trained = new QLearningPolicy();
+        assertFalse(trained.attachCheckpoint(new QTableCheckpoint(file)));
+
+        Observation s = new Observation(new double[] { 1.0, 0.0, 0.0, 0.5, 0.0, 0.0, 0.0, 0.0 });
+        Observation goal = new Observation(new double[] { 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0 });
+        for (int i = 0; i < 3; i++) {
+            trained.observeTransition(s, Action.MOVE_EAST, 10.0, goal, true);
+        }
+        trained.saveCheckpoint();
+
+        QLearningPolicy resumed = new QLearningPolicy();
+        assertTrue(resumed.attachCheckpoint(new QTableCheckpoint(file)));
+        assertEquals(trained.getStateCount(), resumed.getStateCount());
+
+        QTable expected = trained.getTable();
+        QTable actual = resumed.getTable();
+        int key = StateKey.encode(s.getFeatures());
+        assertEquals(expected.get(expected.row(key), Action.MOVE_EAST.ordinal()),
+                actual.get(actual.row(key), Action.MOVE_EAST.ordinal()));
+    }
+
+    @Test
+    void missingFileLoadsAsNull(@TempDir Path dir) throws IOException {
+        assertNull(new QTableCheckpoint(dir.resolve("none.qtable")).load(0.0));
+    }
+}
@@ -0,0 +1,37 @@
+package me.evisual.rlenv.control;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplayBufferTest {
+
+    @Test
+    void roundTripsRecordFields() {
+        ReplayBuffer buffer = new ReplayBuffer(4);
+        buffer.add(12345, 3, -0.25f, StateKey.KEY_SPACE - 1, true);
+
+        assertEquals(1, buffer.size());
+        assertEquals(12345, buffer.stateKey(0));
+        assertEquals(StateKey.KEY_SPACE - 1, buffer.nextStateKey(0));
+        assertEquals(3, buffer.action(0));
+        assertEquals(-0.25f, buffer.reward(0));
+        assertTrue(buffer.isDone(0));
+    }
+
+    @Test
+    void overwritesOldestRecordWhenFull() {
+        ReplayBuffer buffer = new ReplayBuffer(3);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(i, 0, i, i + 1, false);
+        }
+
+        assertEquals(3, buffer.size());
+        assertEquals(3, buffer.stateKey(0));
+        assertEquals(4, buffer.stateKey(1));
+        assertEquals(2, buffer.stateKey(2));
+        assertFalse(buffer.isDone(0));
+    }
+}
@@ -0,0 +1,34 @@
+package me.evisual.rlenv.control;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StateKeyTest {
+
+    @Test
+    void roundTripsGoldCollectorFeatures() {
+        int key = StateKey.encode(new double[] { -1.0, 1.0, 0.0, 0.30, 1.0, 0.0, 0.0, 1.0 });
+
+        assertEquals(-1, StateKey.dx(key));
+        assertEquals(1, StateKey.dz(key));
+        assertEquals(0, StateKey.dy(key));
+        assertEquals(2, StateKey.distBin(key));
+        assertTrue(StateKey.hasBlockedBits(key));
+        assertEquals(0b1001, StateKey.blockedMask(key));
+        assertTrue(key < StateKey.KEY_SPACE);
+    }
+
+    @Test
+    void progressionKeysCarryNoBlockedBits() {
+        int progression = StateKey.encode(new double[] { 1.0, 0.0, 1.0 });
+        int gold = StateKey.encode(new double[] { 1.0, 0.0, 0.0, 1.0, 0.0, 0.0, 0.0, 0.0 });
+
+        assertFalse(StateKey.hasBlockedBits(progression));
+        assertEquals(StateKey.DIST_BINS - 1, StateKey.distBin(progression));
+        assertNotEquals(progression, gold);
+    }
+}
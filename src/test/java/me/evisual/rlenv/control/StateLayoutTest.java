@@ -0,0 +1,46 @@
+package me.evisual.rlenv.control;
+
+import me.evisual.rlenv.env.Observation;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StateLayoutTest {
+
+    @Test
+    void detectsKnownWidthsOnly() {
+        assertSame(StateLayout.PROGRESSION, StateLayout.detect(3));
+        assertSame(StateLayout.GOLD_COLLECTOR, StateLayout.detect(8));
+        assertNull(StateLayout.detect(5));
+    }
+
+    @Test
+    void indexIsABijectionOverTheLayout() {
+        for (StateLayout layout : StateLayout.values()) {
+            boolean[] seen = new boolean[layout.stateCount()];
+            for (int i = 0; i < layout.stateCount(); i++) {
+                int key = layout.keyAt(i);
+                assertTrue(layout.accepts(key));
+                int index = layout.index(key);
+                assertEquals(i, index);
+                assertFalse(seen[index]);
+                seen[index] = true;
+            }
+        }
+    }
+
+    @Test
+    void policyFallsBackToHashedTableForUnknownLayouts() {
+        QLearningPolicy dense = new QLearningPolicy();
+        dense.chooseAction(new Observation(new double[] { 1.0, 0.0, 0.5 }));
+        assertTrue(dense.getTable() instanceof DenseQTable);
+
+        QLearningPolicy hashed = new QLearningPolicy();
+        hashed.chooseAction(new Observation(new double[] { 1.0, 0.0, 0.0, 0.5, 0.0 }));
+        assertTrue(hashed.getTable() instanceof HashedQTable);
+    }
+}
@@ -0,0 +1,51 @@
+package me.evisual.rlenv.control;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TickBudgetTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    void fitsAsManyStepsAsTheBudgetAllows() {
+        TickBudget budget = new TickBudget(8 * MS);
+        budget.beginTick(0L);
+        assertEquals(1, budget.stepsThatFit());
+
+        budget.recordSteps(10, 10 * MS); // 1 ms per step
+        assertEquals(8, budget.stepsThatFit());
+    }
+
+    @Test
+    void backsOffWhileTheServerLagsAndRecoversAfter() {
+        TickBudget budget = new TickBudget(8 * MS);
+        long now = 0L;
+        budget.beginTick(now);
+
+        for (int i = 0; i < 10; i++) {
+            now += 100 * MS; // 10 TPS
+            budget.beginTick(now);
+        }
+        assertEquals(MS / 2, budget.getCurrentBudgetNanos());
+
+        for (int i = 0; i < 60; i++) {
+            now += TickBudget.TICK_NANOS;
+            budget.beginTick(now);
+        }
+        assertEquals(8 * MS, budget.getCurrentBudgetNanos());
+    }
+
+    @Test
+    void keepsTheFullBudgetOnAHealthyServer() {
+        TickBudget budget = new TickBudget(8 * MS);
+        long now = 0L;
+        for (int i = 0; i < 20; i++) {
+            budget.beginTick(now);
+            now += TickBudget.TICK_NANOS;
+        }
+        assertEquals(8 * MS, budget.getCurrentBudgetNanos());
+        assertEquals(TickBudget.TICK_NANOS, budget.getAverageTickIntervalNanos(), 1.0);
+    }
+}
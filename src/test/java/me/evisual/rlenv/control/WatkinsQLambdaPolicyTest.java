@@ -0,0 +1,40 @@
+package me.evisual.rlenv.control;
+
+import me.evisual.rlenv.env.Action;
+import me.evisual.rlenv.env.Observation;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WatkinsQLambdaPolicyTest {
+
+    private static final Observation FAR = new Observation(new double[] { 1.0, 0.0, 0.0, 0.9, 0.0, 0.0, 0.0, 0.0 });
+    private static final Observation NEAR = new Observation(new double[] { 1.0, 0.0, 0.0, 0.5, 0.0, 0.0, 0.0, 0.0 });
+    private static final Observation GOAL = new Observation(new double[] { 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0 });
+
+    @Test
+    void goalRewardReachesEarlierStatesInOneEpisode() {
+        QLearningPolicy oneStep = new QLearningPolicy();
+        WatkinsQLambdaPolicy lambda = new WatkinsQLambdaPolicy(0.8, 16, 0.01);
+
+        runEpisode(oneStep);
+        runEpisode(lambda);
+
+        // Both start from the optimistic init; only the traced policy lifts FAR above it
+        assertTrue(farValue(lambda) > 1.0);
+        assertTrue(farValue(oneStep) < 1.0);
+        assertEquals(0, lambda.getTraceCount());
+    }
+
+    private static void runEpisode(QLearningPolicy policy) {
+        policy.observeTransition(FAR, Action.MOVE_EAST, 0.0, NEAR, false);
+        policy.observeTransition(NEAR, Action.MOVE_EAST, 10.0, GOAL, true);
+        policy.onEpisodeEnd();
+    }
+
+    private static double farValue(QLearningPolicy policy) {
+        QTable table = policy.getTable();
+        return table.get(table.row(StateKey.encode(FAR.getFeatures())), Action.MOVE_EAST.ordinal());
+    }
+}
@@ -0,0 +1,82 @@
+package me.evisual.rlenv.env;
+
+import me.evisual.rlenv.control.QLearningPolicy;
+import me.evisual.rlenv.env.goldcollector.GoldCollectorSimulation;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VectorizedEnvironmentTest {
+
+    private static GoldCollectorSimulation simulation(long seed, int maxSteps) {
+        return new GoldCollectorSimulation(0, 6, 0, 6, 64, maxSteps, new Random(seed));
+    }
+
+    @Test
+    void autoResetsFinishedEnvironments() {
+        VectorizedEnvironment envs = new VectorizedEnvironment(List.of(simulation(1L, 3), simulation(2L, 5)));
+        envs.reset();
+        Action[] actions = { Action.STAY, Action.STAY };
+
+        for (int i = 0; i < 3; i++) {
+            envs.step(actions);
+        }
+
+        assertTrue(envs.dones()[0]);
+        assertFalse(envs.dones()[1]);
+        assertFalse(envs.get(0).isDone(), "finished env should already be reset");
+        assertTrue(envs.observations()[0] != envs.nextStates()[0]);
+        assertTrue(envs.observations()[1] == envs.nextStates()[1]);
+    }
+
+    @Test
+    void bufferedStepsMatchObjectSteps() {
+        GoldCollectorSimulation buffered = simulation(7L, 40);
+        GoldCollectorSimulation boxed = simulation(7L, 40);
+        double[] features = new double[buffered.observationSize()];
+        StepOutcome outcome = new StepOutcome();
+
+        buffered.reset(features);
+        assertArrayEquals(boxed.reset().getFeatures(), features);
+
+        Action[] cycle = { Action.MOVE_NORTH, Action.MOVE_EAST, Action.MOVE_EAST, Action.MOVE_SOUTH, Action.MOVE_WEST, Action.STAY };
+        for (int i = 0; i < 40; i++) {
+            Action action = cycle[i % cycle.length];
+            buffered.step(action, features, outcome);
+            StepResult expected = boxed.step(action);
+
+            assertArrayEquals(expected.getObservation().getFeatures(), features);
+            assertEquals(expected.getReward(), outcome.getReward());
+            assertEquals(expected.isDone(), outcome.isDone());
+            if (outcome.isDone()) break;
+        }
+    }
+
+    @Test
+    void batchPolicyPathDrivesEveryEnvironment() {
+        VectorizedEnvironment envs = new VectorizedEnvironment(
+                List.of(simulation(3L, 50), simulation(4L, 50), simulation(5L, 50)));
+        QLearningPolicy policy = new QLearningPolicy();
+        envs.reset();
+        Action[] actions = new Action[envs.size()];
+
+        for (int step = 0; step < 200; step++) {
+            policy.chooseActions(envs.observations(), actions);
+            envs.step(actions);
+            policy.observeTransitions(envs.states(), actions, envs.rewards(), envs.nextStates(), envs.dones());
+        }
+
+        for (Action action : actions) {
+            assertNotNull(action);
+        }
+        assertEquals(3, envs.size());
+        assertTrue(policy.getStateCount() > 0);
+    }
+}
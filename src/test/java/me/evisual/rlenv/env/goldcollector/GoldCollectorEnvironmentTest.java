@@ -0,0 +1,59 @@
+package me.evisual.rlenv.env.goldcollector;
+
+import me.evisual.rlenv.world.TerrainBuildPlan;
+import me.evisual.rlenv.world.TerrainHeightmap;
+import org.bukkit.Material;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GoldCollectorEnvironmentTest {
+
+    private static final int MIN_X = 100;
+    private static final int MIN_Z = -40;
+
+    @Test
+    void buildPlanBakesTheGoalCapAndRingIntoTheTerrain() {
+        TerrainHeightmap map = TerrainHeightmap.generate(9, 9, 5L);
+        int gx = 4;
+        int gz = 4;
+        GoldCollectorLayout layout = new GoldCollectorLayout(map, MIN_X, MIN_Z,
+                MIN_X + gx, MIN_Z + gz, true, true);
+
+        TerrainBuildPlan plain = TerrainBuildPlan.of(map);
+        TerrainBuildPlan plan = GoldCollectorEnvironment.buildPlan(layout, MIN_X, MIN_Z);
+
+        int h = map.height(gx, gz);
+        assertEquals(Material.GOLD_BLOCK, plan.block(gx, gz, h));
+        Material expectedCap = plain.isReplaceable(gx, gz, h + 1) ? Material.DIRT : plain.block(gx, gz, h + 1);
+        assertEquals(expectedCap, plan.block(gx, gz, h + 1));
+
+        int[][] ring = {{gx + 1, gz}, {gx - 1, gz}, {gx, gz + 1}, {gx, gz - 1}};
+        for (int[] n : ring) {
+            Material expected = plain.isReplaceable(n[0], n[1], h + 1)
+                    ? Material.COBBLESTONE : plain.block(n[0], n[1], h + 1);
+            assertEquals(expected, plan.block(n[0], n[1], h + 1));
+        }
+    }
+
+    @Test
+    void buildPlanWithoutDecorationsOnlyChangesTheGoalBlock() {
+        TerrainHeightmap map = TerrainHeightmap.generate(6, 5, 9L);
+        GoldCollectorLayout layout = new GoldCollectorLayout(map, MIN_X, MIN_Z,
+                MIN_X, MIN_Z + 4, false, false);
+
+        TerrainBuildPlan plain = TerrainBuildPlan.of(map);
+        TerrainBuildPlan plan = GoldCollectorEnvironment.buildPlan(layout, MIN_X, MIN_Z);
+
+        int changed = 0;
+        for (int x = 0; x < map.width(); x++) {
+            for (int z = 0; z < map.length(); z++) {
+                for (int dy = 0; dy < TerrainBuildPlan.COLUMN_HEIGHT; dy++) {
+                    if (plan.block(x, z, dy) != plain.block(x, z, dy)) changed++;
+                }
+            }
+        }
+        assertEquals(1, changed);
+        assertEquals(Material.GOLD_BLOCK, plan.block(0, 4, map.height(0, 4)));
+    }
+}
@@ -0,0 +1,87 @@
+package me.evisual.rlenv.env.goldcollector;
+
+import me.evisual.rlenv.env.Action;
+import me.evisual.rlenv.env.Observation;
+import me.evisual.rlenv.env.StepResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GoldCollectorSimulationTest {
+
+    private static GoldCollectorSimulation newSimulation(long seed) {
+        return new GoldCollectorSimulation(0, 10, 0, 10, 64, 200, new Random(seed));
+    }
+
+    @Test
+    void sameSeedProducesSameTrajectory() {
+        GoldCollectorSimulation a = newSimulation(42L);
+        GoldCollectorSimulation b = newSimulation(42L);
+        Random actions = new Random(7L);
+
+        for (int episode = 0; episode < 3; episode++) {
+            assertArrayEquals(a.reset().getFeatures(), b.reset().getFeatures());
+            assertEquals(a.getLayout().goalX(), b.getLayout().goalX());
+            assertEquals(a.getLayout().goalCovered(), b.getLayout().goalCovered());
+
+            while (!a.isDone()) {
+                Action action = Action.values()[actions.nextInt(Action.values().length)];
+                StepResult ra = a.step(action);
+                StepResult rb = b.step(action);
+                assertEquals(ra.getReward(), rb.getReward());
+                assertEquals(ra.isDone(), rb.isDone());
+                assertArrayEquals(ra.getObservation().getFeatures(), rb.getObservation().getFeatures());
+            }
+        }
+    }
+
+    @Test
+    void layoutGeneratedAheadMatchesInlineReset() {
+        GoldCollectorSimulation inline = newSimulation(9L);
+        GoldCollectorSimulation ahead = newSimulation(9L);
+
+        GoldCollectorLayout next = ahead.generateLayout();
+        for (int episode = 0; episode < 3; episode++) {
+            double[] expected = inline.reset().getFeatures();
+            double[] actual = ahead.reset(next).getFeatures();
+            next = ahead.generateLayout(); // prepared while the episode runs
+
+            assertArrayEquals(expected, actual);
+            assertEquals(inline.getGoalX(), ahead.getGoalX());
+            assertEquals(inline.getAgentY(), ahead.getAgentY());
+            assertEquals(inline.getLayout().goalRing(), ahead.getLayout().goalRing());
+        }
+    }
+
+    @Test
+    void stepsStayOnWalkableSurface() {
+        GoldCollectorSimulation sim = newSimulation(3L);
+        sim.reset();
+        Random actions = new Random(11L);
+
+        for (int i = 0; i < 200 && !sim.isDone(); i++) {
+            int prevY = sim.getAgentY();
+            StepResult result = sim.step(Action.values()[actions.nextInt(Action.values().length)]);
+
+            assertEquals(sim.surfaceY(sim.getAgentX(), sim.getAgentZ()), sim.getAgentY());
+            assertTrue(Math.abs(sim.getAgentY() - prevY) <= 1);
+            if (result.getReward() == 10.0) {
+                assertEquals(sim.getGoalX(), sim.getAgentX());
+                assertEquals(sim.getGoalZ(), sim.getAgentZ());
+            }
+        }
+    }
+
+    @Test
+    void observationHasGoldCollectorLayout() {
+        GoldCollectorSimulation sim = newSimulation(5L);
+        Observation obs = sim.reset();
+
+        assertEquals(8, obs.getFeatures().length);
+        assertTrue(obs.getFeatures()[3] > 0.0);
+    }
+}
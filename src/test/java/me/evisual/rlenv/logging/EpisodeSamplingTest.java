@@ -0,0 +1,101 @@
+package me.evisual.rlenv.logging;
+
+import me.evisual.rlenv.env.Action;
+import me.evisual.rlenv.env.Observation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EpisodeSamplingTest {
+
+    @Test
+    void everyNthKeepsFirstOfEachGroup() {
+        EpisodeSampling sampling = EpisodeSampling.everyNth(3);
+        for (int episode = 0; episode < 9; episode++) {
+            assertEquals(episode % 3 == 0, sampling.begin());
+        }
+    }
+
+    @Test
+    void afterSkipsEarlyEpisodes() {
+        EpisodeSampling sampling = EpisodeSampling.after(4);
+        for (int episode = 0; episode < 8; episode++) {
+            assertEquals(episode >= 4, sampling.begin());
+        }
+    }
+
+    @Test
+    void reservoirKeepsExactlyKPerWindow() {
+        EpisodeSampling sampling = EpisodeSampling.reservoir(7, 50, new Random(42));
+        for (int window = 0; window < 20; window++) {
+            int kept = 0;
+            for (int i = 0; i < 50; i++) {
+                if (sampling.begin()) kept++;
+            }
+            assertEquals(7, kept);
+        }
+    }
+
+    @Test
+    void fromConfigParsesModes() {
+        assertEquals(EpisodeSampling.Mode.EVERY_NTH, EpisodeSampling.fromConfig("every-nth", 5, 0, 1, 1).mode());
+        assertEquals(EpisodeSampling.Mode.SUCCESSFUL, EpisodeSampling.fromConfig(" Successful ", 1, 0, 1, 1).mode());
+        assertNull(EpisodeSampling.fromConfig("sometimes", 1, 0, 1, 1));
+    }
+
+    @Test
+    void successfulOnlyRecorderWritesOnlyEpisodesReachingTheGoal(@TempDir Path dir) throws IOException {
+        TransitionLogger logger = new TransitionLogger(dir.toFile());
+        logger.setSampling(EpisodeSampling.successfulOnly());
+        TransitionLogger.Recorder recorder = logger.recorder();
+
+        // Failed episode (timed out), then a successful one, then another failure
+        logEpisode(recorder, 0.0, 3, -1.0);
+        logEpisode(recorder, 10.0, 2, 1.0);
+        logEpisode(recorder, 20.0, 4, -1.0);
+        logger.close();
+
+        List<String> lines = Files.readAllLines(dir.resolve("transitions.csv"));
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(1).startsWith("10.000000,"));
+        assertTrue(lines.get(1).endsWith(",0,0"));
+        assertTrue(lines.get(2).startsWith("11.000000,"));
+        assertTrue(lines.get(2).endsWith(",1,0"));
+    }
+
+    @Test
+    void skippedEpisodesAreNotWritten(@TempDir Path dir) throws IOException {
+        TransitionLogger logger = new TransitionLogger(dir.toFile());
+        logger.setSampling(EpisodeSampling.everyNth(2));
+        TransitionLogger.Recorder recorder = logger.recorder();
+
+        for (int episode = 0; episode < 4; episode++) {
+            logEpisode(recorder, episode * 10.0, 2, 0.0);
+        }
+        logger.close();
+
+        List<String> lines = Files.readAllLines(dir.resolve("transitions.csv"));
+        assertEquals(5, lines.size());
+        assertTrue(lines.get(1).startsWith("0.000000,"));
+        assertTrue(lines.get(3).startsWith("20.000000,"));
+        assertFalse(lines.stream().anyMatch(line -> line.startsWith("10.000000,")));
+    }
+
+    private static void logEpisode(TransitionLogger.Recorder recorder, double start, int steps, double finalReward) {
+        for (int i = 0; i < steps; i++) {
+            boolean done = i == steps - 1;
+            recorder.log(new Observation(new double[] { start + i }), Action.MOVE_NORTH,
+                    done ? finalReward : -0.01, new Observation(new double[] { start + i + 1 }), done);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package me.evisual.rlenv.logging;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentCompressorTest {
+
+    @Test
+    void reportsAFailedSegmentAndRetriesItWithTheNextOne(@TempDir Path dir) throws Exception {
+        Logger log = Logger.getLogger("SegmentCompressorTest");
+        log.setUseParentHandlers(false);
+        List<LogRecord> records = Collections.synchronizedList(new ArrayList<>());
+        Handler handler = new Handler() {
+            @Override public void publish(LogRecord record) { records.add(record); }
+            @Override public void flush() { }
+            @Override public void close() { }
+        };
+        log.addHandler(handler);
+        Path reports = Files.createDirectory(dir.resolve("reports"));
+        TimingReporter reporter = new TimingReporter(log, reports.toFile(), 60);
+
+        try {
+            // A folder where the segment should be can't be read, so its compression fails
+            Path first = Files.createDirectory(dir.resolve("transitions-000000000000001.csv"));
+            SegmentCompressor compressor = new SegmentCompressor(dir, "transitions-", 0L, reporter, log);
+            compressor.compress(first);
+            long deadline = System.currentTimeMillis() + 10_000L;
+            while (records.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10L);
+            }
+            assertEquals(1, records.size());
+            assertTrue(records.get(0).getMessage().contains(first.toString()));
+
+            // Once it is readable, queueing the next segment picks it up again
+            Files.delete(first);
+            Files.writeString(first, "obs,action,reward,next_obs,done,env\n");
+            Path second = Files.writeString(dir.resolve("transitions-000000000000002.csv"), "");
+            compressor.compress(second);
+            compressor.shutdown();
+            assertTrue(compressor.awaitTermination(10_000L));
+
+            assertFalse(Files.exists(first));
+            assertTrue(Files.exists(dir.resolve("transitions-000000000000001.csv.gz")));
+            assertTrue(Files.exists(dir.resolve("transitions-000000000000002.csv.gz")));
+            assertEquals(1, records.size());
+        } finally {
+            log.removeHandler(handler);
+        }
+
+        reporter.close();
+        String report = Files.readString(reports.resolve("timing-report.txt"));
+        assertTrue(report.contains("log segments=2"));
+        assertTrue(report.contains("failed segment compressions=1"));
+    }
+}
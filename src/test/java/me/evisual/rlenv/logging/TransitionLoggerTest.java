@@ -5,16 +5,25 @@ import me.evisual.rlenv.env.Observation;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TransitionLoggerTest {
 
+    private static final Logger LOG = Logger.getLogger("TransitionLoggerTest");
+
     @Test
     void writesHeaderAndSingleLine(@TempDir Path dir) throws IOException {
         TransitionLogger logger = new TransitionLogger(dir.toFile());
@@ -27,7 +36,171 @@ class TransitionLoggerTest {
         Path file = dir.resolve("transitions.csv");
         List<String> lines = Files.readAllLines(file);
         assertEquals(2, lines.size());
-        assertEquals("obs,action,reward,next_obs,done", lines.get(0));
+        assertEquals("obs,action,reward,next_obs,done,env", lines.get(0));
         assertTrue(lines.get(1).startsWith("1.000000;0.000000;0.500000,"));
     }
+
+    @Test
+    void movesAsideACsvFileWithAnOlderHeader(@TempDir Path dir) throws IOException {
+        String old = "obs,action,reward,next_obs,done\n1.0,0,0.5,2.0,1\n";
+        Files.writeString(dir.resolve("transitions.csv"), old);
+
+        TransitionLogger logger = new TransitionLogger(dir.toFile());
+        Observation s = new Observation(new double[] { 1.0 });
+        logger.logTransition(s, Action.STAY, 0.5, s, true);
+        logger.close();
+
+        List<String> lines = Files.readAllLines(dir.resolve("transitions.csv"));
+        assertEquals(2, lines.size());
+        assertEquals("obs,action,reward,next_obs,done,env", lines.get(0));
+        try (var files = Files.list(dir)) {
+            List<Path> aside = files.filter(p -> p.getFileName().toString().startsWith("transitions.csv.")).toList();
+            assertEquals(1, aside.size());
+            assertEquals(old, Files.readString(aside.get(0)));
+        }
+    }
+
+    @Test
+    void closeWritesEveryTransitionFromConcurrentLoggers(@TempDir Path dir) throws Exception {
+        // A ring much smaller than the transition count, so loggers have to wait for the writer
+        TransitionLogger logger = new TransitionLogger(dir.toFile(), TransitionFormat.CSV,
+                TransitionLogger.Rotation.NONE, null, LOG, 8, 1000L);
+        int threads = 3;
+        int perThread = 500;
+
+        Thread[] loggers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            double id = t;
+            loggers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    Observation s = new Observation(new double[] { id, i });
+                    Observation next = new Observation(new double[] { id, i + 1 });
+                    logger.logTransition(s, Action.MOVE_EAST, -0.01, next, false);
+                }
+            });
+            loggers[t].start();
+        }
+        for (Thread thread : loggers) thread.join();
+        logger.close();
+
+        List<String> lines = Files.readAllLines(dir.resolve("transitions.csv"));
+        assertEquals(1 + threads * perThread, lines.size());
+        for (int t = 0; t < threads; t++) {
+            String prefix = String.format("%.6f;", (double) t);
+            assertEquals(perThread, lines.stream().filter(l -> l.startsWith(prefix)).count());
+        }
+        assertEquals(String.format("%.6f;%.6f,2,%.6f,%.6f;%.6f,0,0", 0.0, 0.0, -0.01, 0.0, 1.0),
+                lines.stream().filter(l -> l.startsWith(String.format("%.6f;%.6f,", 0.0, 0.0))).findFirst().orElse(""));
+    }
+
+    @Test
+    void transitionsReachTheFileWithinTheFlushInterval(@TempDir Path dir) throws Exception {
+        TransitionLogger logger = new TransitionLogger(dir.toFile(), TransitionFormat.CSV,
+                TransitionLogger.Rotation.NONE, null, LOG, 1024, 20L);
+        Observation s = new Observation(new double[] { 1.0 });
+        logger.logTransition(s, Action.STAY, 1.0, s, true);
+
+        Path file = dir.resolve("transitions.csv");
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (Files.readAllLines(file).size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertEquals(2, Files.readAllLines(file).size());
+        logger.close();
+    }
+
+    private static void logEpisodes(TransitionLogger logger, int transitions) {
+        for (int i = 0; i < transitions; i++) {
+            Observation s = new Observation(new double[] { i });
+            Observation next = new Observation(new double[] { i + 1 });
+            logger.logTransition(s, Action.MOVE_WEST, 0.0, next, i % 2 == 1);
+        }
+    }
+
+    private static List<Path> compressedSegments(Path dir) throws IOException {
+        try (var files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".csv.gz")).sorted().toList();
+        }
+    }
+
+    @Test
+    void rotatedSegmentsAreCompressedWithoutLosingTransitions(@TempDir Path dir) throws Exception {
+        TimingReporter reporter = new TimingReporter(Logger.getLogger("TransitionLoggerTest"), dir.toFile(), 60);
+        TransitionLogger logger = new TransitionLogger(dir.toFile(), TransitionFormat.CSV,
+                new TransitionLogger.Rotation(0L, 5, 0L), reporter, LOG, 64, 1000L);
+        logEpisodes(logger, 23); // 11 episodes: rotates after the 5th and the 10th
+        logger.close();
+        assertTrue(logger.awaitCompression(10_000L));
+
+        List<Path> segments = compressedSegments(dir);
+        assertEquals(2, segments.size());
+
+        List<String> lines = new ArrayList<>();
+        for (Path segment : segments) {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(segment)), StandardCharsets.UTF_8))) {
+                in.lines().forEach(lines::add);
+            }
+        }
+        lines.addAll(Files.readAllLines(dir.resolve("transitions.csv")));
+        assertEquals(3, lines.stream().filter(l -> l.startsWith("obs,")).count());
+        assertEquals(23, lines.stream().filter(l -> !l.startsWith("obs,")).count());
+
+        reporter.close();
+        assertTrue(Files.readString(dir.resolve("timing-report.txt")).contains("log segments=2"));
+    }
+
+    @Test
+    void oldestCompressedSegmentsGoPastTheRetentionLimit(@TempDir Path dir) throws Exception {
+        TransitionLogger logger = new TransitionLogger(dir.toFile(), TransitionFormat.CSV,
+                new TransitionLogger.Rotation(0L, 1, 1L), null, LOG, 64, 1000L);
+        logEpisodes(logger, 10);
+        logger.close();
+        assertTrue(logger.awaitCompression(10_000L));
+
+        assertTrue(compressedSegments(dir).isEmpty());
+        assertTrue(Files.exists(dir.resolve("transitions.csv")));
+    }
+
+    @Test
+    void aFailedWriterDropsTransitionsInsteadOfBlockingLoggers(@TempDir Path dir) throws Exception {
+        int writable = 5;
+        TransitionLogger logger = new TransitionLogger(dir.toFile(), TransitionFormat.CSV,
+                TransitionLogger.Rotation.NONE, null, LOG, 8, 1000L) {
+            @Override
+            TransitionSink openSink() throws IOException {
+                TransitionSink csv = super.openSink();
+                return new TransitionSink() {
+                    private int appended = 0;
+
+                    @Override
+                    public void append(double[] values, int base, int width, int action, boolean done, int env) throws IOException {
+                        if (appended++ == writable) throw new IllegalStateException("disk gone");
+                        csv.append(values, base, width, action, done, env);
+                    }
+
+                    @Override public Path file() { return csv.file(); }
+                    @Override public long bytes() { return csv.bytes(); }
+                    @Override public void flush() throws IOException { csv.flush(); }
+                    @Override public void close() throws IOException { csv.close(); }
+                };
+            }
+        };
+
+        // Far more than the ring holds, so this would wait forever on a dead writer
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 100; i++) {
+                Observation s = new Observation(new double[] { i });
+                logger.logTransition(s, Action.STAY, 0.0, s, false);
+            }
+        });
+        producer.start();
+        producer.join(5000L);
+        assertFalse(producer.isAlive());
+        logger.close();
+
+        assertTrue(logger.getFailure() instanceof IllegalStateException);
+        assertEquals(100 - writable, logger.getDroppedTransitions());
+        assertEquals(1 + writable, Files.readAllLines(dir.resolve("transitions.csv")).size());
+    }
 }
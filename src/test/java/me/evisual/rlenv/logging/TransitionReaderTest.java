@@ -0,0 +1,119 @@
+package me.evisual.rlenv.logging;
+
+import me.evisual.rlenv.env.Action;
+import me.evisual.rlenv.env.Observation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransitionReaderTest {
+
+    private static final Logger LOG = Logger.getLogger("TransitionReaderTest");
+
+    private static void logSteps(File dir, int from, int count) {
+        TransitionLogger logger = new TransitionLogger(dir, TransitionFormat.BINARY,
+                TransitionLogger.Rotation.NONE, null, LOG, 64, 1000L);
+        for (int i = from; i < from + count; i++) {
+            Observation s = new Observation(new double[] { i, 0.5, -1.0 });
+            Observation next = new Observation(new double[] { i + 1, 0.25, 1.0 });
+            logger.logTransition(s, Action.values()[i % Action.values().length], i * 0.1, next, i % 7 == 0);
+        }
+        logger.close();
+    }
+
+    @Test
+    void readsBackWhatTheLoggerWrote(@TempDir Path dir) throws IOException {
+        logSteps(dir.toFile(), 0, 1000);
+
+        Path file = dir.resolve("transitions.bin");
+        assertEquals(BinaryTransitionWriter.HEADER_BYTES + 1000L * BinaryTransitionWriter.recordBytes(3),
+                Files.size(file));
+        try (TransitionReader reader = new TransitionReader(file)) {
+            assertEquals(1000, reader.size());
+            assertEquals(3, reader.width());
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(i, reader.observation(i, 0));
+                assertEquals(0.25f, reader.nextObservation(i, 1));
+                assertEquals((float) (i * 0.1), reader.reward(i));
+                assertEquals(i % Action.values().length, reader.action(i));
+                assertEquals(i % 7 == 0, reader.done(i));
+            }
+
+            float[] out = new float[3];
+            reader.readNextObservation(41, out);
+            assertArrayEquals(new float[] { 42f, 0.25f, 1f }, out);
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.reward(1000));
+        }
+    }
+
+    @Test
+    void reopeningAppendsAndAnotherWidthStartsANewFile(@TempDir Path dir) throws IOException {
+        logSteps(dir.toFile(), 0, 10);
+        logSteps(dir.toFile(), 10, 5);
+
+        Path file = dir.resolve("transitions.bin");
+        try (TransitionReader reader = new TransitionReader(file)) {
+            assertEquals(15, reader.size());
+            assertEquals(14f, reader.observation(14, 0));
+        }
+
+        TransitionLogger logger = new TransitionLogger(dir.toFile(), TransitionFormat.BINARY,
+                TransitionLogger.Rotation.NONE, null, LOG, 64, 1000L);
+        Observation wide = new Observation(new double[] { 1, 2, 3, 4 });
+        logger.logTransition(wide, Action.STAY, 1.0, wide, true);
+        logger.close();
+
+        try (TransitionReader reader = new TransitionReader(file)) {
+            assertEquals(1, reader.size());
+            assertEquals(4, reader.width());
+        }
+        try (var files = Files.list(dir)) {
+            assertEquals(2, files.filter(p -> p.getFileName().toString().startsWith("transitions.bin")).count());
+        }
+    }
+
+    @Test
+    void exportsTheSameCsvTheTextLoggerWrites(@TempDir Path dir) throws IOException {
+        File binDir = dir.resolve("bin").toFile();
+        File csvDir = dir.resolve("csv").toFile();
+        logSteps(binDir, 0, 20);
+
+        // Values that survive the float32 round trip, so both paths print the same digits
+        TransitionLogger csvLogger = new TransitionLogger(csvDir, TransitionFormat.CSV,
+                TransitionLogger.Rotation.NONE, null, LOG, 64, 1000L);
+        for (int i = 0; i < 20; i++) {
+            Observation s = new Observation(new double[] { i, 0.5, -1.0 });
+            Observation next = new Observation(new double[] { i + 1, 0.25, 1.0 });
+            csvLogger.logTransition(s, Action.values()[i % Action.values().length], (float) (i * 0.1), next, i % 7 == 0);
+        }
+        csvLogger.close();
+
+        File exported = dir.resolve("exported.csv").toFile();
+        try (TransitionReader reader = new TransitionReader(binDir.toPath().resolve("transitions.bin"))) {
+            reader.exportCsv(exported);
+        }
+
+        List<String> expected = Files.readAllLines(csvDir.toPath().resolve("transitions.csv"));
+        List<String> actual = Files.readAllLines(exported.toPath());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void rejectsFilesThatAreNotTransitionLogs(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("transitions.bin");
+        Files.write(file, new byte[64]);
+        IOException e = assertThrows(IOException.class, () -> new TransitionReader(file));
+        assertTrue(e.getMessage().contains("unknown format"));
+    }
+}
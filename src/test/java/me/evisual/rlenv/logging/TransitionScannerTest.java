@@ -0,0 +1,174 @@
+package me.evisual.rlenv.logging;
+
+import me.evisual.rlenv.env.Action;
+import me.evisual.rlenv.env.Observation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransitionScannerTest {
+
+    private static final Logger LOG = Logger.getLogger("TransitionScannerTest");
+
+    private static void logSteps(Path dir, TransitionFormat format, int count) {
+        TransitionLogger logger = new TransitionLogger(dir.toFile(), format,
+                TransitionLogger.Rotation.NONE, null, LOG, 64, 1000L);
+        for (int i = 0; i < count; i++) {
+            Observation s = new Observation(new double[] { i, -0.5, 0.125 });
+            Observation next = new Observation(new double[] { i + 1, 0.25, -1.0 });
+            logger.logTransition(s, Action.values()[i % Action.values().length], -0.01 * i, next, i % 7 == 6);
+        }
+        logger.close();
+    }
+
+    private static List<double[]> scanAll(Path file) throws IOException {
+        List<double[]> rows = new ArrayList<>();
+        new TransitionScanner().scan(file, (state, action, reward, nextState, done, env) -> {
+            rows.add(new double[] { state[0], state[1], state[2], action, reward,
+                    nextState[0], nextState[1], nextState[2], done ? 1 : 0 });
+            return true;
+        });
+        return rows;
+    }
+
+    private static void assertSteps(List<double[]> rows, int count, double tolerance) {
+        assertEquals(count, rows.size());
+        for (int i = 0; i < count; i++) {
+            double[] row = rows.get(i);
+            assertEquals(i, row[0], tolerance);
+            assertEquals(-0.5, row[1], tolerance);
+            assertEquals(0.125, row[2], tolerance);
+            assertEquals(i % Action.values().length, row[3]);
+            assertEquals(-0.01 * i, row[4], tolerance);
+            assertEquals(i + 1, row[5], tolerance);
+            assertEquals(-1.0, row[7], tolerance);
+            assertEquals(i % 7 == 6 ? 1.0 : 0.0, row[8]);
+        }
+    }
+
+    @Test
+    void scansCsvAndBinaryLogsAlike(@TempDir Path dir) throws IOException {
+        Path csvDir = Files.createDirectory(dir.resolve("csv"));
+        Path binDir = Files.createDirectory(dir.resolve("bin"));
+        logSteps(csvDir, TransitionFormat.CSV, 5000);
+        logSteps(binDir, TransitionFormat.BINARY, 5000);
+
+        assertSteps(scanAll(csvDir.resolve("transitions.csv")), 5000, 1e-6);
+        assertSteps(scanAll(binDir.resolve("transitions.bin")), 5000, 1e-4);
+    }
+
+    @Test
+    void scansGzippedSegments(@TempDir Path dir) throws IOException {
+        logSteps(dir, TransitionFormat.CSV, 300);
+        Path csv = dir.resolve("transitions.csv");
+        Path gz = dir.resolve("transitions-000000000000001.csv.gz");
+        try (InputStream in = Files.newInputStream(csv);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(gz))) {
+            in.transferTo(out);
+        }
+
+        assertSteps(scanAll(gz), 300, 1e-6);
+    }
+
+    @Test
+    void stopsWhenTheVisitorSaysSo(@TempDir Path dir) throws IOException {
+        logSteps(dir, TransitionFormat.CSV, 50);
+        int[] seen = new int[1];
+        long visited = new TransitionScanner().scan(dir.resolve("transitions.csv"),
+                (state, action, reward, nextState, done, env) -> ++seen[0] < 10);
+        assertEquals(10, visited);
+    }
+
+    @Test
+    void parsesExponentsAndCrLf(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("transitions.csv");
+        Files.writeString(file, "obs,action,reward,next_obs,done\r\n1.5e2;-2,4,1E-3,NaN;0.000001,1\r\n");
+
+        List<double[]> rows = new ArrayList<>();
+        new TransitionScanner().scan(file, (state, action, reward, nextState, done, env) -> {
+            rows.add(new double[] { state[0], state[1], action, reward, nextState[0], nextState[1], done ? 1 : 0 });
+            return true;
+        });
+        assertEquals(1, rows.size());
+        double[] row = rows.get(0);
+        assertEquals(150.0, row[0]);
+        assertEquals(-2.0, row[1]);
+        assertEquals(4.0, row[2]);
+        assertEquals(0.001, row[3]);
+        assertEquals(Double.NaN, row[4]);
+        assertEquals(0.000001, row[5]);
+        assertEquals(1.0, row[6]);
+    }
+
+    @Test
+    void readsTheEnvironmentIndexFromBothFormatsAndDefaultsOldLinesToZero(@TempDir Path dir) throws IOException {
+        for (TransitionFormat format : TransitionFormat.values()) {
+            Path formatDir = Files.createDirectory(dir.resolve(format.name()));
+            TransitionLogger logger = new TransitionLogger(formatDir.toFile(), format,
+                    TransitionLogger.Rotation.NONE, null, LOG, 64, 1000L);
+            Observation s = new Observation(new double[] { 1.0, 2.0 });
+            for (int env : new int[] { 0, 3, 65535 }) {
+                logger.logTransition(s, Action.STAY, 0.0, s, false, env);
+            }
+            logger.close();
+
+            List<Integer> envs = new ArrayList<>();
+            new TransitionScanner().scan(TransitionScanner.logFiles(formatDir).get(0),
+                    (state, action, reward, nextState, done, env) -> envs.add(env));
+            assertEquals(List.of(0, 3, 65535), envs, format.name());
+        }
+
+        Path old = dir.resolve("transitions.csv");
+        Files.writeString(old, "obs,action,reward,next_obs,done\n1;2,0,0.5,3;4,1\n");
+        List<Integer> envs = new ArrayList<>();
+        new TransitionScanner().scan(old, (state, action, reward, nextState, done, env) -> envs.add(env));
+        assertEquals(List.of(0), envs);
+    }
+
+    @Test
+    void readsTheWidthWithoutScanningTheFile(@TempDir Path dir) throws IOException {
+        Path csvDir = Files.createDirectory(dir.resolve("csv"));
+        Path binDir = Files.createDirectory(dir.resolve("bin"));
+        logSteps(csvDir, TransitionFormat.CSV, 10);
+        logSteps(binDir, TransitionFormat.BINARY, 10);
+        Path empty = Files.writeString(dir.resolve("transitions.csv"), "obs,action,reward,next_obs,done,env\n");
+
+        TransitionScanner scanner = new TransitionScanner();
+        assertEquals(3, scanner.width(csvDir.resolve("transitions.csv")));
+        assertEquals(3, scanner.width(binDir.resolve("transitions.bin")));
+        assertEquals(-1, scanner.width(empty));
+    }
+
+    @Test
+    void rejectsMalformedLines(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("transitions.csv");
+        Files.writeString(file, "obs,action,reward,next_obs,done\n1;2,0,0.5,3\n");
+        assertThrows(IOException.class, () -> new TransitionScanner().scan(file, (s, a, r, n, d, e) -> true));
+    }
+
+    @Test
+    void listsSegmentsOldestFirstThenTheActiveFile(@TempDir Path dir) throws IOException {
+        for (String name : List.of("transitions.csv", "transitions-000000000000200.csv.gz",
+                "transitions-000000000000100.csv.gz", "transitions-000000000000300.csv.gz.tmp",
+                "transitions.bin.12345", "timings.csv")) {
+            Files.writeString(dir.resolve(name), "");
+        }
+
+        List<Path> files = TransitionScanner.logFiles(dir);
+        assertEquals(List.of(dir.resolve("transitions-000000000000100.csv.gz"),
+                dir.resolve("transitions-000000000000200.csv.gz"),
+                dir.resolve("transitions.csv")), files);
+    }
+}
@@ -0,0 +1,40 @@
+package me.evisual.rlenv.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexedMaxHeapTest {
+
+    @Test
+    void pollsInPriorityOrder() {
+        IndexedMaxHeap heap = new IndexedMaxHeap(16);
+        double[] priorities = { 0.5, 3.0, 1.0, 7.0, 2.0 };
+        for (int id = 0; id < priorities.length; id++) {
+            heap.offer(id, priorities[id]);
+        }
+
+        int[] expected = { 3, 1, 4, 2, 0 };
+        for (int id : expected) {
+            assertEquals(id, heap.poll());
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    void reofferRaisesButNeverLowersOrDuplicates() {
+        IndexedMaxHeap heap = new IndexedMaxHeap(8);
+        heap.offer(1, 1.0);
+        heap.offer(2, 2.0);
+        heap.offer(1, 5.0);
+        heap.offer(2, 0.1);
+
+        assertEquals(2, heap.size());
+        assertEquals(5.0, heap.peekPriority());
+        assertEquals(1, heap.poll());
+        assertFalse(heap.contains(1));
+        assertEquals(2, heap.poll());
+    }
+}
@@ -0,0 +1,34 @@
+package me.evisual.rlenv.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VectorMathTest {
+
+    @Test
+    void dotMatchesNaiveSumForEveryTailLength() {
+        for (int n = 0; n <= 9; n++) {
+            float[] w = new float[n + 2];
+            float[] x = new float[n];
+            float expected = 0f;
+            for (int i = 0; i < n; i++) {
+                w[i + 2] = i + 1;
+                x[i] = 0.5f * i;
+                expected += w[i + 2] * x[i];
+            }
+            assertEquals(expected, VectorMath.dot(w, 2, x, n), 1e-5f);
+        }
+    }
+
+    @Test
+    void axpyOnlyTouchesTheSlice() {
+        float[] w = { 1f, 1f, 1f, 1f, 1f };
+        float[] x = { 1f, 2f, 3f };
+
+        VectorMath.axpy(2f, x, w, 1, 3);
+
+        assertArrayEquals(new float[] { 1f, 3f, 5f, 7f, 1f }, w);
+    }
+}
@@ -0,0 +1,54 @@
+package me.evisual.rlenv.world;
+
+import org.bukkit.Material;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockEditQueueTest {
+
+    @Test
+    void changesAreGroupedByChunkKeepingTheirOrderWithinEach() {
+        BlockEditQueue.Batch batch = new BlockEditQueue(16).batch(null);
+        batch.set(0, 64, 0, Material.STONE);     // chunk (0, 0)
+        batch.set(16, 64, 0, Material.STONE);    // chunk (1, 0)
+        batch.set(-1, 64, 0, Material.STONE);    // chunk (-1, 0)
+        batch.set(15, 65, 15, Material.DIRT);    // chunk (0, 0)
+        batch.set(31, 64, 2, Material.AIR);      // chunk (1, 0)
+        batch.set(0, 64, -1, Material.STONE);    // chunk (0, -1)
+        batch.set(0, 64, 0, Material.AIR);       // chunk (0, 0), overrides the first change
+
+        assertArrayEquals(new int[] {0, 3, 6, 1, 4, 2, 5}, batch.chunkOrder());
+    }
+
+    @Test
+    void emptyBatchesCompleteWithoutQueueing() {
+        BlockEditQueue queue = new BlockEditQueue(16);
+        CompletableFuture<Void> done = queue.batch(null).submit();
+
+        assertTrue(done.isDone());
+        assertTrue(queue.isIdle());
+        assertEquals(0, queue.apply(16));
+    }
+
+    @Test
+    void submittedBatchesAreQueuedAndSealed() {
+        BlockEditQueue queue = new BlockEditQueue(0);
+        BlockEditQueue.Batch batch = queue.batch(null)
+                .set(1, 2, 3, Material.STONE)
+                .set(4, 5, 6, Material.DIRT);
+        CompletableFuture<Void> done = batch.submit();
+
+        assertEquals(1, queue.getBlocksPerTick());
+        assertEquals(2, queue.pendingBlocks());
+        assertFalse(done.isDone());
+        assertThrows(IllegalStateException.class, () -> batch.set(0, 0, 0, Material.AIR));
+        assertThrows(IllegalStateException.class, batch::submit);
+    }
+}
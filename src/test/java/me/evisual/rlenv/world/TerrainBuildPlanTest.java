@@ -0,0 +1,35 @@
+package me.evisual.rlenv.world;
+
+import org.bukkit.Material;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TerrainBuildPlanTest {
+
+    @Test
+    void everyColumnIsDirtUnderGrassWithTheDecorationOrAirAbove() {
+        TerrainHeightmap map = TerrainHeightmap.generate(9, 7, 12L);
+        TerrainBuildPlan plan = TerrainBuildPlan.of(map);
+
+        for (int x = 0; x < map.width(); x++) {
+            for (int z = 0; z < map.length(); z++) {
+                int h = map.height(x, z);
+                for (int dy = 0; dy < h; dy++) {
+                    assertEquals(Material.DIRT, plan.block(x, z, dy));
+                }
+                assertEquals(Material.GRASS_BLOCK, plan.block(x, z, h));
+
+                Material expectedTop = switch (map.decoration(x, z)) {
+                    case OAK_LEAVES -> Material.OAK_LEAVES;
+                    case TALL_GRASS -> Material.TALL_GRASS;
+                    case NONE -> Material.AIR;
+                };
+                assertEquals(expectedTop, plan.block(x, z, h + 1));
+                for (int dy = h + 2; dy < TerrainBuildPlan.COLUMN_HEIGHT; dy++) {
+                    assertEquals(Material.AIR, plan.block(x, z, dy));
+                }
+            }
+        }
+    }
+}
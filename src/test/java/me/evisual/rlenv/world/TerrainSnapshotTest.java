@@ -0,0 +1,56 @@
+package me.evisual.rlenv.world;
+
+import org.bukkit.Material;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TerrainSnapshotTest {
+
+    @Test
+    void packedPositionsRoundTripIncludingNegatives() {
+        int[][] positions = {
+                {0, 0, 0}, {1, 2, 3}, {-1, -64, -1}, {29_999_999, 319, -29_999_999}, {-30_000_000, 2047, 30_000_000}
+        };
+        for (int[] p : positions) {
+            long packed = TerrainSnapshot.pack(p[0], p[1], p[2]);
+            assertEquals(p[0], TerrainSnapshot.unpackX(packed));
+            assertEquals(p[1], TerrainSnapshot.unpackY(packed));
+            assertEquals(p[2], TerrainSnapshot.unpackZ(packed));
+        }
+    }
+
+    @Test
+    void firstCaptureOfABlockWins() {
+        TerrainSnapshot snapshot = new TerrainSnapshot();
+        snapshot.capture(5, 64, -3, Material.STONE);
+        snapshot.capture(5, 64, -3, Material.AIR);
+        snapshot.capture(5, 65, -3, Material.DIRT);
+
+        assertEquals(2, snapshot.size());
+        BlockEditQueue queue = new BlockEditQueue(16);
+        snapshot.restore(queue, null);
+        assertEquals(Material.STONE, queue.queuedMaterial(5, 64, -3));
+        assertEquals(Material.DIRT, queue.queuedMaterial(5, 65, -3));
+    }
+
+    @Test
+    void restoreQueuesEveryCapturedBlockAndForgetsThem() {
+        TerrainSnapshot snapshot = new TerrainSnapshot();
+        for (int x = -20; x < 20; x++) {
+            for (int z = -20; z < 20; z++) {
+                for (int y = 60; y < 64; y++) {
+                    snapshot.capture(x, y, z, Material.GRASS_BLOCK);
+                    snapshot.capture(x, y, z, Material.AIR); // ignored, already captured
+                }
+            }
+        }
+        assertEquals(40 * 40 * 4, snapshot.size());
+
+        BlockEditQueue queue = new BlockEditQueue(16);
+        snapshot.restore(queue, null);
+
+        assertEquals(40 * 40 * 4, queue.pendingBlocks());
+        assertEquals(0, snapshot.size());
+    }
+}